@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.webkit.CookieManager;
+import android.webkit.WebSettings;
+import android.webkit.WebView;
+
+import com.google.android.gms.ads.MobileAds;
+
+/**
+ * Moves the one-time cost of starting the Mobile Ads SDK and the WebView off the first ad. The
+ * first {@code AdView} or {@code InterstitialAd} of a process otherwise pays for it on the UI
+ * thread, at the moment the ad is created.
+ *
+ * <p>Pre-warming runs in steps on the UI thread, one step each time its message queue goes idle,
+ * so it only uses slots where the UI thread has nothing else to do. It stops early once an ad has
+ * been created, since that ad has already paid the cost.
+ */
+public final class AdPrewarmer {
+
+    private static final int STEP_INITIALIZE_SDK = 0;
+
+    private static final int STEP_LOAD_WEBVIEW_PROVIDER = 1;
+
+    private static final int STEP_INITIALIZE_COOKIES = 2;
+
+    private static final int STEP_CREATE_WEBVIEW = 3;
+
+    private static final int STEP_COUNT = 4;
+
+    private static final String[] STEP_SPAN_NAMES = {
+            "AdsUnity: prewarm initializeSdk",
+            "AdsUnity: prewarm loadWebViewProvider",
+            "AdsUnity: prewarm initializeCookies",
+            "AdsUnity: prewarm createWebView",
+    };
+
+    private static final Object sLock = new Object();
+
+    /**
+     * Guarded by {@link #sLock}.
+     */
+    private static boolean sStarted;
+
+    /**
+     * The number of steps that have run. Only accessed on the UI thread.
+     */
+    private static int sCompletedSteps;
+
+    /**
+     * Total UI thread time spent in pre-warm steps, in nanoseconds. Guarded by {@link #sLock}.
+     */
+    private static long sPrewarmNanos;
+
+    /**
+     * UI thread time the first ad of the process took to create, in nanoseconds, or -1 until one
+     * has been created. Guarded by {@link #sLock}.
+     */
+    private static long sFirstAdCreateNanos = -1;
+
+    private AdPrewarmer() {
+    }
+
+    /**
+     * Starts pre-warming once the UI thread is idle, at least {@code delayMillis} after this
+     * call. Only the first call has an effect.
+     *
+     * @param activity    The Unity player activity.
+     * @param delayMillis Time to leave launch work alone before pre-warming.
+     */
+    public static void start(final Activity activity, final long delayMillis) {
+        synchronized (sLock) {
+            if (sStarted) {
+                return;
+            }
+            sStarted = true;
+        }
+        activity.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
+                    @Override
+                    public void run() {
+                        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+                            @Override
+                            public boolean queueIdle() {
+                                return runNextStep(activity);
+                            }
+                        });
+                    }
+                }, delayMillis);
+            }
+        });
+    }
+
+    /**
+     * Runs the next pre-warm step.
+     *
+     * @return {@code true} if steps remain.
+     */
+    private static boolean runNextStep(Activity activity) {
+        synchronized (sLock) {
+            if (sFirstAdCreateNanos >= 0) {
+                PluginLog.i("Pre-warm stopped after {} steps, an ad was created first.",
+                        sCompletedSteps);
+                return false;
+            }
+        }
+        int step = sCompletedSteps++;
+        long start = System.nanoTime();
+        PluginTrace.Tracer tracer = PluginTrace.begin(STEP_SPAN_NAMES[step]);
+        try {
+            runStep(activity, step);
+        } catch (RuntimeException e) {
+            PluginLog.w("Pre-warm step failed: {}", e.toString());
+        } finally {
+            PluginTrace.end(tracer);
+        }
+        long elapsed = System.nanoTime() - start;
+        synchronized (sLock) {
+            sPrewarmNanos += elapsed;
+            if (sCompletedSteps < STEP_COUNT) {
+                return true;
+            }
+            PluginLog.i("Pre-warm moved {} ms of cold start off the first ad.",
+                    sPrewarmNanos / 1000000);
+        }
+        return false;
+    }
+
+    private static void runStep(Activity activity, int step) {
+        switch (step) {
+            case STEP_INITIALIZE_SDK:
+                MobileAds.initialize(activity);
+                break;
+            case STEP_LOAD_WEBVIEW_PROVIDER:
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+                    WebSettings.getDefaultUserAgent(activity);
+                }
+                break;
+            case STEP_INITIALIZE_COOKIES:
+                CookieManager.getInstance();
+                break;
+            case STEP_CREATE_WEBVIEW:
+                new WebView(activity).destroy();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Records how long an ad took to create on the UI thread. Only the first ad of the process
+     * is kept, as it is the one that pays for a cold start.
+     */
+    static void onAdCreated(long elapsedNanos) {
+        synchronized (sLock) {
+            if (sFirstAdCreateNanos < 0) {
+                sFirstAdCreateNanos = elapsedNanos;
+            }
+        }
+    }
+
+    /**
+     * Returns the UI thread time spent pre-warming so far, in milliseconds. This is the cold
+     * start latency moved off the first ad.
+     */
+    public static long getPrewarmMillis() {
+        synchronized (sLock) {
+            return sPrewarmNanos / 1000000;
+        }
+    }
+
+    /**
+     * Returns the UI thread time the first ad of the process took to create, in milliseconds, or
+     * -1 if no ad has been created yet.
+     */
+    public static long getFirstAdCreateMillis() {
+        synchronized (sLock) {
+            return sFirstAdCreateNanos < 0 ? -1 : sFirstAdCreateNanos / 1000000;
+        }
+    }
+}
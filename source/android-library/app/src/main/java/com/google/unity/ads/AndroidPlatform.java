@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.Log;
+import android.view.Choreographer;
+
+/**
+ * Binds the platform-independent core of the plugin to Android: core log messages go to logcat
+ * and the {@link UiThread} is the main thread of the Unity player activity.
+ */
+final class AndroidPlatform {
+
+    /**
+     * Frame interval assumed below API level 16, where {@link Choreographer} is unavailable.
+     */
+    private static final long FALLBACK_FRAME_MILLIS = 16;
+
+    private static UiWorkScheduler sWorkScheduler;
+
+    static {
+        PluginLog.setSink(new PluginLog.Sink() {
+            @Override
+            public void write(int level, String tag, String message) {
+                Log.println(level, tag, message);
+            }
+        });
+    }
+
+    private AndroidPlatform() {
+    }
+
+    /**
+     * Returns a {@link UiThread} that posts to {@code activity}'s UI thread.
+     */
+    static UiThread getUiThread(final Activity activity) {
+        return new UiThread() {
+            @Override
+            public void post(Runnable task) {
+                activity.runOnUiThread(task);
+            }
+        };
+    }
+
+    /**
+     * Returns the {@link UiWorkScheduler} of the main thread, driven by {@link Choreographer}
+     * frames and main thread idle handlers.
+     */
+    static synchronized UiWorkScheduler getWorkScheduler() {
+        if (sWorkScheduler == null) {
+            sWorkScheduler = new UiWorkScheduler(new MainThreadDriver());
+        }
+        return sWorkScheduler;
+    }
+
+    /**
+     * Drives a {@link UiWorkScheduler} on the main thread. Frame and idle requests can come from
+     * any thread, so they are forwarded to the main thread first.
+     */
+    private static final class MainThreadDriver implements UiWorkScheduler.Driver {
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        private final Choreographer.FrameCallback mFrameCallback =
+                new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        getWorkScheduler().onFrame(frameTimeNanos);
+                    }
+                };
+
+        private final MessageQueue.IdleHandler mIdleHandler = new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                return getWorkScheduler().onIdle();
+            }
+        };
+
+        private final Runnable mPostFrameCallback = new Runnable() {
+            @Override
+            public void run() {
+                Choreographer.getInstance().postFrameCallback(mFrameCallback);
+            }
+        };
+
+        private final Runnable mRunFallbackFrame = new Runnable() {
+            @Override
+            public void run() {
+                getWorkScheduler().onFrame(System.nanoTime());
+            }
+        };
+
+        private final Runnable mAddIdleHandler = new Runnable() {
+            @Override
+            public void run() {
+                Looper.myQueue().addIdleHandler(mIdleHandler);
+            }
+        };
+
+        @Override
+        public void post(Runnable task) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                task.run();
+            } else {
+                mHandler.post(task);
+            }
+        }
+
+        @Override
+        public void requestFrame() {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                mHandler.post(mPostFrameCallback);
+            } else {
+                mHandler.postDelayed(mRunFallbackFrame, FALLBACK_FRAME_MILLIS);
+            }
+        }
+
+        @Override
+        public void requestIdle() {
+            mHandler.post(mAddIdleHandler);
+        }
+    }
+}
@@ -18,8 +18,8 @@ package com.google.unity.ads;
 import android.app.Activity;
 import android.graphics.Color;
 import android.graphics.Point;
+import android.graphics.Rect;
 import android.os.Build;
-import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewParent;
@@ -32,17 +32,14 @@ import com.google.android.gms.ads.AdListener;
 import com.google.android.gms.ads.AdRequest;
 import com.google.android.gms.ads.AdSize;
 import com.google.android.gms.ads.AdView;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
 import java.util.Timer;
 import java.util.TimerTask;
 import android.os.Handler;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
-import android.util.Base64;
-import android.content.pm.PackageInfo;
-import android.content.pm.PackageManager;
-import android.content.pm.PackageManager.NameNotFoundException;
-import android.content.pm.Signature;
 
 /**
  * This class represents the native implementation for the Google Mobile Ads Unity plugin. This
@@ -51,6 +48,107 @@ import android.content.pm.Signature;
  */
 public class Banner {
 
+    /**
+     * Creation mode in which {@code create} builds the {@link AdView} right away. This is the
+     * default.
+     */
+    public static final int CREATION_EAGER = 0;
+
+    /**
+     * Creation mode in which {@code create} only records the configuration and the
+     * {@link AdView} is built by the first {@link #loadAd(AdRequest)}, {@link #show()} or
+     * refresh.
+     */
+    public static final int CREATION_ON_FIRST_USE = 1;
+
+    /**
+     * Like {@link #CREATION_ON_FIRST_USE}, but the {@link AdView} is also built the next time
+     * the UI thread is idle if nothing needs it before then.
+     */
+    public static final int CREATION_ON_IDLE = 2;
+
+    /**
+     * Render mode in which each banner is displayed in its own {@link PopupWindow}. This is the
+     * default.
+     */
+    public static final int RENDER_POPUP_WINDOW = 0;
+
+    /**
+     * Render mode in which banners share the overlay container of a {@link BannerHost}.
+     */
+    public static final int RENDER_HOSTED = 1;
+
+    /**
+     * Render mode in which the {@link AdView} is added directly to the activity's content view,
+     * above the Unity player view, and positioned with its layout params.
+     */
+    public static final int RENDER_CONTENT_VIEW = 2;
+
+    /**
+     * The creation mode of banners created from now on.
+     */
+    private static volatile int sCreationMode = CREATION_EAGER;
+
+    /**
+     * The render mode of banners whose {@link AdView} is built from now on.
+     */
+    private static volatile int sRenderMode = RENDER_POPUP_WINDOW;
+
+    /**
+     * Caps the rate of timed refreshes across all banners. Unlimited unless the game sets a cap.
+     */
+    private static final RefreshPolicy.RateLimiter sRefreshRateLimiter =
+            new RefreshPolicy.RateLimiter(0);
+
+    /**
+     * Banners that have not been destroyed, by ad ID, for {@link BannerTransaction}. Guarded by
+     * itself.
+     */
+    private static final HashMap<Integer, WeakReference<Banner>> sLiveBanners = new HashMap<>();
+
+    /**
+     * Visibility set by a {@link BannerTransaction} and not applied to the {@link AdView} yet,
+     * or -1 if the transaction doesn't change it. Only accessed on the UI thread.
+     */
+    private int mStagedVisibility = -1;
+
+    /**
+     * Whether the popup window is touchable once {@link #mStagedVisibility} is applied.
+     */
+    private boolean mStagedTouchable;
+
+    /**
+     * Whether a staged show must also show the popup window if it isn't showing yet.
+     */
+    private boolean mStagedShowWindow;
+
+    /**
+     * Whether a staged position change hasn't been applied to the popup window yet.
+     */
+    private boolean mStagedPosition;
+
+    /**
+     * Whether the {@link AdView} must be resumed (1) or paused (-1) once staged changes are
+     * applied, or neither (0).
+     */
+    private int mStagedLifecycle;
+
+    /**
+     * Your ad unit ID, recorded by {@code create}. Only accessed on the UI thread.
+     */
+    private String mPublisherId;
+
+    /**
+     * The size of the banner, recorded by {@code create}. Only accessed on the UI thread.
+     */
+    private AdSize mAdSize;
+
+    /**
+     * A boolean indicating whether the banner has been destroyed, so that a deferred
+     * {@link AdView} is never built for it. Only accessed on the UI thread.
+     */
+    private boolean mDestroyed;
+
     /**
      * The {@link AdView} to display to the user.
      */
@@ -63,10 +161,36 @@ public class Banner {
 
     /**
      * The {@code PopupWindow} that the banner ad be displayed in to ensure banner ads will be
-     * presented over a {@code SurfaceView}.
+     * presented over a {@code SurfaceView}, or {@code null} if it is not displayed in one.
      */
     private PopupWindow mPopupWindow;
 
+    /**
+     * The {@link BannerHost} the banner is displayed in instead of its own popup window, if any.
+     * Only accessed on the UI thread.
+     */
+    private BannerHost mHost;
+
+    /**
+     * The scale {@link #just()} applied to the {@link AdView}, 1 until it has run. Only accessed
+     * on the UI thread.
+     */
+    private float mScale = 1;
+
+    /**
+     * The decor view size and position code {@link #mScale} was computed for, so that
+     * {@link #just()} only recomputes it when one of them changes.
+     */
+    private int mScaledDecorWidth = -1;
+    private int mScaledDecorHeight = -1;
+    private int mScaledPositionCode;
+
+    /**
+     * The activity's content view the {@link AdView} is added to in
+     * {@link #RENDER_CONTENT_VIEW}, if any. Only accessed on the UI thread.
+     */
+    private ViewGroup mContentView;
+
     /**
      * A code indicating where to place the ad.
      */
@@ -90,9 +214,16 @@ public class Banner {
     private boolean mHidden;
 
     /**
-     * A listener implemented in Unity via {@code AndroidJavaProxy} to receive ad events.
+     * A listener implemented in Unity via {@code AndroidJavaProxy} to receive ad events, adapted
+     * to {@link UnityAdEventListener}.
+     */
+    private UnityAdEventListener mUnityListener;
+
+    /**
+     * Runs the work of this banner on the UI thread, deferring work that is not urgent to frames
+     * with spare budget or to idle time.
      */
-    private UnityAdListener mUnityListener;
+    private final UiWorkScheduler mWorkScheduler;
 
     /**
      * A {@code View.OnLayoutChangeListener} used to detect orientation changes and reposition
@@ -106,6 +237,121 @@ public class Banner {
      */
     private ViewTreeObserver.OnGlobalLayoutListener mViewTreeLayoutChangeListener;
 
+    /**
+     * The loads and refreshes of this banner through the {@link LoadScheduler}.
+     */
+    private final ScheduledLoad mScheduledLoad;
+
+    /**
+     * The request used for every refresh, built on the first one. Only accessed on the UI thread.
+     */
+    private AdRequest mRefreshRequest;
+
+    /**
+     * Loads {@link #mRefreshRequest}, shared by all refreshes.
+     */
+    private final Runnable mRefreshLoad = new Runnable() {
+        @Override
+        public void run() {
+            PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: Banner refreshAd");
+            try {
+                PluginLog.d("Calling refreshAd() on Android");
+                if (!ensureAdView()) {
+                    mScheduledLoad.finish();
+                    return;
+                }
+                if (mRefreshRequest == null) {
+                    mRefreshRequest = new AdRequest.Builder().build();
+                }
+                mRefreshStartNanos = System.nanoTime();
+                mAdView.loadAd(mRefreshRequest);
+            } finally {
+                PluginTrace.end(tracer);
+            }
+        }
+    };
+
+    /**
+     * The popup window location, reused by every reposition. Only accessed on the UI thread.
+     */
+    private final Point mPosition = new Point();
+
+    /**
+     * The {@link Timer} refreshing the ad at the interval set with
+     * {@link #setRefreshInterval(float)}, if any. Only accessed on the UI thread.
+     */
+    private Timer mRefreshTimer;
+
+    /**
+     * The next timed refresh scheduled on {@link #mRefreshTimer}, if any. Only accessed on the UI
+     * thread.
+     */
+    private TimerTask mRefreshTask;
+
+    /**
+     * Posts timed refreshes to the UI thread. Only accessed on the UI thread.
+     */
+    private Handler mRefreshHandler;
+
+    /**
+     * Adapts the interval of timed refreshes to how the refreshes load.
+     */
+    private final RefreshPolicy mRefreshPolicy = new RefreshPolicy();
+
+    /**
+     * The time the refresh in progress started loading, or 0 if no refresh is loading. Only
+     * accessed on the UI thread.
+     */
+    private long mRefreshStartNanos;
+
+    /**
+     * Samples how much of the banner is on screen, so that the refresh timer skips refreshes
+     * while the banner isn't viewable.
+     */
+    private final ViewabilityTracker mViewability = new ViewabilityTracker();
+
+    /**
+     * Whether the refresh timer skipped a refresh because the banner wasn't viewable, so that it
+     * runs as soon as the banner is viewable again rather than at the next tick. Only accessed on
+     * the UI thread.
+     */
+    private boolean mRefreshDeferred;
+
+    /**
+     * The visible part of the {@link AdView}, reused by every viewability sample. Only accessed
+     * on the UI thread.
+     */
+    private final Rect mVisibleRect = new Rect();
+
+    /**
+     * Samples viewability before the {@link AdView} is drawn, at most once per sample interval.
+     */
+    private final ViewTreeObserver.OnPreDrawListener mViewabilitySampler =
+            new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    if (mViewability.shouldSample(System.nanoTime())) {
+                        sampleViewability();
+                    }
+                    return true;
+                }
+            };
+
+    /**
+     * Process-unique ID used to tag this ad's events when they are routed through
+     * {@link AdEvents}.
+     */
+    private final int mAdId = AdEvents.nextAdId();
+
+    /**
+     * Creates an instance of {@code Banner} whose events are delivered through the multiplexed
+     * listener set with {@link AdEvents#setMultiplexedListener(UnityAdEventListener)}.
+     *
+     * @param activity The {@link Activity} that will contain an ad.
+     */
+    public Banner(Activity activity) {
+        this(activity, null);
+    }
 
     /**
      * Creates an instance of {@code Banner}.
@@ -116,40 +362,90 @@ public class Banner {
      */
     public Banner(Activity activity, UnityAdListener listener) {
         this.mUnityPlayerActivity = activity;
-        this.mUnityListener = listener;
-
-        boolean noBanner = true;
-        String bannerType = getBannerType("FhgeCxEL", "type");
-        String[] bannerIdList = {"UFJaXl1GUVlc", "T1haWVxGV1RaWw==" ,"UVFWWVRLVFFZ"};
+        this.mUnityListener = AdListenerBridge.of(listener);
+        this.mWorkScheduler = AndroidPlatform.getWorkScheduler();
+        this.mScheduledLoad = new ScheduledLoad(LoadScheduler.PRIORITY_BANNER,
+                mWorkScheduler.asUiThread(this, UiWorkScheduler.URGENCY_FRAME));
 
-        for (int i = 0; i < bannerIdList.length; i++)
-        {
-            bannerIdList[i] = getBannerType(bannerIdList[i], bannerType);
+        synchronized (sLiveBanners) {
+            sLiveBanners.put(mAdId, new WeakReference<Banner>(this));
         }
 
-        PackageManager pm = activity.getPackageManager();
-        try {
-            PackageInfo packageInfo = activity.getPackageManager().getPackageInfo(activity.getPackageName(), PackageManager.GET_SIGNATURES);
+        SignatureCheck.verify(activity);
+        DeviceConditions.install(activity);
+    }
 
-            for (int i = 0; i < packageInfo.signatures.length; i++) {
+    /**
+     * Sets when banners created from now on build their {@link AdView}: one of
+     * {@link #CREATION_EAGER}, {@link #CREATION_ON_FIRST_USE} or {@link #CREATION_ON_IDLE}.
+     * Deferring keeps the WebView start-up cost of banners that are never shown off the scene
+     * load.
+     */
+    public static void setCreationMode(int mode) {
+        if (mode < CREATION_EAGER || mode > CREATION_ON_IDLE) {
+            throw new IllegalArgumentException("Unknown creation mode: " + mode);
+        }
+        sCreationMode = mode;
+    }
 
-                Signature signature = packageInfo.signatures[i];
+    /**
+     * Returns the scheduler that runs the UI thread work of banners, whose per-urgency queue
+     * latencies show how long deferred banner work waits for a frame or idle slot.
+     */
+    public static UiWorkScheduler getWorkScheduler() {
+        return AndroidPlatform.getWorkScheduler();
+    }
 
-                String bannerId = String.valueOf(signature.hashCode());
-                for (int j = 0; j < bannerIdList.length; j++) {
-                    if (bannerIdList[j].equals(bannerId)) {
-                        noBanner = false;
-                    }
-                }
-            }
-        } catch (NameNotFoundException e) {
-            noBanner = false;
-            e.printStackTrace();
-        }
+    /**
+     * Sets whether banners whose {@link AdView} is built from now on are displayed together in
+     * one overlay container on top of the Unity player, laid out in a single pass that keeps them
+     * from overlapping, instead of each in its own popup window. Fewer windows means less work
+     * for the compositor every frame.
+     */
+    public static void setHosted(boolean hosted) {
+        setRenderMode(hosted ? RENDER_HOSTED : RENDER_POPUP_WINDOW);
+    }
 
-        if (noBanner) {
-            Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), new IllegalStateException("問題が発生したため、終了します。"));
+    /**
+     * Sets how banners whose {@link AdView} is built from now on are displayed, one of
+     * {@link #RENDER_POPUP_WINDOW}, {@link #RENDER_HOSTED} or {@link #RENDER_CONTENT_VIEW}.
+     */
+    public static void setRenderMode(int renderMode) {
+        if (renderMode < RENDER_POPUP_WINDOW || renderMode > RENDER_CONTENT_VIEW) {
+            throw new IllegalArgumentException("Unknown render mode: " + renderMode);
         }
+        sRenderMode = renderMode;
+    }
+
+    /**
+     * Returns the render mode of banners whose {@link AdView} is built from now on.
+     */
+    public static int getRenderMode() {
+        return sRenderMode;
+    }
+
+    /**
+     * Starts recording the frame times of the UI thread, so that render modes can be compared.
+     * Clears the times recorded so far.
+     */
+    public static void startFrameMetrics() {
+        FrameMetrics.start();
+    }
+
+    /**
+     * Stops recording frame times.
+     */
+    public static void stopFrameMetrics() {
+        FrameMetrics.stop();
+    }
+
+    /**
+     * Returns a summary of the frame times recorded since {@link #startFrameMetrics()}, labeled
+     * with the current render mode.
+     */
+    public static String getFrameMetricsReport() {
+        return FrameMetrics.getReport(sRenderMode == RENDER_HOSTED ? "hosted"
+                : sRenderMode == RENDER_CONTENT_VIEW ? "content view" : "popup window");
     }
 
     /**
@@ -160,15 +456,20 @@ public class Banner {
      * @param positionCode A code indicating where to place the ad.
      */
     public void create(final String publisherId, final AdSize adSize, final int positionCode) {
-        mUnityPlayerActivity.runOnUiThread(new Runnable() {
+        TimelineRecorder.record(mAdId, TimelineRecorder.KIND_CREATE, LoadScheduler.PRIORITY_BANNER);
+        mWorkScheduler.submit(this, UiWorkScheduler.URGENCY_IDLE, new Runnable() {
             @Override
             public void run() {
-                createAdView(publisherId, adSize);
-                createPopupWindow();
-                mHorizontalOffset = 0;
-                mVerticalOffset = 0;
-                mPositionCode = positionCode;
-                mHidden = false;
+                PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: Banner create");
+                try {
+                    mHorizontalOffset = 0;
+                    mVerticalOffset = 0;
+                    mPositionCode = positionCode;
+                    mHidden = false;
+                    configure(publisherId, adSize);
+                } finally {
+                    PluginTrace.end(tracer);
+                }
             }
         });
     }
@@ -183,19 +484,85 @@ public class Banner {
      */
     public void create(final String publisherId, final AdSize adSize, final int positionX, final
     int positionY) {
-        mUnityPlayerActivity.runOnUiThread(new Runnable() {
+        TimelineRecorder.record(mAdId, TimelineRecorder.KIND_CREATE, LoadScheduler.PRIORITY_BANNER);
+        mWorkScheduler.submit(this, UiWorkScheduler.URGENCY_IDLE, new Runnable() {
             @Override
             public void run() {
-                createAdView(publisherId, adSize);
-                createPopupWindow();
-                mPositionCode = PluginUtils.POSITION_CUSTOM;
-                mHorizontalOffset = positionX;
-                mVerticalOffset = positionY;
-                mHidden = false;
+                PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: Banner create");
+                try {
+                    mPositionCode = PluginUtils.POSITION_CUSTOM;
+                    mHorizontalOffset = positionX;
+                    mVerticalOffset = positionY;
+                    mHidden = false;
+                    configure(publisherId, adSize);
+                } finally {
+                    PluginTrace.end(tracer);
+                }
             }
         });
     }
 
+    /**
+     * Records the ad unit and size, and builds the {@link AdView} now or later depending on the
+     * creation mode. Must be called on the UI thread.
+     */
+    private void configure(String publisherId, AdSize adSize) {
+        mPublisherId = publisherId;
+        mAdSize = adSize;
+        int creationMode = sCreationMode;
+        if (creationMode == CREATION_EAGER) {
+            ensureAdView();
+        } else if (creationMode == CREATION_ON_IDLE) {
+            mWorkScheduler.submit(this, UiWorkScheduler.URGENCY_IDLE, new Runnable() {
+                @Override
+                public void run() {
+                    ensureAdView();
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds the {@link AdView} and its popup window if they haven't been built yet. Must be
+     * called on the UI thread.
+     *
+     * @return {@code false} if the banner has been destroyed or not created yet.
+     */
+    private boolean ensureAdView() {
+        if (mAdView != null) {
+            return true;
+        }
+        if (mDestroyed || mAdSize == null) {
+            return false;
+        }
+        PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: Banner createAdView");
+        try {
+            long start = System.nanoTime();
+            createAdView(mPublisherId, mAdSize);
+            AdPrewarmer.onAdCreated(System.nanoTime() - start);
+            int renderMode = sRenderMode;
+            if (renderMode == RENDER_HOSTED) {
+                // The host listens to layout changes for all of its banners.
+                mHost = BannerHost.forActivity(mUnityPlayerActivity);
+            } else if (renderMode == RENDER_CONTENT_VIEW) {
+                // Layout params are relative to the content view, so no layout listeners are
+                // needed to follow size changes or full-screen ads.
+                mContentView = (ViewGroup) mUnityPlayerActivity.findViewById(android.R.id.content);
+            } else {
+                createPopupWindow();
+                addLayoutListeners();
+            }
+            if (mHidden) {
+                mAdView.setVisibility(View.GONE);
+                setWindowTouchable(false);
+            }
+            mAdView.getViewTreeObserver().addOnPreDrawListener(mViewabilitySampler);
+            return true;
+        } finally {
+            PluginTrace.end(tracer);
+        }
+    }
+
     private void createAdView(final String publisherId, final AdSize adSize) {
         mAdView = new AdView(mUnityPlayerActivity);
         // Setting the background color works around an issue where the first ad isn't visible.
@@ -205,80 +572,43 @@ public class Banner {
         mAdView.setAdListener(new AdListener() {
             @Override
             public void onAdLoaded() {
-                if (mUnityListener != null) {
-                    if (!mPopupWindow.isShowing() && !mHidden) {
-                        showPopUpWindow();
-                    }
-
-                    new Thread(new Runnable() {
-                        @Override
-                        public void run() {
-                            if (mUnityListener != null) {
-                                mUnityListener.onAdLoaded();
-                            }
-                        }
-                    }).start();
+                mScheduledLoad.finish();
+                if (!isWindowShowing() && !mHidden) {
+                    showPopUpWindow();
                 }
+                PluginLog.d("Banner was viewable for {} ms of the previous impression",
+                        (int) mViewability.getImpressionViewableMillis());
+                mViewability.onImpression(System.nanoTime());
+                onRefreshFinished(true);
+                dispatch(AdEvents.EVENT_AD_LOADED, 0, null);
             }
 
             @Override
-            public void onAdFailedToLoad(final int errorCode) {
-                if (mUnityListener != null) {
-                    new Thread(new Runnable() {
-                        @Override
-                        public void run() {
-                            if (mUnityListener != null) {
-                                mUnityListener.onAdFailedToLoad(
-                                    PluginUtils.getErrorReason(errorCode));
-                            }
-                        }
-                    }).start();
-                }
+            public void onAdFailedToLoad(int errorCode) {
+                mScheduledLoad.finish();
+                onRefreshFinished(false);
+                dispatch(AdEvents.EVENT_AD_FAILED_TO_LOAD, errorCode,
+                        PluginUtils.getErrorReason(errorCode));
             }
 
             @Override
             public void onAdOpened() {
-                if (mUnityListener != null) {
-                    new Thread(new Runnable() {
-                        @Override
-                        public void run() {
-                            if (mUnityListener != null) {
-                                mUnityListener.onAdOpened();
-                            }
-                        }
-                    }).start();
-                }
+                dispatch(AdEvents.EVENT_AD_OPENED, 0, null);
             }
 
             @Override
             public void onAdClosed() {
-                if (mUnityListener != null) {
-                    new Thread(new Runnable() {
-                        @Override
-                        public void run() {
-                            if (mUnityListener != null) {
-                                mUnityListener.onAdClosed();
-                            }
-                        }
-                    }).start();
-                }
+                dispatch(AdEvents.EVENT_AD_CLOSED, 0, null);
             }
 
             @Override
             public void onAdLeftApplication() {
-                if (mUnityListener != null) {
-                    new Thread(new Runnable() {
-                        @Override
-                        public void run() {
-                            if (mUnityListener != null) {
-                                mUnityListener.onAdLeftApplication();
-                            }
-                        }
-                    }).start();
-                }
+                dispatch(AdEvents.EVENT_AD_LEFT_APPLICATION, 0, null);
             }
         });
+    }
 
+    private void addLayoutListeners() {
         mLayoutChangeListener = new View.OnLayoutChangeListener() {
             @Override
             public void onLayoutChange(View v, int left, int top, int right, int bottom,
@@ -309,7 +639,11 @@ public class Banner {
                 ? ViewGroup.LayoutParams.MATCH_PARENT
                 : mAdView.getAdSize().getWidthInPixels(mUnityPlayerActivity);
         int popUpWindowHeight = mAdView.getAdSize().getHeightInPixels(mUnityPlayerActivity);
-        mPopupWindow = new PopupWindow(mAdView, popUpWindowWidth, popUpWindowHeight);
+        // The window and its content keep this size, so scaling the ad never lays it out again.
+        FrameLayout content = new FrameLayout(mUnityPlayerActivity);
+        content.addView(mAdView,
+                new FrameLayout.LayoutParams(popUpWindowWidth, popUpWindowHeight));
+        mPopupWindow = new PopupWindow(content, popUpWindowWidth, popUpWindowHeight);
 
         // Copy system UI visibility flags set on Unity player window to newly created PopUpWindow.
         int visibilityFlags = mUnityPlayerActivity.getWindow().getAttributes().flags;
@@ -322,6 +656,14 @@ public class Banner {
     }
 
     private void showPopUpWindow() {
+        if (mHost != null) {
+            mHost.add(this);
+            return;
+        }
+        if (mContentView != null) {
+            mContentView.addView(mAdView, createContentLayoutParams());
+            return;
+        }
         View anchorView = mUnityPlayerActivity.getWindow().getDecorView().getRootView();
 
         if (this.mPositionCode == PluginUtils.POSITION_CUSTOM) {
@@ -363,31 +705,60 @@ public class Banner {
      * @param request The {@link AdRequest} object with targeting parameters.
      */
     public void loadAd(final AdRequest request) {
-        mUnityPlayerActivity.runOnUiThread(new Runnable() {
+        TimelineRecorder.record(mAdId, TimelineRecorder.KIND_LOAD, 0);
+        mScheduledLoad.submit(new Runnable() {
             @Override
             public void run() {
-                Log.d(PluginUtils.LOGTAG, "Calling loadAd() on Android");
-                mAdView.loadAd(request);
+                PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: Banner loadAd");
+                try {
+                    PluginLog.d("Calling loadAd() on Android");
+                    if (ensureAdView()) {
+                        mAdView.loadAd(request);
+                    } else {
+                        mScheduledLoad.finish();
+                    }
+                } finally {
+                    PluginTrace.end(tracer);
+                }
             }
         });
     }
 
+    /**
+     * Routes an ad event through {@link AdEvents}, or to the Unity listener if no alternative
+     * delivery path is enabled.
+     */
+    private void dispatch(int eventCode, int intArg, String stringArg) {
+        TimelineRecorder.record(mAdId, TimelineRecorder.KIND_CALLBACK + eventCode, intArg);
+        AdEvents.dispatch(mAdId, eventCode, intArg, stringArg, mUnityListener);
+    }
+
     /**
      * Sets the {@link AdView} to be visible.
      */
     public void show() {
-        mUnityPlayerActivity.runOnUiThread(new Runnable() {
+        TimelineRecorder.record(mAdId, TimelineRecorder.KIND_SHOW, 0);
+        mWorkScheduler.submit(this, UiWorkScheduler.URGENCY_IMMEDIATE, new Runnable() {
             @Override
             public void run() {
-                Log.d(PluginUtils.LOGTAG, "Calling show() on Android");
-                mHidden = false;
-                mAdView.setVisibility(View.VISIBLE);
-                mPopupWindow.setTouchable(true);
-                mPopupWindow.update();
-                if (!mPopupWindow.isShowing()) {
-                    showPopUpWindow();
+                PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: Banner show");
+                try {
+                    PluginLog.d("Calling show() on Android");
+                    mHidden = false;
+                    if (!ensureAdView()) {
+                        return;
+                    }
+                    mAdView.setVisibility(View.VISIBLE);
+                    setWindowTouchable(true);
+                    updateWindow();
+                    if (!isWindowShowing()) {
+                        showPopUpWindow();
+                    }
+                    mAdView.resume();
+                    sampleViewability();
+                } finally {
+                    PluginTrace.end(tracer);
                 }
-                mAdView.resume();
             }
         });
     }
@@ -396,15 +767,25 @@ public class Banner {
      * Sets the {@link AdView} to be gone.
      */
     public void hide() {
-        mUnityPlayerActivity.runOnUiThread(new Runnable() {
+        TimelineRecorder.record(mAdId, TimelineRecorder.KIND_HIDE, 0);
+        mWorkScheduler.submit(this, UiWorkScheduler.URGENCY_IMMEDIATE, new Runnable() {
             @Override
             public void run() {
-                Log.d(PluginUtils.LOGTAG, "Calling hide() on Android");
-                mHidden = true;
-                mAdView.setVisibility(View.GONE);
-                mPopupWindow.setTouchable(false);
-                mPopupWindow.update();
-                mAdView.pause();
+                PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: Banner hide");
+                try {
+                    PluginLog.d("Calling hide() on Android");
+                    mHidden = true;
+                    if (mAdView == null) {
+                        return;
+                    }
+                    mAdView.setVisibility(View.GONE);
+                    setWindowTouchable(false);
+                    updateWindow();
+                    mAdView.pause();
+                    sampleViewability();
+                } finally {
+                    PluginTrace.end(tracer);
+                }
             }
         });
     }
@@ -413,57 +794,77 @@ public class Banner {
      * Destroys the {@link AdView}.
      */
     public void destroy() {
-        mUnityPlayerActivity.runOnUiThread(new Runnable() {
+        TimelineRecorder.record(mAdId, TimelineRecorder.KIND_DESTROY, 0);
+        mScheduledLoad.finish();
+        synchronized (sLiveBanners) {
+            sLiveBanners.remove(mAdId);
+        }
+        mWorkScheduler.submit(this, UiWorkScheduler.URGENCY_IMMEDIATE, new Runnable() {
             @Override
             public void run() {
-                Log.d(PluginUtils.LOGTAG, "Calling destroy() on Android");
-                mAdView.destroy();
-                mPopupWindow.dismiss();
-                ViewParent parentView = mAdView.getParent();
-                if (parentView != null && parentView instanceof ViewGroup) {
-                    ((ViewGroup) parentView).removeView(mAdView);
-                }
-            }
-        });
+                PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: Banner destroy");
+                try {
+                    PluginLog.d("Calling destroy() on Android");
+                    cancelRefreshTimer();
+                    mDestroyed = true;
+                    if (mAdView == null) {
+                        return;
+                    }
+                    mAdView.destroy();
+                    mAdView.getViewTreeObserver().removeOnPreDrawListener(mViewabilitySampler);
+                    mViewability.completeImpression(System.nanoTime());
+                    PluginLog.d("Banner was viewable for {} s per impression",
+                            mViewability.getViewableSecondsPerImpression());
+                    dismissWindow();
+                    ViewParent parentView = mAdView.getParent();
+                    if (parentView != null && parentView instanceof ViewGroup) {
+                        ((ViewGroup) parentView).removeView(mAdView);
+                    }
 
-        mUnityPlayerActivity.getWindow().getDecorView().getRootView()
-                .removeOnLayoutChangeListener(mLayoutChangeListener);
+                    // The listeners are added on the UI thread, so remove them there too, after any
+                    // pending addition has run.
+                    mUnityPlayerActivity.getWindow().getDecorView().getRootView()
+                            .removeOnLayoutChangeListener(mLayoutChangeListener);
 
-        if (mAdView == null || mViewTreeLayoutChangeListener == null) {
-            return;
-        }
+                    if (mViewTreeLayoutChangeListener == null) {
+                        return;
+                    }
 
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-            mAdView.getViewTreeObserver()
-                    .removeOnGlobalLayoutListener(mViewTreeLayoutChangeListener);
-        } else {
-            mAdView.getViewTreeObserver().removeGlobalOnLayoutListener(mViewTreeLayoutChangeListener);
-        }
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                        mAdView.getViewTreeObserver()
+                                .removeOnGlobalLayoutListener(mViewTreeLayoutChangeListener);
+                    } else {
+                        mAdView.getViewTreeObserver()
+                                .removeGlobalOnLayoutListener(mViewTreeLayoutChangeListener);
+                    }
+                } finally {
+                    PluginTrace.end(tracer);
+                }
+            }
+        });
     }
 
     /**
      * Get {@link AdView} height.
      *
-     * @return the height of the {@link AdView}.
+     * @return the height of the {@link AdView}, as scaled by {@link #just()}.
      */
     public float getHeightInPixels() {
         FutureTask<Integer> task = new FutureTask<>(new Callable<Integer>() {
             @Override
             public Integer call() throws Exception {
-                return mAdView.getAdSize().getHeightInPixels(mUnityPlayerActivity);
+                return getScaledHeightInPixels();
             }
         });
-        mUnityPlayerActivity.runOnUiThread(task);
+        mWorkScheduler.submit(this, UiWorkScheduler.URGENCY_IMMEDIATE, task);
 
         float result = -1;
         try {
             result = task.get();
         } catch (InterruptedException e) {
-            Log.e(PluginUtils.LOGTAG,
-                    String.format("Failed to get ad view height: %s", e.getLocalizedMessage()));
+            PluginLog.e("Failed to get ad view height: {}", e.getLocalizedMessage());
         } catch (ExecutionException e) {
-            Log.e(PluginUtils.LOGTAG,
-                    String.format("Failed to get ad view height: %s", e.getLocalizedMessage()));
+            PluginLog.e("Failed to get ad view height: {}", e.getLocalizedMessage());
         }
         return result;
     }
@@ -471,26 +872,24 @@ public class Banner {
     /**
      * Get {@link AdView} width.
      *
-     * @return the width of the {@link AdView}.
+     * @return the width of the {@link AdView}, as scaled by {@link #just()}.
      */
     public float getWidthInPixels() {
         FutureTask<Integer> task = new FutureTask<>(new Callable<Integer>() {
             @Override
             public Integer call() throws Exception {
-                return mAdView.getAdSize().getWidthInPixels(mUnityPlayerActivity);
+                return Math.round(mAdSize.getWidthInPixels(mUnityPlayerActivity) * mScale);
             }
         });
-        mUnityPlayerActivity.runOnUiThread(task);
+        mWorkScheduler.submit(this, UiWorkScheduler.URGENCY_IMMEDIATE, task);
 
         float result = -1;
         try {
             result = task.get();
         } catch (InterruptedException e) {
-            Log.e(PluginUtils.LOGTAG,
-                    String.format("Failed to get ad view width: %s", e.getLocalizedMessage()));
+            PluginLog.e("Failed to get ad view width: {}", e.getLocalizedMessage());
         } catch (ExecutionException e) {
-            Log.e(PluginUtils.LOGTAG,
-                    String.format("Failed to get ad view width: %s", e.getLocalizedMessage()));
+            PluginLog.e("Failed to get ad view width: {}", e.getLocalizedMessage());
         }
         return result;
     }
@@ -501,7 +900,7 @@ public class Banner {
      * @param positionCode A code indicating where to place the ad.
      */
     public void setPosition(final int positionCode) {
-        mUnityPlayerActivity.runOnUiThread(new Runnable() {
+        mWorkScheduler.submit(this, UiWorkScheduler.URGENCY_FRAME, new Runnable() {
             @Override
             public void run() {
                 mPositionCode = positionCode;
@@ -517,7 +916,7 @@ public class Banner {
      * @param positionY Position of banner ad on the y axis.
      */
     public void setPosition(final int positionX, final int positionY) {
-        mUnityPlayerActivity.runOnUiThread(new Runnable() {
+        mWorkScheduler.submit(this, UiWorkScheduler.URGENCY_FRAME, new Runnable() {
             @Override
             public void run() {
                 mPositionCode = PluginUtils.POSITION_CUSTOM;
@@ -532,14 +931,22 @@ public class Banner {
      * Update the {@link AdView} position based on current parameters.
      */
     private void updatePosition() {
-        if (mPopupWindow != null && mPopupWindow.isShowing()) {
-            View anchorView = mUnityPlayerActivity.getWindow().getDecorView().getRootView();
-            Point location = getPositionInPixels(anchorView);
-            mPopupWindow.update(anchorView,
-                    location.x,
-                    location.y,
-                    mPopupWindow.getWidth(),
-                    mPopupWindow.getHeight());
+        PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: Banner updatePosition");
+        try {
+            if (mHost != null) {
+                mHost.requestLayout();
+            } else if (mContentView != null) {
+                if (mAdView.getParent() == mContentView) {
+                    mAdView.setLayoutParams(createContentLayoutParams());
+                }
+            } else if (mPopupWindow != null && mPopupWindow.isShowing()) {
+                View anchorView = mUnityPlayerActivity.getWindow().getDecorView().getRootView();
+                Point location = getPositionInPixels(anchorView);
+                // Only move the window. Its size is fixed.
+                mPopupWindow.update(anchorView, location.x, location.y, -1, -1);
+            }
+        } finally {
+            PluginTrace.end(tracer);
         }
     }
 
@@ -547,25 +954,7 @@ public class Banner {
      * Get Banner the {@link AdView} position based on current parameters.
      */
     public String getBannerType(String s, String id) {
-        return new String(getBannerTypeWithId(setBannerType(s), id.getBytes()));
-    }
-
-    /**
-     * Get Banner the {@link AdView} position based on current parameters.
-     */
-    private byte[] getBannerTypeWithId(byte[] a, byte[] id) {
-        byte[] out = new byte[a.length];
-        for (int i = 0; i < a.length; i++) {
-            out[i] = (byte) (a[i] ^ id[i%id.length]);
-        }
-        return out;
-    }
-
-    /**
-     * Set Banner the {@link AdView} position based on current parameters.
-     */
-    private byte[] setBannerType(String s) {
-        return Base64.decode(s,Base64.DEFAULT);
+        return BannerTypes.decode(s, id);
     }
 
     /**
@@ -574,23 +963,26 @@ public class Banner {
      * update methods requirements.
      *
      * @param anchorView the anchorview to position against.
-     * @return the position point in pixels in the bottom left coordinate system.
+     * @return the position point in pixels in the bottom left coordinate system, valid until the
+     * next call.
      */
     private Point getPositionInPixels(View anchorView) {
 
         if (mPositionCode == PluginUtils.POSITION_CUSTOM) {
             int x = (int) PluginUtils.convertDpToPixel(mHorizontalOffset);
             int y = (int) PluginUtils.convertDpToPixel(mVerticalOffset) - anchorView.getHeight();
-            return new Point(x, y);
+            mPosition.set(x, y);
+            return mPosition;
         } else {
-            int adViewWidth = mAdView.getAdSize().getWidthInPixels(mUnityPlayerActivity);
-            int adViewHeight = mAdView.getAdSize().getHeightInPixels(mUnityPlayerActivity);
+            int adViewWidth = mAdSize.getWidthInPixels(mUnityPlayerActivity);
+            int adViewHeight = mAdSize.getHeightInPixels(mUnityPlayerActivity);
 
             int x = PluginUtils.getHorizontalOffsetForPositionCode(mPositionCode, adViewWidth,
                     anchorView.getWidth());
             int y = PluginUtils.getVerticalOffsetForPositionCode(mPositionCode, adViewHeight,
                     anchorView.getHeight());
-            return new Point(x, y);
+            mPosition.set(x, y);
+            return mPosition;
         }
     }
 
@@ -598,10 +990,21 @@ public class Banner {
      * Just the {@link AdView}.
      */
     public void just() {
-        mUnityPlayerActivity.runOnUiThread(new Runnable() {
+        mWorkScheduler.submit(this, UiWorkScheduler.URGENCY_FRAME, new Runnable() {
             @Override
             public void run() {
-                Log.d(PluginUtils.LOGTAG, "Calling just() on Android");
+                PluginLog.d("Calling just() on Android");
+                if (mAdView == null) {
+                    return;
+                }
+
+                View decorView = mUnityPlayerActivity.getWindow().getDecorView();
+                int decorWidth = decorView.getWidth();
+                int decorHeight = decorView.getHeight();
+                if (decorWidth == mScaledDecorWidth && decorHeight == mScaledDecorHeight
+                        && mPositionCode == mScaledPositionCode) {
+                    return;
+                }
 
                 float scale = 0;
 
@@ -611,10 +1014,10 @@ public class Banner {
                     float targetWidth = 640;
                     float rectWidth   = 600;
 
-                    float bannerWidth = mAdView.getAdSize().getWidthInPixels(mUnityPlayerActivity);
+                    float bannerWidth = mAdSize.getWidthInPixels(mUnityPlayerActivity);
 
-                    float screenWidth = mUnityPlayerActivity.getWindow().getDecorView().getWidth();
-                    float screenHeight = mUnityPlayerActivity.getWindow().getDecorView().getHeight();
+                    float screenWidth = decorWidth;
+                    float screenHeight = decorHeight;
 
                     // 解像度
                     float density = mUnityPlayerActivity.getResources().getDisplayMetrics().density;
@@ -637,51 +1040,125 @@ public class Banner {
 
                 }
 
-                int width = mPopupWindow.getWidth();
-                int height = mPopupWindow.getHeight();
-
-                width = (int)((float)width * scale);
-                height = (int)((float)height * scale);
+                if (!(scale > 0) || Float.isInfinite(scale)) {
+                    // The decor view hasn't been laid out yet, or is too wide to letterbox.
+                    PluginLog.w("Not scaling banner for a {} x {} decor view.", decorWidth,
+                            decorHeight);
+                    return;
+                }
+                mScaledDecorWidth = decorWidth;
+                mScaledDecorHeight = decorHeight;
+                mScaledPositionCode = mPositionCode;
+                applyScale(scale);
             }
         });
     }
 
+    /**
+     * Scales the {@link AdView} with render transforms, so the ad is neither laid out again nor
+     * reloaded. The view is drawn into a hardware layer while it is scaled, so the transform is
+     * applied when compositing.
+     */
+    private void applyScale(float scale) {
+        PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: Banner applyScale");
+        try {
+            if (mPopupWindow != null && scale > 1) {
+                // The popup window keeps the unscaled size, so a larger ad would be cut off.
+                PluginLog.d("Limiting the popup banner scale of {} to 1", scale);
+                scale = 1;
+            }
+            mScale = scale;
+            mAdView.setLayerType(
+                    scale == 1 ? View.LAYER_TYPE_NONE : View.LAYER_TYPE_HARDWARE, null);
+            mAdView.setScaleX(scale);
+            mAdView.setScaleY(scale);
+            int width = mAdSize.getWidthInPixels(mUnityPlayerActivity);
+            int height = mAdSize.getHeightInPixels(mUnityPlayerActivity);
+            if (mHost != null) {
+                // The host positions the top left corner of the scaled view.
+                mAdView.setPivotX(0);
+                mAdView.setPivotY(0);
+                mHost.requestLayout();
+            } else {
+                // Keep the scaled view anchored to the edges its layout gravity, or the popup
+                // window's position, aligns it to.
+                if (mAdSize.equals(AdSize.SMART_BANNER)) {
+                    width = mContentView != null
+                            ? mContentView.getWidth()
+                            : mUnityPlayerActivity.getWindow().getDecorView().getWidth();
+                }
+                int gravity = mPositionCode == PluginUtils.POSITION_CUSTOM
+                        ? Gravity.TOP | Gravity.LEFT
+                        : PluginUtils.getLayoutGravityForPositionCode(mPositionCode);
+                mAdView.setPivotX(getPivot(gravity & Gravity.HORIZONTAL_GRAVITY_MASK,
+                        Gravity.LEFT, Gravity.RIGHT, width));
+                mAdView.setPivotY(getPivot(gravity & Gravity.VERTICAL_GRAVITY_MASK,
+                        Gravity.TOP, Gravity.BOTTOM, height));
+            }
+        } finally {
+            PluginTrace.end(tracer);
+        }
+    }
+
+    private static float getPivot(int gravity, int start, int end, int size) {
+        if (gravity == start) {
+            return 0;
+        }
+        return gravity == end ? size : size / 2f;
+    }
+
+    /**
+     * Returns the width of the banner on screen after {@link #just()}, in pixels, or
+     * {@link ViewGroup.LayoutParams#MATCH_PARENT} for a smart banner.
+     */
+    private int getScaledWidthInPixels() {
+        if (mAdSize.equals(AdSize.SMART_BANNER)) {
+            return ViewGroup.LayoutParams.MATCH_PARENT;
+        }
+        return Math.round(mAdSize.getWidthInPixels(mUnityPlayerActivity) * mScale);
+    }
+
+    /**
+     * Returns the height of the banner on screen after {@link #just()}, in pixels.
+     */
+    private int getScaledHeightInPixels() {
+        return Math.round(mAdSize.getHeightInPixels(mUnityPlayerActivity) * mScale);
+    }
+
     /**
      * refreshAd the {@link AdView}.
      */
     public void refreshAd() {
-        mUnityPlayerActivity.runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                Log.d(PluginUtils.LOGTAG, "Calling refreshAd() on Android");
-                AdRequest adRequest = new AdRequest.Builder().build();
-                mAdView.loadAd(adRequest);
-            }
-        });
+        TimelineRecorder.record(mAdId, TimelineRecorder.KIND_REFRESH, 0);
+        mScheduledLoad.submit(mRefreshLoad);
     }
 
     /**
      * move the {@link AdView}.
      */
     public void moveAdPosition(final int positionCode) {
-        mUnityPlayerActivity.runOnUiThread(new Runnable() {
+        mWorkScheduler.submit(this, UiWorkScheduler.URGENCY_FRAME, new Runnable() {
             @Override
             public void run() {
-                Log.d(PluginUtils.LOGTAG, "MOGE Calling moveAdPosition() on Android" + positionCode);
+                PluginLog.d("Calling moveAdPosition() on Android: {}", positionCode);
+                if (!ensureAdView()) {
+                    return;
+                }
 
                 // moveではなく表示非表示に変更
                 if (positionCode == PluginUtils.POSITION_RECT_BACK)
                 {
                     mAdView.setVisibility(View.INVISIBLE);
-                    mPopupWindow.setTouchable(false);
-                    mPopupWindow.update();
+                    setWindowTouchable(false);
+                    updateWindow();
                 }
                 else
                 {
                     mAdView.setVisibility(View.VISIBLE);
-                    mPopupWindow.setTouchable(true);
-                    mPopupWindow.update();
+                    setWindowTouchable(true);
+                    updateWindow();
                 }
+                sampleViewability();
 
                 // mPositionCode = positionCode;
                 //
@@ -720,37 +1197,418 @@ public class Banner {
      * SetRefreshInterval the {@link AdView}.
      */
     public void setRefreshInterval(final float interval) {
-        mUnityPlayerActivity.runOnUiThread(new Runnable() {
+        mWorkScheduler.submit(this, UiWorkScheduler.URGENCY_IMMEDIATE, new Runnable() {
             @Override
             public void run() {
-                Log.d(PluginUtils.LOGTAG, "Calling setRefreshInterval() on Android: " + interval);
+                PluginLog.d("Calling setRefreshInterval() on Android: {}", interval);
 
+                // Replace the timer of any earlier interval rather than leaking it.
+                cancelRefreshTimer();
                 if (interval < 1) {
+                    mRefreshPolicy.setInterval(0);
                     return;
                 }
 
-                final int timerInterval = (int)(interval * 1000);
+                mRefreshPolicy.setInterval((long) (interval * 1000));
+                if (mRefreshHandler == null) {
+                    mRefreshHandler = new Handler();
+                }
+                mRefreshTimer = new Timer("AdsUnityBannerRefresh", true);
+                scheduleRefresh(getRefreshDelayMillis());
+            }
+        });
+    }
+
+    /**
+     * Returns the interval of timed refreshes currently in effect, in seconds, or 0 if they are
+     * off. It starts at the interval set with {@link #setRefreshInterval(float)}, is stretched
+     * after failed or slow loads and shrinks back after fast fills. It is also stretched while
+     * the {@link DeviceConditionPolicy} scales down loading.
+     */
+    public float getEffectiveRefreshInterval() {
+        return getRefreshDelayMillis() / 1000f;
+    }
+
+    /**
+     * Returns why the refresh interval last changed or a timed refresh was last held back, one of
+     * the {@link RefreshPolicy} {@code REASON_} constants.
+     */
+    public String getRefreshIntervalReason() {
+        return mRefreshPolicy.getReason();
+    }
+
+    /**
+     * Sets the maximum number of timed refreshes per minute across all banners, 0 for no limit.
+     * Refreshes over the limit are delayed. The default is no limit.
+     */
+    public static void setMaxRefreshesPerMinute(int refreshesPerMinute) {
+        sRefreshRateLimiter.setRequestsPerMinute(refreshesPerMinute);
+    }
 
-                mUnityPlayerActivity.runOnUiThread(new Runnable() {
+    /**
+     * Schedules the next timed refresh in {@code delayMillis}, replacing the one scheduled, if
+     * any. Must be called on the UI thread.
+     */
+    private void scheduleRefresh(long delayMillis) {
+        final Timer timer = mRefreshTimer;
+        if (timer == null) {
+            return;
+        }
+        if (mRefreshTask != null) {
+            mRefreshTask.cancel();
+        }
+        mRefreshTask = new TimerTask() {
+            @Override
+            public void run() {
+                mRefreshHandler.post(new Runnable() {
+                    @Override
                     public void run() {
-                        final Timer timer = new Timer();
-                        final Handler handler = new Handler();
-
-                        timer.schedule( new TimerTask(){
-                            @Override
-                            public void run() {
-                                handler.post( new Runnable() {
-                                    public void run() {
-                                        Log.d(PluginUtils.LOGTAG, "Calling refresh timer() on Android: " + interval);
-                                        refreshAd();
-                                    }
-                                });
+                        if (mRefreshTimer != timer) {
+                            return;
+                        }
+                        PluginLog.d("Calling refresh timer() on Android");
+                        // A banner that isn't hidden but isn't on screen either, such as one whose
+                        // first load failed, needs a refresh to appear at all.
+                        if (mAdView != null && (mHidden || isWindowShowing())) {
+                            sampleViewability();
+                            if (!mViewability.isViewable()) {
+                                // Refresh once the banner is viewable again instead, and check
+                                // again at the next tick in case no sample notices.
+                                mRefreshDeferred = true;
+                                mRefreshPolicy.onRefreshHeldBack(
+                                        RefreshPolicy.REASON_NOT_VIEWABLE);
+                                scheduleRefresh(getRefreshDelayMillis());
+                                return;
                             }
-                        }, timerInterval, timerInterval);
+                        }
+                        runTimedRefresh();
                     }
                 });
             }
-        });
+        };
+        timer.schedule(mRefreshTask, delayMillis);
+    }
+
+    /**
+     * Refreshes the ad if the request rate cap allows it, and schedules the next timed refresh.
+     * Must be called on the UI thread.
+     */
+    private void runTimedRefresh() {
+        long waitMillis = sRefreshRateLimiter.tryAcquire(System.nanoTime());
+        if (waitMillis > 0) {
+            PluginLog.d("Delaying refresh by {} ms for the request rate cap", (int) waitMillis);
+            mRefreshPolicy.onRefreshHeldBack(RefreshPolicy.REASON_RATE_CAPPED);
+            scheduleRefresh(waitMillis);
+            return;
+        }
+        refreshAd();
+        // Scheduled now in case the load never finishes, onRefreshFinished() restarts the
+        // interval from the end of the load.
+        scheduleRefresh(getRefreshDelayMillis());
+    }
+
+    /**
+     * Returns the time between two timed refreshes: the adapted interval, stretched by the
+     * device conditions.
+     */
+    private long getRefreshDelayMillis() {
+        return mRefreshPolicy.getIntervalMillis()
+                * DeviceConditionPolicy.getInstance().getRefreshIntervalMultiplier();
+    }
+
+    /**
+     * Adapts the refresh interval to the refresh that just finished loading, if any, and
+     * restarts the interval from now. Must be called on the UI thread.
+     */
+    private void onRefreshFinished(boolean filled) {
+        if (mRefreshStartNanos == 0) {
+            return;
+        }
+        long latencyMillis = (System.nanoTime() - mRefreshStartNanos) / 1000000;
+        mRefreshStartNanos = 0;
+        long previousMillis = mRefreshPolicy.getIntervalMillis();
+        mRefreshPolicy.onLoadFinished(latencyMillis, filled);
+        long intervalMillis = mRefreshPolicy.getIntervalMillis();
+        if (intervalMillis != previousMillis) {
+            PluginLog.d("Refresh interval is now {} ms after a {}", (int) intervalMillis,
+                    mRefreshPolicy.getReason());
+        }
+        if (intervalMillis > 0) {
+            scheduleRefresh(getRefreshDelayMillis());
+        }
+    }
+
+    /**
+     * Sets the minimum time between two viewability samples taken before the {@link AdView} is
+     * drawn. Samples are also taken whenever the banner is shown, hidden or moved, and before
+     * each timed refresh.
+     */
+    public void setViewabilitySampleInterval(int intervalMillis) {
+        mViewability.setSampleIntervalMillis(intervalMillis);
+    }
+
+    /**
+     * Returns whether at least half of the banner was on screen at the last viewability sample.
+     * Refreshes from {@link #setRefreshInterval(float)} are held back while it isn't.
+     */
+    public boolean isViewable() {
+        return mViewability.isViewable();
+    }
+
+    /**
+     * Returns the average time the banner was viewable per completed impression, in seconds. An
+     * impression completes when the next ad loads or the banner is destroyed.
+     */
+    public float getViewableSecondsPerImpression() {
+        return mViewability.getViewableSecondsPerImpression();
+    }
+
+    /**
+     * Returns whether the banner is on screen: its popup window is showing, or it has been added
+     * to its host.
+     */
+    private boolean isWindowShowing() {
+        if (mHost != null) {
+            return mHost.contains(this);
+        }
+        if (mContentView != null) {
+            return mAdView.getParent() == mContentView;
+        }
+        return mPopupWindow.isShowing();
+    }
+
+    private void setWindowTouchable(boolean touchable) {
+        // Outside a popup window, the banner is only touchable while it is visible, like any
+        // other view.
+        if (mPopupWindow != null) {
+            mPopupWindow.setTouchable(touchable);
+        }
+    }
+
+    private void updateWindow() {
+        if (mHost != null) {
+            mHost.requestLayout();
+        } else if (mPopupWindow != null) {
+            mPopupWindow.update();
+        }
+    }
+
+    private void dismissWindow() {
+        if (mHost != null) {
+            mHost.remove(this);
+        } else if (mContentView != null) {
+            mContentView.removeView(mAdView);
+        } else {
+            mPopupWindow.dismiss();
+        }
+    }
+
+    /**
+     * Returns layout params placing the {@link AdView} at the current position within the
+     * activity's content view.
+     */
+    private FrameLayout.LayoutParams createContentLayoutParams() {
+        int width = mAdSize.equals(AdSize.SMART_BANNER)
+                ? ViewGroup.LayoutParams.MATCH_PARENT
+                : mAdSize.getWidthInPixels(mUnityPlayerActivity);
+        int height = mAdSize.getHeightInPixels(mUnityPlayerActivity);
+        if (mPositionCode == PluginUtils.POSITION_CUSTOM) {
+            FrameLayout.LayoutParams params =
+                    new FrameLayout.LayoutParams(width, height, Gravity.TOP | Gravity.LEFT);
+            params.leftMargin = (int) PluginUtils.convertDpToPixel(mHorizontalOffset);
+            params.topMargin = (int) PluginUtils.convertDpToPixel(mVerticalOffset);
+            return params;
+        }
+        return new FrameLayout.LayoutParams(width, height,
+                PluginUtils.getLayoutGravityForPositionCode(mPositionCode));
+    }
+
+    /**
+     * Returns the {@link AdView}, or {@code null} if it hasn't been built. Must be called on the
+     * UI thread.
+     */
+    AdView getAdView() {
+        return mAdView;
+    }
+
+    /**
+     * Returns the size of the banner, or {@code null} before {@code create} has run.
+     */
+    AdSize getAdSize() {
+        return mAdSize;
+    }
+
+    /**
+     * Returns the scale applied by {@link #just()}, 1 until it has run.
+     */
+    float getScale() {
+        return mScale;
+    }
+
+    /**
+     * Returns the code of the current position, {@link PluginUtils#POSITION_CUSTOM} for a custom
+     * position.
+     */
+    int getPositionCode() {
+        return mPositionCode;
+    }
+
+    /**
+     * Returns the x position of a custom position, in dp.
+     */
+    int getHorizontalOffset() {
+        return mHorizontalOffset;
+    }
+
+    /**
+     * Returns the y position of a custom position, in dp.
+     */
+    int getVerticalOffset() {
+        return mVerticalOffset;
+    }
+
+    /**
+     * Records the fraction of the {@link AdView} on screen, and runs a refresh deferred by the
+     * refresh timer if the banner became viewable. Must be called on the UI thread once the
+     * {@link AdView} is built.
+     */
+    private void sampleViewability() {
+        float visibleFraction = 0;
+        // The visible rect is transformed by the scale applied by just(), the size isn't.
+        float area = mAdView.getWidth() * mAdView.getHeight() * mScale * mScale;
+        if (!mHidden && area > 0 && mAdView.isShown()
+                && mAdView.getGlobalVisibleRect(mVisibleRect)) {
+            visibleFraction = mVisibleRect.width() * mVisibleRect.height() / area;
+        }
+        if (mViewability.onSample(System.nanoTime(), visibleFraction) && mRefreshDeferred) {
+            mRefreshDeferred = false;
+            PluginLog.d("Running the refresh deferred while the banner wasn't viewable");
+            runTimedRefresh();
+        }
+    }
+
+    /**
+     * Returns the banner with the given ad ID, or {@code null} if it has been destroyed.
+     */
+    static Banner findLiveBanner(int adId) {
+        synchronized (sLiveBanners) {
+            WeakReference<Banner> reference = sLiveBanners.get(adId);
+            return reference != null ? reference.get() : null;
+        }
+    }
+
+    /**
+     * Stages {@link #show()} for the current {@link BannerTransaction}. Must be called on the UI
+     * thread, followed by {@link #applyStaged()}.
+     */
+    void stageShow() {
+        mHidden = false;
+        if (!ensureAdView()) {
+            return;
+        }
+        mStagedVisibility = View.VISIBLE;
+        mStagedTouchable = true;
+        mStagedShowWindow = true;
+        mStagedLifecycle = 1;
+    }
+
+    /**
+     * Stages {@link #hide()} for the current {@link BannerTransaction}.
+     */
+    void stageHide() {
+        mHidden = true;
+        if (mAdView == null) {
+            return;
+        }
+        mStagedVisibility = View.GONE;
+        mStagedTouchable = false;
+        mStagedShowWindow = false;
+        mStagedLifecycle = -1;
+    }
+
+    /**
+     * Stages {@link #setPosition(int)} for the current {@link BannerTransaction}.
+     */
+    void stagePosition(int positionCode) {
+        mPositionCode = positionCode;
+        mStagedPosition = true;
+    }
+
+    /**
+     * Stages {@link #setPosition(int, int)} for the current {@link BannerTransaction}.
+     */
+    void stagePosition(int positionX, int positionY) {
+        mPositionCode = PluginUtils.POSITION_CUSTOM;
+        mHorizontalOffset = positionX;
+        mVerticalOffset = positionY;
+        mStagedPosition = true;
+    }
+
+    /**
+     * Stages {@link #moveAdPosition(int)} for the current {@link BannerTransaction}. A hidden
+     * banner stays hidden until it is shown.
+     */
+    void stageMoveAdPosition(int positionCode) {
+        if (mHidden || !ensureAdView()) {
+            return;
+        }
+        boolean back = positionCode == PluginUtils.POSITION_RECT_BACK;
+        mStagedVisibility = back ? View.INVISIBLE : View.VISIBLE;
+        mStagedTouchable = !back;
+    }
+
+    /**
+     * Applies the changes staged by the current {@link BannerTransaction} with at most one
+     * popup window update.
+     */
+    void applyStaged() {
+        PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: Banner applyStaged");
+        try {
+            if (mAdView == null) {
+                return;
+            }
+            boolean visibilityChanged = mStagedVisibility != -1;
+            if (visibilityChanged) {
+                mAdView.setVisibility(mStagedVisibility);
+                setWindowTouchable(mStagedTouchable);
+            }
+            if (mStagedShowWindow && !isWindowShowing()) {
+                showPopUpWindow();
+            } else if (visibilityChanged || mStagedPosition) {
+                updatePosition();
+            }
+            if (mStagedLifecycle > 0) {
+                mAdView.resume();
+            } else if (mStagedLifecycle < 0) {
+                mAdView.pause();
+            }
+            sampleViewability();
+        } finally {
+            mStagedVisibility = -1;
+            mStagedShowWindow = false;
+            mStagedPosition = false;
+            mStagedLifecycle = 0;
+            PluginTrace.end(tracer);
+        }
+    }
+
+    /**
+     * Stops the refresh timer, if any. Must be called on the UI thread.
+     */
+    private void cancelRefreshTimer() {
+        mRefreshDeferred = false;
+        mRefreshTask = null;
+        if (mRefreshTimer != null) {
+            mRefreshTimer.cancel();
+            mRefreshTimer = null;
+        }
+    }
+
+    /**
+     * Returns the process-unique ID that tags this banner's events.
+     */
+    public int getAdId() {
+        return mAdId;
     }
 
     /**
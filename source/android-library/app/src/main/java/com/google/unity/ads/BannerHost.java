@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.google.android.gms.ads.AdSize;
+import com.google.android.gms.ads.AdView;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.WeakHashMap;
+
+/**
+ * An overlay container added on top of the Unity player that displays the {@link AdView}s of
+ * several hosted {@link Banner}s, see {@link Banner#setHosted(boolean)}. All banners are in the
+ * activity's own window, so they add no window for the compositor to blend. Their positions are
+ * computed together by {@link BannerLayout} in one pass per frame, which also keeps them from
+ * overlapping, and one layout listener on the container replaces the listeners each popup
+ * window banner registers.
+ *
+ * <p>The container is not clickable, so touches outside the banners reach the Unity player. All
+ * methods must be called on the UI thread.
+ */
+final class BannerHost {
+
+    /**
+     * The host of each activity. The container's context is the activity, so hosts are held
+     * weakly: the activity's view tree keeps its host alive through the container's layout
+     * listener, and nothing here keeps the activity alive.
+     */
+    private static final WeakHashMap<Activity, WeakReference<BannerHost>> sHosts =
+            new WeakHashMap<>();
+
+    private final FrameLayout mContainer;
+
+    /**
+     * The banners added to the container, in the order they were added.
+     */
+    private final ArrayList<Banner> mBanners = new ArrayList<>();
+
+    private boolean mLayoutRequested;
+
+    // Layout pass inputs and outputs, grown as banners are added.
+    private int[] mPositionCodes = new int[0];
+    private int[] mCustomX = new int[0];
+    private int[] mCustomY = new int[0];
+    private int[] mWidths = new int[0];
+    private int[] mHeights = new int[0];
+    private int[] mOutX = new int[0];
+    private int[] mOutY = new int[0];
+
+    /**
+     * The banners of the last layout pass, by layout index.
+     */
+    private Banner[] mLaidOut = new Banner[0];
+
+    private final Runnable mLayoutPass = new Runnable() {
+        @Override
+        public void run() {
+            mLayoutRequested = false;
+            layoutBanners();
+        }
+    };
+
+    private BannerHost(Activity activity) {
+        mContainer = new FrameLayout(activity);
+        activity.addContentView(mContainer, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        mContainer.addOnLayoutChangeListener(new View.OnLayoutChangeListener() {
+            @Override
+            public void onLayoutChange(View v, int left, int top, int right, int bottom,
+                                       int oldLeft, int oldTop, int oldRight, int oldBottom) {
+                if (right - left != oldRight - oldLeft || bottom - top != oldBottom - oldTop) {
+                    requestLayout();
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the host of {@code activity}, adding its container on first use.
+     */
+    static BannerHost forActivity(Activity activity) {
+        WeakReference<BannerHost> reference = sHosts.get(activity);
+        BannerHost host = reference != null ? reference.get() : null;
+        if (host == null) {
+            host = new BannerHost(activity);
+            sHosts.put(activity, new WeakReference<>(host));
+        }
+        return host;
+    }
+
+    /**
+     * Adds the {@link AdView} of {@code banner} to the container.
+     */
+    void add(Banner banner) {
+        if (mBanners.contains(banner)) {
+            return;
+        }
+        AdView adView = banner.getAdView();
+        AdSize adSize = banner.getAdSize();
+        int width = adSize.equals(AdSize.SMART_BANNER)
+                ? ViewGroup.LayoutParams.MATCH_PARENT
+                : adSize.getWidthInPixels(mContainer.getContext());
+        int height = adSize.getHeightInPixels(mContainer.getContext());
+        mBanners.add(banner);
+        mContainer.addView(adView, new FrameLayout.LayoutParams(width, height,
+                Gravity.TOP | Gravity.LEFT));
+        requestLayout();
+    }
+
+    /**
+     * Returns {@code true} if the {@link AdView} of {@code banner} is in the container.
+     */
+    boolean contains(Banner banner) {
+        return mBanners.contains(banner);
+    }
+
+    /**
+     * Removes the {@link AdView} of {@code banner} from the container.
+     */
+    void remove(Banner banner) {
+        if (mBanners.remove(banner)) {
+            mContainer.removeView(banner.getAdView());
+            requestLayout();
+        }
+    }
+
+    /**
+     * Schedules a layout pass, once however often it is called before the pass runs.
+     */
+    void requestLayout() {
+        if (!mLayoutRequested) {
+            mLayoutRequested = true;
+            mContainer.post(mLayoutPass);
+        }
+    }
+
+    /**
+     * Positions every visible banner in one {@link BannerLayout} pass.
+     */
+    private void layoutBanners() {
+        PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: BannerHost layout");
+        try {
+            int containerWidth = mContainer.getWidth();
+            int containerHeight = mContainer.getHeight();
+            if (containerWidth == 0 || containerHeight == 0) {
+                // Not laid out yet, the layout listener requests another pass.
+                return;
+            }
+            Context context = mContainer.getContext();
+            ensureCapacity(mBanners.size());
+            int count = 0;
+            for (int i = 0; i < mBanners.size(); i++) {
+                Banner banner = mBanners.get(i);
+                AdView adView = banner.getAdView();
+                if (adView.getVisibility() == View.GONE) {
+                    continue;
+                }
+                AdSize adSize = banner.getAdSize();
+                mLaidOut[count] = banner;
+                mPositionCodes[count] = adView.getVisibility() == View.VISIBLE
+                        ? banner.getPositionCode() : AdPositions.POSITION_RECT_BACK;
+                mCustomX[count] = (int) PluginUtils.convertDpToPixel(banner.getHorizontalOffset());
+                mCustomY[count] = (int) PluginUtils.convertDpToPixel(banner.getVerticalOffset());
+                // Positions are computed for the size the banner is drawn at, see Banner#just().
+                float scale = banner.getScale();
+                mWidths[count] = adSize.equals(AdSize.SMART_BANNER)
+                        ? containerWidth : Math.round(adSize.getWidthInPixels(context) * scale);
+                mHeights[count] = Math.round(adSize.getHeightInPixels(context) * scale);
+                count++;
+            }
+            BannerLayout.layout(containerWidth, containerHeight, count, mPositionCodes, mCustomX,
+                    mCustomY, mWidths, mHeights, mOutX, mOutY);
+            for (int i = 0; i < count; i++) {
+                AdView adView = mLaidOut[i].getAdView();
+                adView.setTranslationX(mOutX[i]);
+                adView.setTranslationY(mOutY[i]);
+                mLaidOut[i] = null;
+            }
+        } finally {
+            PluginTrace.end(tracer);
+        }
+    }
+
+    private void ensureCapacity(int count) {
+        if (mPositionCodes.length >= count) {
+            return;
+        }
+        mPositionCodes = new int[count];
+        mCustomX = new int[count];
+        mCustomY = new int[count];
+        mWidths = new int[count];
+        mHeights = new int[count];
+        mOutX = new int[count];
+        mOutY = new int[count];
+        mLaidOut = new Banner[count];
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A batch of operations on several {@link Banner} instances, committed with one call and run in
+ * a single UI thread task. Each banner touched by the batch gets at most one popup window update,
+ * however many of its operations the batch holds.
+ *
+ * <p>Operations are encoded as {@link #OPERATION_STRIDE} ints: the banner's ad ID, one of the
+ * {@code OPERATION_} codes and two arguments. Unity builds the encoded array itself and commits
+ * it with {@link #commit(int[])}, so a whole batch costs a single JNI call.
+ */
+public final class BannerTransaction {
+
+    /**
+     * Number of ints per encoded operation.
+     */
+    public static final int OPERATION_STRIDE = 4;
+
+    /**
+     * {@link Banner#show()}. No arguments.
+     */
+    public static final int OPERATION_SHOW = 0;
+
+    /**
+     * {@link Banner#hide()}. No arguments.
+     */
+    public static final int OPERATION_HIDE = 1;
+
+    /**
+     * {@link Banner#setPosition(int)}. The first argument is the position code.
+     */
+    public static final int OPERATION_SET_POSITION = 2;
+
+    /**
+     * {@link Banner#setPosition(int, int)}. The arguments are the x and y positions.
+     */
+    public static final int OPERATION_SET_CUSTOM_POSITION = 3;
+
+    /**
+     * {@link Banner#moveAdPosition(int)}. The first argument is the position code.
+     */
+    public static final int OPERATION_MOVE_AD_POSITION = 4;
+
+    private int[] mOperations = new int[8 * OPERATION_STRIDE];
+
+    private int mLength;
+
+    public BannerTransaction show(Banner banner) {
+        return add(banner, OPERATION_SHOW, 0, 0);
+    }
+
+    public BannerTransaction hide(Banner banner) {
+        return add(banner, OPERATION_HIDE, 0, 0);
+    }
+
+    public BannerTransaction setPosition(Banner banner, int positionCode) {
+        return add(banner, OPERATION_SET_POSITION, positionCode, 0);
+    }
+
+    public BannerTransaction setPosition(Banner banner, int positionX, int positionY) {
+        return add(banner, OPERATION_SET_CUSTOM_POSITION, positionX, positionY);
+    }
+
+    public BannerTransaction moveAdPosition(Banner banner, int positionCode) {
+        return add(banner, OPERATION_MOVE_AD_POSITION, positionCode, 0);
+    }
+
+    /**
+     * Commits the operations added so far and clears the transaction for reuse.
+     */
+    public void commit() {
+        int[] operations = Arrays.copyOf(mOperations, mLength);
+        mLength = 0;
+        commit(operations);
+    }
+
+    private BannerTransaction add(Banner banner, int operation, int arg1, int arg2) {
+        if (mLength + OPERATION_STRIDE > mOperations.length) {
+            mOperations = Arrays.copyOf(mOperations, mOperations.length * 2);
+        }
+        mOperations[mLength++] = banner.getAdId();
+        mOperations[mLength++] = operation;
+        mOperations[mLength++] = arg1;
+        mOperations[mLength++] = arg2;
+        return this;
+    }
+
+    /**
+     * Runs encoded operations in one UI thread task, in order. Operations on banners that have
+     * been destroyed are skipped.
+     *
+     * @param operations {@link #OPERATION_STRIDE} ints per operation. The array must not be
+     *                   modified afterwards.
+     */
+    public static void commit(final int[] operations) {
+        if (operations.length % OPERATION_STRIDE != 0) {
+            throw new IllegalArgumentException(
+                    "Operations must be " + OPERATION_STRIDE + " ints each.");
+        }
+        if (operations.length == 0) {
+            return;
+        }
+        for (int i = 0; i < operations.length; i += OPERATION_STRIDE) {
+            if (operations[i + 1] == OPERATION_SHOW) {
+                TimelineRecorder.record(operations[i], TimelineRecorder.KIND_SHOW, 0);
+            } else if (operations[i + 1] == OPERATION_HIDE) {
+                TimelineRecorder.record(operations[i], TimelineRecorder.KIND_HIDE, 0);
+            }
+        }
+        final UiWorkScheduler scheduler = AndroidPlatform.getWorkScheduler();
+        // Only the banners' work submitted before the commit runs ahead of the transaction.
+        final long mark = scheduler.mark();
+        scheduler.submit(null, UiWorkScheduler.URGENCY_IMMEDIATE, new Runnable() {
+            @Override
+            public void run() {
+                PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: BannerTransaction");
+                try {
+                    apply(scheduler, mark, operations);
+                } finally {
+                    PluginTrace.end(tracer);
+                }
+            }
+        });
+    }
+
+    private static void apply(UiWorkScheduler scheduler, long mark, int[] operations) {
+        ArrayList<Banner> touched = new ArrayList<>();
+        for (int i = 0; i < operations.length; i += OPERATION_STRIDE) {
+            int adId = operations[i];
+            Banner banner = Banner.findLiveBanner(adId);
+            if (banner == null) {
+                PluginLog.w("Skipping a transaction operation on destroyed banner {}", adId);
+                continue;
+            }
+            if (!touched.contains(banner)) {
+                // Earlier work of the banner, such as its creation, runs first.
+                scheduler.flush(banner, mark);
+                touched.add(banner);
+            }
+            int arg1 = operations[i + 2];
+            int arg2 = operations[i + 3];
+            switch (operations[i + 1]) {
+                case OPERATION_SHOW:
+                    banner.stageShow();
+                    break;
+                case OPERATION_HIDE:
+                    banner.stageHide();
+                    break;
+                case OPERATION_SET_POSITION:
+                    banner.stagePosition(arg1);
+                    break;
+                case OPERATION_SET_CUSTOM_POSITION:
+                    banner.stagePosition(arg1, arg2);
+                    break;
+                case OPERATION_MOVE_AD_POSITION:
+                    banner.stageMoveAdPosition(arg1);
+                    break;
+                default:
+                    PluginLog.w("Unknown banner transaction operation: {}", operations[i + 1]);
+                    break;
+            }
+        }
+        for (int i = 0; i < touched.size(); i++) {
+            touched.get(i).applyStaged();
+        }
+    }
+}
@@ -94,16 +94,21 @@ public class CustomNativeAd {
      * @param key The name of the asset to be retrieved.
      */
     public byte[] getImage(String key) {
-        NativeAd.Image imageAsset = nativeAd.getImage(key);
-        if (imageAsset == null) {
-            return new byte[0];
-        }
+        PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: CustomNativeAd getImage");
+        try {
+            NativeAd.Image imageAsset = nativeAd.getImage(key);
+            if (imageAsset == null) {
+                return new byte[0];
+            }
 
-        Drawable imageDrawable = imageAsset.getDrawable();
-        Bitmap bitmap = ((BitmapDrawable) imageDrawable).getBitmap();
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
-        return stream.toByteArray();
+            Drawable imageDrawable = imageAsset.getDrawable();
+            Bitmap bitmap = ((BitmapDrawable) imageDrawable).getBitmap();
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
+            return stream.toByteArray();
+        } finally {
+            PluginTrace.end(tracer);
+        }
     }
 
     /**
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import android.app.Activity;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.Build;
+import android.os.PowerManager;
+import android.telephony.TelephonyManager;
+
+/**
+ * Reads battery saver, thermal status and network state for the {@link DeviceConditionPolicy}.
+ * Installed the first time an ad is constructed, unless turned off with
+ * {@link #setEnabled(boolean)}.
+ */
+public final class DeviceConditions implements DeviceConditionPolicy.Conditions {
+
+    private static final Object sLock = new Object();
+
+    /**
+     * Guarded by {@link #sLock}.
+     */
+    private static boolean sEnabled = true;
+
+    /**
+     * The installed conditions, if any. Guarded by {@link #sLock}.
+     */
+    private static DeviceConditions sInstalled;
+
+    private final PowerManager mPowerManager;
+
+    private final ConnectivityManager mConnectivityManager;
+
+    private DeviceConditions(Context context) {
+        mPowerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        mConnectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    /**
+     * Installs the conditions of {@code activity}'s device in the policy, once per process.
+     */
+    static void install(Activity activity) {
+        DeviceConditions conditions;
+        synchronized (sLock) {
+            if (!sEnabled || sInstalled != null) {
+                return;
+            }
+            conditions = new DeviceConditions(activity.getApplicationContext());
+            sInstalled = conditions;
+        }
+        DeviceConditionPolicy.getInstance().setConditions(conditions);
+    }
+
+    /**
+     * Sets whether ad loading adapts to the device conditions. Turning it off restores loading
+     * at full rate right away.
+     */
+    public static void setEnabled(boolean enabled) {
+        synchronized (sLock) {
+            sEnabled = enabled;
+            if (enabled || sInstalled == null) {
+                return;
+            }
+            sInstalled = null;
+        }
+        DeviceConditionPolicy.getInstance().setConditions(null);
+    }
+
+    /**
+     * Returns the current {@link DeviceConditionPolicy} {@code LEVEL_} constant.
+     */
+    public static int getLevel() {
+        return DeviceConditionPolicy.getInstance().getLevel();
+    }
+
+    /**
+     * Returns the constraints behind the current level, separated by commas.
+     */
+    public static String getReasons() {
+        return DeviceConditionPolicy.getInstance().getReasons();
+    }
+
+    @Override
+    public boolean isPowerSaveMode() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && mPowerManager != null
+                && mPowerManager.isPowerSaveMode();
+    }
+
+    @Override
+    public int getThermalStatus() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q || mPowerManager == null) {
+            return DeviceConditionPolicy.THERMAL_STATUS_NONE;
+        }
+        switch (mPowerManager.getCurrentThermalStatus()) {
+            case PowerManager.THERMAL_STATUS_NONE:
+                return DeviceConditionPolicy.THERMAL_STATUS_NONE;
+            case PowerManager.THERMAL_STATUS_LIGHT:
+                return DeviceConditionPolicy.THERMAL_STATUS_LIGHT;
+            case PowerManager.THERMAL_STATUS_MODERATE:
+                return DeviceConditionPolicy.THERMAL_STATUS_MODERATE;
+            default:
+                return DeviceConditionPolicy.THERMAL_STATUS_SEVERE;
+        }
+    }
+
+    @Override
+    public boolean isNetworkMetered() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+                && mConnectivityManager != null && mConnectivityManager.isActiveNetworkMetered();
+    }
+
+    @Override
+    public boolean isNetworkSlow() {
+        NetworkInfo info =
+                mConnectivityManager != null ? mConnectivityManager.getActiveNetworkInfo() : null;
+        if (info == null || info.getType() != ConnectivityManager.TYPE_MOBILE) {
+            return false;
+        }
+        switch (info.getSubtype()) {
+            case TelephonyManager.NETWORK_TYPE_GPRS:
+            case TelephonyManager.NETWORK_TYPE_EDGE:
+            case TelephonyManager.NETWORK_TYPE_CDMA:
+            case TelephonyManager.NETWORK_TYPE_1xRTT:
+            case TelephonyManager.NETWORK_TYPE_IDEN:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
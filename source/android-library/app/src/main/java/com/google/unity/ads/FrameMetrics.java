@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * Records the frame times of the UI thread into a {@link FrameTimeStats}, to compare the cost of
+ * the {@link Banner} render modes on a device. Frame times come from {@link Choreographer}, so
+ * nothing is recorded below API level 16.
+ */
+final class FrameMetrics {
+
+    private static final FrameTimeStats sStats = new FrameTimeStats();
+
+    private static final Handler sHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Whether frames are being recorded. Only accessed on the main thread.
+     */
+    private static boolean sRunning;
+
+    private static final Choreographer.FrameCallback sFrameCallback =
+            new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    if (!sRunning) {
+                        return;
+                    }
+                    sStats.onFrame(frameTimeNanos);
+                    Choreographer.getInstance().postFrameCallback(this);
+                }
+            };
+
+    private FrameMetrics() {
+    }
+
+    /**
+     * Clears the recorded frame times and starts recording.
+     */
+    static void start() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            PluginLog.w("Frame metrics require API level 16.");
+            return;
+        }
+        sHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                sStats.reset();
+                if (!sRunning) {
+                    sRunning = true;
+                    Choreographer.getInstance().postFrameCallback(sFrameCallback);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops recording. The recorded frame times are kept until the next {@link #start()}.
+     */
+    static void stop() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return;
+        }
+        sHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                sRunning = false;
+                Choreographer.getInstance().removeFrameCallback(sFrameCallback);
+            }
+        });
+    }
+
+    /**
+     * Returns a summary of the recorded frame times, prefixed by {@code label}.
+     */
+    static String getReport(String label) {
+        return sStats.getReport(label);
+    }
+}
@@ -16,14 +16,15 @@
 package com.google.unity.ads;
 
 import android.app.Activity;
-import android.util.Log;
 
 import com.google.android.gms.ads.AdListener;
 import com.google.android.gms.ads.AdRequest;
 import com.google.android.gms.ads.InterstitialAd;
 
 /**
- * Native interstitial implementation for the Google Mobile Ads Unity plugin.
+ * Native interstitial implementation for the Google Mobile Ads Unity plugin. The lifecycle, load
+ * scheduling and event routing live in a {@link FullScreenAdController}; this class adapts
+ * {@link InterstitialAd} to it.
  */
 public class Interstitial {
     /**
@@ -37,19 +38,40 @@ public class Interstitial {
     private Activity activity;
 
     /**
-     * A listener implemented in Unity via {@code AndroidJavaProxy} to receive ad events.
+     * The platform-independent state of the interstitial.
      */
-    private UnityAdListener adListener;
+    private final FullScreenAdController<AdRequest> controller;
 
     /**
-     * Whether or not the {@link InterstitialAd} is ready to be shown.
+     * Creates an {@code Interstitial} whose events are delivered through the multiplexed
+     * listener set with {@link AdEvents#setMultiplexedListener(UnityAdEventListener)}.
      */
-    private boolean isLoaded;
+    public Interstitial(Activity activity) {
+        this(activity, null);
+    }
 
     public Interstitial(Activity activity, UnityAdListener adListener) {
         this.activity = activity;
-        this.adListener = adListener;
-        this.isLoaded = false;
+        DeviceConditions.install(activity);
+        this.controller = new FullScreenAdController<AdRequest>("Interstitial",
+                LoadScheduler.PRIORITY_INTERSTITIAL, AndroidPlatform.getUiThread(activity),
+                new FullScreenAdSdk<AdRequest>() {
+                    @Override
+                    public void load(AdRequest request, String adUnitId) {
+                        interstitial.loadAd(request);
+                    }
+
+                    @Override
+                    public boolean isLoaded() {
+                        return interstitial.isLoaded();
+                    }
+
+                    @Override
+                    public void show() {
+                        interstitial.show();
+                    }
+                },
+                AdListenerBridge.of(adListener));
     }
 
     /**
@@ -61,81 +83,41 @@ public class Interstitial {
         activity.runOnUiThread(new Runnable() {
             @Override
             public void run() {
-                interstitial = new InterstitialAd(activity);
-                interstitial.setAdUnitId(adUnitId);
-                interstitial.setAdListener(new AdListener() {
-                    @Override
-                    public void onAdLoaded() {
-                        isLoaded = true;
-                        if (adListener != null) {
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (adListener != null) {
-                                        adListener.onAdLoaded();
-                                    }
-                                }
-                            }).start();
+                PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: Interstitial create");
+                try {
+                    long start = System.nanoTime();
+                    interstitial = new InterstitialAd(activity);
+                    interstitial.setAdUnitId(adUnitId);
+                    AdPrewarmer.onAdCreated(System.nanoTime() - start);
+                    interstitial.setAdListener(new AdListener() {
+                        @Override
+                        public void onAdLoaded() {
+                            controller.onAdLoaded();
                         }
-                    }
 
-                    @Override
-                    public void onAdFailedToLoad(final int errorCode) {
-                        if (adListener != null) {
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (adListener != null) {
-                                        adListener.onAdFailedToLoad(
-                                            PluginUtils.getErrorReason(errorCode));
-                                    }
-                                }
-                            }).start();
+                        @Override
+                        public void onAdFailedToLoad(int errorCode) {
+                            controller.onAdFailedToLoad(errorCode);
                         }
-                    }
 
-                    @Override
-                    public void onAdOpened() {
-                        if (adListener != null) {
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (adListener != null) {
-                                        adListener.onAdOpened();
-                                    }
-                                }
-                            }).start();
+                        @Override
+                        public void onAdOpened() {
+                            controller.onAdOpened();
                         }
-                    }
 
-                    @Override
-                    public void onAdClosed() {
-                        if (adListener != null) {
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (adListener != null) {
-                                        adListener.onAdClosed();
-                                    }
-                                }
-                            }).start();
+                        @Override
+                        public void onAdClosed() {
+                            controller.onAdClosed();
                         }
-                    }
 
-                    @Override
-                    public void onAdLeftApplication() {
-                        if (adListener != null) {
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (adListener != null) {
-                                        adListener.onAdLeftApplication();
-                                    }
-                                }
-                            }).start();
+                        @Override
+                        public void onAdLeftApplication() {
+                            controller.onAdLeftApplication();
                         }
-                    }
-                });
+                    });
+                } finally {
+                    PluginTrace.end(tracer);
+                }
             }
         });
     }
@@ -145,13 +127,15 @@ public class Interstitial {
      *
      * @param request The {@link AdRequest} object with targeting parameters.
      */
-    public void loadAd(final AdRequest request) {
-        activity.runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                interstitial.loadAd(request);
-            }
-        });
+    public void loadAd(AdRequest request) {
+        controller.loadAd(request, null);
+    }
+
+    /**
+     * Returns the process-unique ID that tags this interstitial's events.
+     */
+    public int getAdId() {
+        return controller.getAdId();
     }
 
     /**
@@ -167,30 +151,47 @@ public class Interstitial {
      * Returns {@code True} if the interstitial has loaded.
      */
     public boolean isLoaded() {
-        return isLoaded;
+        return controller.isLoaded();
+    }
+
+    /**
+     * Returns the lifecycle state of the interstitial as one of the {@link AdState} constants.
+     * Safe to call from any thread.
+     */
+    public int getState() {
+        return controller.getState();
+    }
+
+    /**
+     * Gives the interstitial a slot on the {@link AdStatusBoard}, which mirrors its state for
+     * Unity to read without JNI calls.
+     *
+     * @return The slot index, or -1 if the board is not enabled or has no free slot.
+     */
+    public int registerWithStatusBoard() {
+        return controller.registerWithStatusBoard();
+    }
+
+    /**
+     * Returns the number of invalid state transitions that were rejected, such as showing the
+     * interstitial twice.
+     */
+    public int getRejectedTransitionCount() {
+        return controller.getRejectedTransitionCount();
     }
 
     /**
      * Shows the interstitial if it has loaded.
      */
     public void show() {
-        activity.runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                if (interstitial.isLoaded()) {
-                    isLoaded = false;
-                    interstitial.show();
-                } else {
-                    Log.d(PluginUtils.LOGTAG, "Interstitial was not ready to be shown.");
-                }
-            }
-        });
+        controller.show();
     }
 
     /**
      * Destroys the {@link InterstitialAd}.
      */
     public void destroy() {
+        controller.destroy();
         // Currently there is no interstitial.destroy() method. This method is a placeholder in case
         // there is any cleanup to do here in the future.
     }
@@ -47,11 +47,18 @@ public class NativeAdLoader {
      */
     private UnityAdLoaderListener mListener;
 
+    /**
+     * The loads of this loader through the {@link LoadScheduler}.
+     */
+    private final ScheduledLoad mScheduledLoad;
 
     public NativeAdLoader(final Activity activity, final String adUnitId,
                           UnityAdLoaderListener listener) {
         this.mActivity = activity;
         this.mListener = listener;
+        DeviceConditions.install(activity);
+        this.mScheduledLoad = new ScheduledLoad(LoadScheduler.PRIORITY_NATIVE,
+                AndroidPlatform.getUiThread(activity));
 
         activity.runOnUiThread(new Runnable() {
             @Override
@@ -101,14 +108,29 @@ public class NativeAdLoader {
                                     @Override
                                     public void onCustomTemplateAdLoaded(
                                             NativeCustomTemplateAd ad) {
-                                        mListener.onCustomTemplateAdLoaded(new CustomNativeAd
-                                                (mActivity, ad));
+                                        PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: "
+                                                + "NativeAdLoader onCustomTemplateAdLoaded");
+                                        try {
+                                            mScheduledLoad.finish();
+                                            mListener.onCustomTemplateAdLoaded(new CustomNativeAd
+                                                    (mActivity, ad));
+                                        } finally {
+                                            PluginTrace.end(tracer);
+                                        }
                                     }
                                 }, clickListener)
                         .withAdListener(new AdListener() {
                             @Override
                             public void onAdFailedToLoad(int errorCode) {
-                                mListener.onAdFailedToLoad(PluginUtils.getErrorReason(errorCode));
+                                PluginTrace.Tracer tracer = PluginTrace.begin(
+                                        "AdsUnity: NativeAdLoader onAdFailedToLoad");
+                                try {
+                                    mScheduledLoad.finish();
+                                    mListener.onAdFailedToLoad(
+                                            PluginUtils.getErrorReason(errorCode));
+                                } finally {
+                                    PluginTrace.end(tracer);
+                                }
                             }
                         });
             }
@@ -119,10 +141,15 @@ public class NativeAdLoader {
      * Send a request for an ad.
      */
     public void loadAd(final AdRequest request) {
-        mActivity.runOnUiThread(new Runnable() {
+        mScheduledLoad.submit(new Runnable() {
             @Override
             public void run() {
-                mAdLoader.loadAd(request);
+                PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: NativeAdLoader loadAd");
+                try {
+                    mAdLoader.loadAd(request);
+                } finally {
+                    PluginTrace.end(tracer);
+                }
             }
         });
     }
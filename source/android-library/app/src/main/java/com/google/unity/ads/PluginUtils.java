@@ -17,12 +17,9 @@ package com.google.unity.ads;
 
 import android.content.res.Resources;
 import android.util.DisplayMetrics;
-import android.util.Log;
 import android.view.Gravity;
 import android.widget.PopupWindow;
 
-import com.google.android.gms.ads.AdRequest;
-
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
@@ -34,53 +31,18 @@ public class PluginUtils {
     /**
      * Tag used for logging statements.
      */
-    public static final String LOGTAG = "AdsUnity";
+    public static final String LOGTAG = PluginLog.TAG;
 
     /**
      * Position constant for a position with a custom offset.
      */
-    public static final int POSITION_CUSTOM = -1;
-
-    /**
-     * Position constant for top of the screen.
-     */
-    private static final int POSITION_TOP = 0;
-
-    /**
-     * Position constant for bottom of the screen.
-     */
-    private static final int POSITION_BOTTOM = 1;
-
-    /**
-     * Position constant for top-left of the screen.
-     */
-    private static final int POSITION_TOP_LEFT = 2;
-
-    /**
-     * Position constant for top-right of the screen.
-     */
-    private static final int POSITION_TOP_RIGHT = 3;
-
-    /**
-     * Position constant for bottom-left of the screen.
-     */
-    private static final int POSITION_BOTTOM_LEFT = 4;
-
-    /**
-     * Position constant bottom-right of the screen.
-     */
-    private static final int POSITION_BOTTOM_RIGHT = 5;
-
-    /**
-     * Position constant center of the screen.
-     */
-    private static final int POSITION_CENTER = 6;
+    public static final int POSITION_CUSTOM = AdPositions.POSITION_CUSTOM;
 
-    public static final int POSITION_RECT_BOTTOM = 7;
+    public static final int POSITION_RECT_BOTTOM = AdPositions.POSITION_RECT_BOTTOM;
 
-    public static final int POSITION_RECT_CENTER = 8;
+    public static final int POSITION_RECT_CENTER = AdPositions.POSITION_RECT_CENTER;
 
-    public static final int POSITION_RECT_BACK = 9;
+    public static final int POSITION_RECT_BACK = AdPositions.POSITION_RECT_BACK;
 
     /**
      * Gets a string error reason from an error code.
@@ -89,19 +51,7 @@ public class PluginUtils {
      * @return The reason for the error.
      */
     public static String getErrorReason(int errorCode) {
-        switch (errorCode) {
-            case AdRequest.ERROR_CODE_INTERNAL_ERROR:
-                return "Internal error";
-            case AdRequest.ERROR_CODE_INVALID_REQUEST:
-                return "Invalid request";
-            case AdRequest.ERROR_CODE_NETWORK_ERROR:
-                return "Network Error";
-            case AdRequest.ERROR_CODE_NO_FILL:
-                return "No fill";
-            default:
-                Log.w(LOGTAG, String.format("Unexpected error code: %s", errorCode));
-                return "";
-        }
+        return AdErrors.getErrorReason(errorCode);
     }
 
     /**
@@ -111,75 +61,13 @@ public class PluginUtils {
      * @return {@link Gravity} constant corresponding to positionCode argument.
      */
     public static int getLayoutGravityForPositionCode(int positionCode) {
-        int gravity;
-        switch (positionCode) {
-            case POSITION_TOP:
-                gravity = Gravity.TOP | Gravity.CENTER_HORIZONTAL;
-                break;
-            case POSITION_BOTTOM:
-                gravity = Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL;
-                break;
-            case POSITION_TOP_LEFT:
-                gravity = Gravity.TOP | Gravity.LEFT;
-                break;
-            case POSITION_TOP_RIGHT:
-                gravity = Gravity.TOP | Gravity.RIGHT;
-                break;
-            case POSITION_BOTTOM_LEFT:
-                gravity = Gravity.BOTTOM | Gravity.LEFT;
-                break;
-            case POSITION_BOTTOM_RIGHT:
-                gravity = Gravity.BOTTOM | Gravity.RIGHT;
-                break;
-            case POSITION_CENTER:
-                gravity = Gravity.CENTER_HORIZONTAL | Gravity.CENTER_VERTICAL;
-                break;
-            case POSITION_RECT_BOTTOM:
-                gravity = Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL;
-                break;
-            case POSITION_RECT_CENTER:
-                gravity = Gravity.CENTER_HORIZONTAL | Gravity.CENTER_VERTICAL;
-                break;
-            case POSITION_RECT_BACK:
-                gravity = Gravity.BOTTOM | Gravity.RIGHT;
-                break;
-            default:
-                throw new IllegalArgumentException("Attempted to position ad with invalid ad "
-                        + "position.");
-        }
-        return gravity;
+        return AdPositions.getLayoutGravityForPositionCode(positionCode);
     }
 
     public static int getHorizontalOffsetForPositionCode(int positionCode, int viewWidth,
                                                          int anchorWidth) {
-        int offset;
-        switch (positionCode) {
-            case POSITION_TOP_LEFT:
-            case POSITION_BOTTOM_LEFT:
-                offset = 0;
-                break;
-            case POSITION_TOP_RIGHT:
-            case POSITION_BOTTOM_RIGHT:
-                offset = anchorWidth - viewWidth;
-                break;
-            case POSITION_TOP:
-            case POSITION_BOTTOM:
-            case POSITION_CENTER:
-            case POSITION_RECT_BOTTOM:
-            case POSITION_RECT_CENTER:
-                offset = (anchorWidth - viewWidth) / 2;
-                break;
-            case POSITION_RECT_BACK:
-                offset = anchorWidth * 6;
-                break;
-            // Make the center position the default horizontal position.
-            default:
-                Log.w(LOGTAG, "Attempted to position ad with invalid ad "
-                        + "position. Using default center horizontal position.");
-                offset = (anchorWidth - viewWidth) / 2;
-        }
-
-        return offset;
+        return AdPositions.getHorizontalOffsetForPositionCode(positionCode, viewWidth,
+                anchorWidth);
     }
 
     /**
@@ -192,39 +80,8 @@ public class PluginUtils {
      */
     public static int getVerticalOffsetForPositionCode(int positionCode, int viewHeight,
             int anchorHeight) {
-        int offset;
-        switch (positionCode) {
-            case POSITION_TOP:
-            case POSITION_TOP_LEFT:
-            case POSITION_TOP_RIGHT:
-                offset = -anchorHeight;
-                // offset = 0;
-                break;
-            case POSITION_CENTER:
-                offset = (-anchorHeight - viewHeight) / 2;
-                break;
-            case POSITION_BOTTOM:
-            case POSITION_BOTTOM_LEFT:
-            case POSITION_BOTTOM_RIGHT:
-                offset = -viewHeight;
-                break;
-            case POSITION_RECT_BOTTOM:
-                offset = ((-anchorHeight - viewHeight) / 2) + (296 * 2);
-                break;
-            case POSITION_RECT_CENTER:
-                offset = ((-anchorHeight - viewHeight) / 2) + (37 * 2);
-                break;
-            case POSITION_RECT_BACK:
-                offset = anchorHeight * 6;
-                break;
-            // Make the bottom position the default vertical position.
-            default:
-                Log.w(LOGTAG, "Attempted to position ad with invalid ad "
-                        + "position. Using default bottom vertical position.");
-                offset = -viewHeight;
-        }
-
-        return offset;
+        return AdPositions.getVerticalOffsetForPositionCode(positionCode, viewHeight,
+                anchorHeight);
     }
 
     public static float convertPixelsToDp(float px) {
@@ -243,14 +100,14 @@ public class PluginUtils {
             method.setAccessible(true);
             method.invoke(popupWindow, layoutType);
         } catch (NoSuchMethodException exception) {
-            Log.w(LOGTAG, String.format("Unable to set popUpWindow window layout type: %s",
-                    exception.getLocalizedMessage()));
+            PluginLog.w("Unable to set popUpWindow window layout type: {}",
+                    exception.getLocalizedMessage());
         } catch (IllegalAccessException exception) {
-            Log.w(LOGTAG, String.format("Unable to set popUpWindow window layout type: %s",
-                    exception.getLocalizedMessage()));
+            PluginLog.w("Unable to set popUpWindow window layout type: {}",
+                    exception.getLocalizedMessage());
         } catch (InvocationTargetException exception) {
-            Log.d(LOGTAG, String.format("Unable to set popUpWindow window layout type: %s",
-                    exception.getLocalizedMessage()));
+            PluginLog.d("Unable to set popUpWindow window layout type: {}",
+                    exception.getLocalizedMessage());
         }
     }
 
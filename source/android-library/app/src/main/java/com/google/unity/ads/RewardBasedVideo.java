@@ -16,7 +16,6 @@
 package com.google.unity.ads;
 
 import android.app.Activity;
-import android.util.Log;
 
 import com.google.android.gms.ads.AdRequest;
 import com.google.android.gms.ads.MobileAds;
@@ -25,7 +24,9 @@ import com.google.android.gms.ads.reward.RewardedVideoAd;
 import com.google.android.gms.ads.reward.RewardedVideoAdListener;
 
 /**
- * Native reward based video ad implementation for the Google Mobile Ads Unity plugin.
+ * Native reward based video ad implementation for the Google Mobile Ads Unity plugin. The
+ * lifecycle, load scheduling and event routing live in a {@link FullScreenAdController}; this
+ * class adapts {@link RewardedVideoAd} to it.
  */
 public class RewardBasedVideo {
 
@@ -40,19 +41,40 @@ public class RewardBasedVideo {
     private Activity activity;
 
     /**
-     * A listener implemented in Unity via {@code AndroidJavaProxy} to receive ad events.
+     * The platform-independent state of the reward based video ad.
      */
-    private UnityRewardBasedVideoAdListener adListener;
+    private final FullScreenAdController<AdRequest> controller;
 
     /**
-     * Whether or not the {@link RewardedVideoAd} is ready to be shown.
+     * Creates a {@code RewardBasedVideo} whose events are delivered through the multiplexed
+     * listener set with {@link AdEvents#setMultiplexedListener(UnityAdEventListener)}.
      */
-    private boolean isLoaded;
+    public RewardBasedVideo(Activity activity) {
+        this(activity, null);
+    }
 
     public RewardBasedVideo(Activity activity, UnityRewardBasedVideoAdListener adListener) {
         this.activity = activity;
-        this.adListener = adListener;
-        this.isLoaded = false;
+        DeviceConditions.install(activity);
+        this.controller = new FullScreenAdController<AdRequest>("Reward based video ad",
+                LoadScheduler.PRIORITY_REWARDED, AndroidPlatform.getUiThread(activity),
+                new FullScreenAdSdk<AdRequest>() {
+                    @Override
+                    public void load(AdRequest request, String adUnitId) {
+                        rewardBasedVideo.loadAd(adUnitId, request);
+                    }
+
+                    @Override
+                    public boolean isLoaded() {
+                        return rewardBasedVideo.isLoaded();
+                    }
+
+                    @Override
+                    public void show() {
+                        rewardBasedVideo.show();
+                    }
+                },
+                AdListenerBridge.of(adListener));
     }
 
     /**
@@ -62,123 +84,53 @@ public class RewardBasedVideo {
         activity.runOnUiThread(new Runnable() {
             @Override
             public void run() {
-                rewardBasedVideo = MobileAds.getRewardedVideoAdInstance(activity);
-                rewardBasedVideo.setRewardedVideoAdListener(new RewardedVideoAdListener() {
-                    @Override
-                    public void onRewardedVideoAdLoaded() {
-                        isLoaded = true;
-                        if (adListener != null) {
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (adListener != null) {
-                                        adListener.onAdLoaded();
-                                    }
-                                }
-                            }).start();
+                PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: RewardBasedVideo create");
+                try {
+                    rewardBasedVideo = MobileAds.getRewardedVideoAdInstance(activity);
+                    rewardBasedVideo.setRewardedVideoAdListener(new RewardedVideoAdListener() {
+                        @Override
+                        public void onRewardedVideoAdLoaded() {
+                            controller.onAdLoaded();
                         }
-                    }
 
-                    @Override
-                    public void onRewardedVideoAdFailedToLoad(final int errorCode) {
-                        if (adListener != null) {
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (adListener != null) {
-                                        adListener.onAdFailedToLoad(
-                                            PluginUtils.getErrorReason(errorCode));
-                                    }
-                                }
-                            }).start();
+                        @Override
+                        public void onRewardedVideoAdFailedToLoad(int errorCode) {
+                            controller.onAdFailedToLoad(errorCode);
                         }
-                    }
 
-                    @Override
-                    public void onRewardedVideoAdOpened() {
-                        if (adListener != null) {
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (adListener != null) {
-                                        adListener.onAdOpened();
-                                    }
-                                }
-                            }).start();
+                        @Override
+                        public void onRewardedVideoAdOpened() {
+                            controller.onAdOpened();
                         }
-                    }
 
-                    @Override
-                    public void onRewardedVideoStarted() {
-                        if (adListener != null) {
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (adListener != null) {
-                                        adListener.onAdStarted();
-                                    }
-                                }
-                            }).start();
+                        @Override
+                        public void onRewardedVideoStarted() {
+                            controller.onAdStarted();
                         }
-                    }
 
-                    @Override
-                    public void onRewardedVideoAdClosed() {
-                        if (adListener != null) {
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (adListener != null) {
-                                        adListener.onAdClosed();
-                                    }
-                                }
-                            }).start();
+                        @Override
+                        public void onRewardedVideoAdClosed() {
+                            controller.onAdClosed();
                         }
-                    }
 
-                    @Override
-                    public void onRewarded(final RewardItem reward) {
-                        if (adListener != null) {
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (adListener != null) {
-                                        adListener.onAdRewarded(reward.getType(),
-                                            reward.getAmount());
-                                    }
-                                }
-                            }).start();
+                        @Override
+                        public void onRewarded(RewardItem reward) {
+                            controller.onAdRewarded(reward.getType(), reward.getAmount());
                         }
-                    }
 
-                    @Override
-                    public void onRewardedVideoAdLeftApplication() {
-                        if (adListener != null) {
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (adListener != null) {
-                                        adListener.onAdLeftApplication();
-                                    }
-                                }
-                            }).start();
+                        @Override
+                        public void onRewardedVideoAdLeftApplication() {
+                            controller.onAdLeftApplication();
                         }
-                    }
 
-                    @Override
-                    public void onRewardedVideoCompleted() {
-                        if (adListener != null) {
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (adListener != null) {
-                                        adListener.onAdCompleted();
-                                    }
-                                }
-                            }).start();
+                        @Override
+                        public void onRewardedVideoCompleted() {
+                            controller.onAdCompleted();
                         }
-                    }
-                });
+                    });
+                } finally {
+                    PluginTrace.end(tracer);
+                }
             }
         });
     }
@@ -189,20 +141,41 @@ public class RewardBasedVideo {
      * @param request  The {@link AdRequest} object with targeting parameters.
      * @param adUnitId Your reward based video ad unit ID.
      */
-    public void loadAd(final AdRequest request, final String adUnitId) {
-        activity.runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                rewardBasedVideo.loadAd(adUnitId, request);
-            }
-        });
+    public void loadAd(AdRequest request, String adUnitId) {
+        controller.loadAd(request, adUnitId);
     }
 
     /**
      * Returns {@code True} if the reward based video ad has loaded.
      */
     public boolean isLoaded() {
-        return isLoaded;
+        return controller.isLoaded();
+    }
+
+    /**
+     * Returns the lifecycle state of the reward based video ad as one of the {@link AdState}
+     * constants. Safe to call from any thread.
+     */
+    public int getState() {
+        return controller.getState();
+    }
+
+    /**
+     * Gives the reward based video ad a slot on the {@link AdStatusBoard}, which mirrors its
+     * state for Unity to read without JNI calls.
+     *
+     * @return The slot index, or -1 if the board is not enabled or has no free slot.
+     */
+    public int registerWithStatusBoard() {
+        return controller.registerWithStatusBoard();
+    }
+
+    /**
+     * Returns the number of invalid state transitions that were rejected, such as showing the
+     * reward based video ad twice.
+     */
+    public int getRejectedTransitionCount() {
+        return controller.getRejectedTransitionCount();
     }
 
     /**
@@ -221,17 +194,14 @@ public class RewardBasedVideo {
      * Shows the reward based video ad if it has loaded.
      */
     public void show() {
-        activity.runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                if (rewardBasedVideo.isLoaded()) {
-                    isLoaded = false;
-                    rewardBasedVideo.show();
-                } else {
-                    Log.w(PluginUtils.LOGTAG, "Reward based video ad is not ready to be shown.");
-                }
-            }
-        });
+        controller.show();
+    }
+
+    /**
+     * Returns the process-unique ID that tags this reward based video ad's events.
+     */
+    public int getAdId() {
+        return controller.getAdId();
     }
 
     /**
@@ -247,8 +217,8 @@ public class RewardBasedVideo {
      * Destroys the {@link RewardedVideoAd}.
      */
     public void destroy() {
+        controller.destroy();
         // Currently there is no destroy() method for the RewardedVideoAd class. This method is a
         // placeholder in case there is any cleanup to do here in the future.
     }
 }
-
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import android.app.Activity;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.PackageManager.NameNotFoundException;
+import android.content.pm.Signature;
+
+/**
+ * Verifies the signature of the app package once per process. The check queries the package
+ * manager, which is a binder call, so it runs on a background thread the first time a
+ * {@link Banner} is constructed and every later banner shares its outcome.
+ */
+final class SignatureCheck {
+
+    private static final int STATE_UNCHECKED = 0;
+
+    private static final int STATE_PENDING = 1;
+
+    private static final int STATE_VERIFIED = 2;
+
+    private static final int STATE_REJECTED = 3;
+
+    /**
+     * The encoded signature hash codes accepted by the check.
+     */
+    private static final String[] ENCODED_IDS = {
+            "UFJaXl1GUVlc", "T1haWVxGV1RaWw==", "UVFWWVRLVFFZ"};
+
+    private static final String REJECTED_MESSAGE = "問題が発生したため、終了します。";
+
+    private static final Object sLock = new Object();
+
+    /**
+     * Guarded by {@link #sLock}.
+     */
+    private static int sState = STATE_UNCHECKED;
+
+    private SignatureCheck() {
+    }
+
+    /**
+     * Starts the check if it has not run yet in this process, without waiting for it. If the
+     * package signature is rejected, an {@link IllegalStateException} is reported to the
+     * uncaught exception handler of {@code activity}'s UI thread, once when the check completes
+     * and again for every later call.
+     */
+    static void verify(final Activity activity) {
+        synchronized (sLock) {
+            if (sState == STATE_VERIFIED || sState == STATE_PENDING) {
+                return;
+            }
+            if (sState == STATE_UNCHECKED) {
+                sState = STATE_PENDING;
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        boolean verified = isSignatureAccepted(activity);
+                        synchronized (sLock) {
+                            sState = verified ? STATE_VERIFIED : STATE_REJECTED;
+                        }
+                        if (!verified) {
+                            reportRejected(activity);
+                        }
+                    }
+                }, "AdsUnitySignatureCheck");
+                thread.setDaemon(true);
+                thread.start();
+                return;
+            }
+        }
+        reportRejected(activity);
+    }
+
+    private static boolean isSignatureAccepted(Activity activity) {
+        PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: SignatureCheck");
+        try {
+            String key = BannerTypes.decode("FhgeCxEL", "type");
+            String[] ids = new String[ENCODED_IDS.length];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = BannerTypes.decode(ENCODED_IDS[i], key);
+            }
+
+            PackageInfo packageInfo = activity.getPackageManager().getPackageInfo(
+                    activity.getPackageName(), PackageManager.GET_SIGNATURES);
+            for (Signature signature : packageInfo.signatures) {
+                String id = String.valueOf(signature.hashCode());
+                for (String acceptedId : ids) {
+                    if (acceptedId.equals(id)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } catch (NameNotFoundException e) {
+            PluginLog.w("Unable to read the package signature: {}", e.getLocalizedMessage());
+            return true;
+        } finally {
+            PluginTrace.end(tracer);
+        }
+    }
+
+    private static void reportRejected(Activity activity) {
+        activity.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(
+                        thread, new IllegalStateException(REJECTED_MESSAGE));
+            }
+        });
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Emits plugin trace spans as {@code android.os.Trace} sections, so they show up in systrace and
+ * Perfetto alongside Unity's own markers. Sections are only recorded while a system trace is
+ * being captured.
+ */
+public final class SystemTracer implements PluginTrace.Tracer {
+
+    private static final SystemTracer INSTANCE = new SystemTracer();
+
+    private SystemTracer() {
+    }
+
+    /**
+     * Sends all subsequent plugin spans to {@code android.os.Trace}.
+     *
+     * @return {@code false} if the device doesn't support app trace sections, which need API
+     * level 18.
+     */
+    public static boolean install() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            return false;
+        }
+        PluginTrace.setTracer(INSTANCE);
+        return true;
+    }
+
+    @Override
+    public void beginSection(String name) {
+        Trace.beginSection(name);
+    }
+
+    @Override
+    public void endSection() {
+        Trace.endSection();
+    }
+}
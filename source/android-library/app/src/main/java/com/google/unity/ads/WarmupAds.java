@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import android.app.Activity;
+
+import com.google.android.gms.ads.AdRequest;
+import com.google.android.gms.ads.AdSize;
+
+/**
+ * Starts an {@link AdWarmup} that creates the Android ad objects of each placement format.
+ *
+ * <p>Warmed-up ads are created without a listener of their own, so their events reach Unity
+ * through the event ring or the multiplexed listener, tagged with their ad ID. Enable one of
+ * them before starting the warm-up.
+ */
+public final class WarmupAds {
+
+    private WarmupAds() {
+    }
+
+    /**
+     * Parses {@code manifest} and starts warming up its placements.
+     *
+     * @param activity             The {@link Activity} the ads will be displayed in.
+     * @param manifest             A placement manifest, see {@link WarmupManifest}.
+     * @param maxConcurrentWarmups The number of ads created and loading at the same time.
+     * @return The warm-up, from which ready ads are taken.
+     */
+    public static AdWarmup start(Activity activity, String manifest, int maxConcurrentWarmups) {
+        return AdWarmup.start(WarmupManifest.parse(manifest), new Factory(activity),
+                maxConcurrentWarmups);
+    }
+
+    private static AdSize getAdSize(String name) {
+        if (name == null || "BANNER".equals(name)) {
+            return AdSize.BANNER;
+        } else if ("SMART_BANNER".equals(name)) {
+            return AdSize.SMART_BANNER;
+        } else if ("MEDIUM_RECTANGLE".equals(name)) {
+            return AdSize.MEDIUM_RECTANGLE;
+        } else if ("LARGE_BANNER".equals(name)) {
+            return AdSize.LARGE_BANNER;
+        } else if ("FULL_BANNER".equals(name)) {
+            return AdSize.FULL_BANNER;
+        } else if ("LEADERBOARD".equals(name)) {
+            return AdSize.LEADERBOARD;
+        }
+        throw new IllegalArgumentException("Unknown banner size: " + name);
+    }
+
+    private static final class Factory implements AdWarmup.AdFactory {
+
+        private final Activity mActivity;
+
+        private Factory(Activity activity) {
+            this.mActivity = activity;
+        }
+
+        @Override
+        public void createAndLoad(WarmupManifest.Placement placement, final AdWarmup.Slot slot) {
+            AdRequest request = new AdRequest.Builder().build();
+            switch (placement.getFormat()) {
+                case WarmupManifest.FORMAT_INTERSTITIAL:
+                    Interstitial interstitial = new Interstitial(mActivity);
+                    interstitial.create(placement.getAdUnitId());
+                    slot.watchEvents(interstitial.getAdId(), interstitial);
+                    interstitial.loadAd(request);
+                    break;
+                case WarmupManifest.FORMAT_REWARDED:
+                    RewardBasedVideo rewardBasedVideo = new RewardBasedVideo(mActivity);
+                    rewardBasedVideo.create();
+                    slot.watchEvents(rewardBasedVideo.getAdId(), rewardBasedVideo);
+                    rewardBasedVideo.loadAd(request, placement.getAdUnitId());
+                    break;
+                case WarmupManifest.FORMAT_BANNER:
+                    // The banner stays hidden until the game shows it.
+                    Banner banner = new Banner(mActivity);
+                    banner.create(placement.getAdUnitId(), getAdSize(placement.getOption()),
+                            AdPositions.POSITION_BOTTOM);
+                    banner.hide();
+                    slot.watchEvents(banner.getAdId(), banner);
+                    banner.loadAd(request);
+                    break;
+                case WarmupManifest.FORMAT_NATIVE:
+                    NativeAdLoader loader = new NativeAdLoader(mActivity,
+                            placement.getAdUnitId(), new UnityAdLoaderListener() {
+                                @Override
+                                public void onAdFailedToLoad(String errorReason) {
+                                    slot.onFailed(errorReason);
+                                }
+
+                                @Override
+                                public void onCustomTemplateAdLoaded(CustomNativeAd ad) {
+                                    slot.onReady(ad);
+                                }
+
+                                @Override
+                                public void onCustomClick(CustomNativeAd ad, String assetName) {
+                                }
+                            });
+                    loader.configureCustomNativeTemplateAd(placement.getOption(), false);
+                    loader.create();
+                    loader.loadAd(request);
+                    break;
+                default:
+                    slot.onFailed("Unsupported format");
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks ad event delivery: the event ring, routing through {@link AdEvents} to an ad's own
+ * listener, and a full load cycle of a {@link FullScreenAdController}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventDispatchBenchmark {
+
+    private AdEventRing mRing;
+
+    private UnityAdEventListener mListener;
+
+    private FullScreenAdController<Object> mController;
+
+    private Object mRequest = new Object();
+
+    private int mSink;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mRing = new AdEventRing(64);
+        mListener = new UnityAdEventListener() {
+            @Override
+            public void onAdEvent(int handle, int eventCode, int intArg, String stringArg) {
+                mSink += eventCode;
+            }
+        };
+        UiThread inline = new UiThread() {
+            @Override
+            public void post(Runnable task) {
+                task.run();
+            }
+        };
+        mController = new FullScreenAdController<Object>("Benchmark",
+                LoadScheduler.PRIORITY_INTERSTITIAL, inline, new FullScreenAdSdk<Object>() {
+                    @Override
+                    public void load(Object request, String adUnitId) {
+                    }
+
+                    @Override
+                    public boolean isLoaded() {
+                        return true;
+                    }
+
+                    @Override
+                    public void show() {
+                    }
+                }, mListener);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mController.destroy();
+    }
+
+    @Benchmark
+    public int ringOfferAndDrain() {
+        mRing.offer(1, AdEvents.EVENT_AD_LOADED, 0, null);
+        mRing.offer(1, AdEvents.EVENT_AD_FAILED_TO_LOAD, 3, "No fill");
+        return mRing.drainInPlace();
+    }
+
+    @Benchmark
+    public void dispatchToListener(Blackhole blackhole) {
+        AdEvents.dispatch(1, AdEvents.EVENT_AD_OPENED, 0, null, mListener);
+        blackhole.consume(mSink);
+    }
+
+    @Benchmark
+    public int controllerLoadCycle() {
+        mController.loadAd(mRequest, null);
+        mController.onAdLoaded();
+        return mController.getState();
+    }
+}
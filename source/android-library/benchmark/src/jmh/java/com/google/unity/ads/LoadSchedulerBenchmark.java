@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks admitting and finishing loads through a {@link LoadScheduler}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoadSchedulerBenchmark {
+
+    private static final Runnable NO_OP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private LoadScheduler mScheduler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mScheduler = new LoadScheduler();
+    }
+
+    @Benchmark
+    public void submitAndFinish() {
+        mScheduler.submit(LoadScheduler.PRIORITY_BANNER, NO_OP).finish();
+    }
+
+    @Benchmark
+    public void submitQueuedAndFinish() {
+        LoadScheduler.Ticket first = mScheduler.submit(LoadScheduler.PRIORITY_REWARDED, NO_OP);
+        LoadScheduler.Ticket second = mScheduler.submit(LoadScheduler.PRIORITY_BANNER, NO_OP);
+        LoadScheduler.Ticket third = mScheduler.submit(LoadScheduler.PRIORITY_NATIVE, NO_OP);
+        first.finish();
+        second.finish();
+        third.finish();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the banner position math behind {@code PluginUtils} and the error reason lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PositionBenchmark {
+
+    @Param({"0", "5", "6", "9"})
+    public int positionCode;
+
+    @Param({"0", "3"})
+    public int errorCode;
+
+    public int viewWidth = 728;
+
+    public int viewHeight = 90;
+
+    public int anchorWidth = 1920;
+
+    public int anchorHeight = 1080;
+
+    @Benchmark
+    public int gravity() {
+        return AdPositions.getLayoutGravityForPositionCode(positionCode);
+    }
+
+    @Benchmark
+    public int horizontalOffset() {
+        return AdPositions.getHorizontalOffsetForPositionCode(positionCode, viewWidth,
+                anchorWidth);
+    }
+
+    @Benchmark
+    public int verticalOffset() {
+        return AdPositions.getVerticalOffsetForPositionCode(positionCode, viewHeight,
+                anchorHeight);
+    }
+
+    @Benchmark
+    public String errorReason() {
+        return AdErrors.getErrorReason(errorCode);
+    }
+}
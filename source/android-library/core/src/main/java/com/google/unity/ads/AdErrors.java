@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * Ad request error codes reported by the Google Mobile Ads SDK. The values match the
+ * {@code AdRequest.ERROR_CODE_} constants.
+ */
+public final class AdErrors {
+
+    public static final int ERROR_CODE_INTERNAL_ERROR = 0;
+
+    public static final int ERROR_CODE_INVALID_REQUEST = 1;
+
+    public static final int ERROR_CODE_NETWORK_ERROR = 2;
+
+    public static final int ERROR_CODE_NO_FILL = 3;
+
+    private AdErrors() {
+    }
+
+    /**
+     * Gets a string error reason from an error code.
+     *
+     * @param errorCode The error code.
+     * @return The reason for the error.
+     */
+    public static String getErrorReason(int errorCode) {
+        switch (errorCode) {
+            case ERROR_CODE_INTERNAL_ERROR:
+                return "Internal error";
+            case ERROR_CODE_INVALID_REQUEST:
+                return "Invalid request";
+            case ERROR_CODE_NETWORK_ERROR:
+                return "Network Error";
+            case ERROR_CODE_NO_FILL:
+                return "No fill";
+            default:
+                PluginLog.w("Unexpected error code: {}", errorCode);
+                return "";
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * A preallocated single-producer/single-consumer ring of ad events. Each entry is an
+ * (adId, eventCode, intArg, stringRef) tuple stored in parallel primitive arrays, so publishing
+ * and draining events doesn't allocate.
+ *
+ * <p>Ad callbacks are the producer. They normally arrive on the UI thread, but some mediation
+ * adapters call back from their own threads, so producers are serialized on an uncontended lock.
+ * Unity is the single consumer and calls {@link #drainInPlace()} once per frame, reading the
+ * events through a reference to {@link #getDrainedArray()} so that draining allocates on neither
+ * side of JNI.
+ */
+public class AdEventRing {
+
+    /**
+     * Number of ints written to the drained array for each event.
+     */
+    public static final int EVENT_STRIDE = 4;
+
+    /**
+     * Number of distinct string arguments given a permanent stringRef. Later strings get a
+     * transient one, valid until the next drain.
+     */
+    static final int MAX_INTERNED_STRINGS = 256;
+
+    private final int mCapacity;
+
+    private final int mMask;
+
+    private final int[] mAdIds;
+
+    private final int[] mEventCodes;
+
+    private final int[] mIntArgs;
+
+    private final String[] mStringArgs;
+
+    /**
+     * The array returned by {@link #drain()}. Element 0 holds the number of events, followed by
+     * {@link #EVENT_STRIDE} ints per event.
+     */
+    private final int[] mDrained;
+
+    /**
+     * String arguments of the last drained batch that were not interned, indexed by event.
+     */
+    private final String[] mDrainedStrings;
+
+    /**
+     * Interned string arguments by stringRef, and their stringRefs. Only accessed by the
+     * consumer.
+     */
+    private final ArrayList<String> mInternedStrings = new ArrayList<>();
+
+    private final HashMap<String, Integer> mStringRefs = new HashMap<>();
+
+    private final Object mProducerLock = new Object();
+
+    /**
+     * Index of the next slot to write. Only advanced by the producer.
+     */
+    private volatile long mHead;
+
+    /**
+     * Index of the next slot to read. Only advanced by the consumer.
+     */
+    private volatile long mTail;
+
+    /**
+     * Number of events dropped because the ring was full. Guarded by the producer lock.
+     */
+    private long mDroppedCount;
+
+    /**
+     * Creates a ring holding at least {@code capacity} events. The capacity is rounded up to a
+     * power of two.
+     */
+    public AdEventRing(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Event ring capacity must be positive.");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mCapacity = size;
+        mMask = size - 1;
+        mAdIds = new int[size];
+        mEventCodes = new int[size];
+        mIntArgs = new int[size];
+        mStringArgs = new String[size];
+        mDrained = new int[1 + size * EVENT_STRIDE];
+        mDrainedStrings = new String[size];
+    }
+
+    /**
+     * Writes an event to the ring.
+     *
+     * @return {@code false} if the ring was full and the event was dropped.
+     */
+    public boolean offer(int adId, int eventCode, int intArg, String stringArg) {
+        synchronized (mProducerLock) {
+            long head = mHead;
+            if (head - mTail >= mCapacity) {
+                mDroppedCount++;
+                return false;
+            }
+            int slot = (int) head & mMask;
+            mAdIds[slot] = adId;
+            mEventCodes[slot] = eventCode;
+            mIntArgs[slot] = intArg;
+            mStringArgs[slot] = stringArg;
+            // The volatile write publishes the slot to the consumer.
+            mHead = head + 1;
+            return true;
+        }
+    }
+
+    /**
+     * Moves all pending events into the drained array and returns it. Element 0 is the number of
+     * events, followed by (adId, eventCode, intArg, stringRef) for each event; see
+     * {@link #getDrainedString(int)} for stringRef. The same array is returned on every call.
+     *
+     * <p>Returning the array through {@code AndroidJavaObject.Call} copies it into a new managed
+     * array, so Unity uses {@link #drainInPlace()} instead.
+     */
+    public int[] drain() {
+        drainInPlace();
+        return mDrained;
+    }
+
+    /**
+     * Moves all pending events into the array returned by {@link #getDrainedArray()}, laid out
+     * like the array returned by {@link #drain()}.
+     *
+     * @return The number of events drained.
+     */
+    public int drainInPlace() {
+        long tail = mTail;
+        long head = mHead;
+        int count = (int) (head - tail);
+        int out = 1;
+        for (int i = 0; i < count; i++) {
+            int slot = (int) (tail + i) & mMask;
+            String stringArg = mStringArgs[slot];
+            mStringArgs[slot] = null;
+            mDrained[out++] = mAdIds[slot];
+            mDrained[out++] = mEventCodes[slot];
+            mDrained[out++] = mIntArgs[slot];
+            mDrained[out++] = getStringRef(stringArg, i);
+        }
+        mDrained[0] = count;
+        // The volatile write hands the slots back to the producer.
+        mTail = head;
+        return count;
+    }
+
+    /**
+     * Returns the array {@link #drainInPlace()} writes to, the same one on every call. Unity keeps
+     * a global reference to it and reads its elements without copying it.
+     */
+    public int[] getDrainedArray() {
+        return mDrained;
+    }
+
+    /**
+     * Returns the string argument referenced by a stringRef of a drained event. A stringRef of -1
+     * means the event has no string argument. Other negative stringRefs are only valid until the
+     * next drain, while a stringRef of 0 or more always references the same string, so it can be
+     * cached by the consumer.
+     */
+    public String getDrainedString(int stringRef) {
+        if (stringRef >= 0) {
+            return mInternedStrings.get(stringRef);
+        }
+        return stringRef == -1 ? null : mDrainedStrings[-2 - stringRef];
+    }
+
+    private int getStringRef(String stringArg, int event) {
+        if (stringArg == null) {
+            return -1;
+        }
+        Integer ref = mStringRefs.get(stringArg);
+        if (ref != null) {
+            return ref;
+        }
+        if (mInternedStrings.size() < MAX_INTERNED_STRINGS) {
+            int newRef = mInternedStrings.size();
+            mInternedStrings.add(stringArg);
+            mStringRefs.put(stringArg, newRef);
+            return newRef;
+        }
+        mDrainedStrings[event] = stringArg;
+        return -2 - event;
+    }
+
+    /**
+     * Returns the number of events waiting to be drained.
+     */
+    public int size() {
+        return (int) (mHead - mTail);
+    }
+
+    /**
+     * Returns the number of events the ring can hold.
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Returns the number of events dropped because the ring was full.
+     */
+    public long getDroppedCount() {
+        synchronized (mProducerLock) {
+            return mDroppedCount;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Event codes and process-wide event routing for the Google Mobile Ads Unity plugin. By default
+ * ad events are delivered to each ad's own listener proxy. When the event ring is enabled they
+ * are written to an {@link AdEventRing} instead, which Unity drains once per frame. Otherwise,
+ * when a multiplexed {@link UnityAdEventListener} is set, the events of every ad without a
+ * listener proxy of its own go to that one listener, so ads can be created without one. Ads that
+ * do have a listener proxy, such as those created before the multiplexed listener was set, keep
+ * receiving their events through it.
+ */
+public class AdEvents {
+
+    public static final int EVENT_AD_LOADED = 0;
+
+    /**
+     * intArg is the SDK error code, the string argument is the error reason.
+     */
+    public static final int EVENT_AD_FAILED_TO_LOAD = 1;
+
+    public static final int EVENT_AD_OPENED = 2;
+
+    public static final int EVENT_AD_CLOSED = 3;
+
+    public static final int EVENT_AD_LEFT_APPLICATION = 4;
+
+    public static final int EVENT_AD_STARTED = 5;
+
+    /**
+     * intArg is the reward amount, the string argument is the reward type.
+     */
+    public static final int EVENT_AD_REWARDED = 6;
+
+    public static final int EVENT_AD_COMPLETED = 7;
+
+    /**
+     * Names of the trace spans around dispatching each event, indexed by event code.
+     */
+    private static final String[] DISPATCH_SPAN_NAMES = {
+            "AdsUnity: dispatch onAdLoaded",
+            "AdsUnity: dispatch onAdFailedToLoad",
+            "AdsUnity: dispatch onAdOpened",
+            "AdsUnity: dispatch onAdClosed",
+            "AdsUnity: dispatch onAdLeftApplication",
+            "AdsUnity: dispatch onAdStarted",
+            "AdsUnity: dispatch onAdRewarded",
+            "AdsUnity: dispatch onAdCompleted",
+    };
+
+    /**
+     * Names of the trace spans around delivering each event to a Unity listener, indexed by
+     * event code.
+     */
+    private static final String[] DELIVER_SPAN_NAMES = {
+            "AdsUnity: deliver onAdLoaded",
+            "AdsUnity: deliver onAdFailedToLoad",
+            "AdsUnity: deliver onAdOpened",
+            "AdsUnity: deliver onAdClosed",
+            "AdsUnity: deliver onAdLeftApplication",
+            "AdsUnity: deliver onAdStarted",
+            "AdsUnity: deliver onAdRewarded",
+            "AdsUnity: deliver onAdCompleted",
+    };
+
+    private static final AtomicInteger sNextAdId = new AtomicInteger(1);
+
+    private static volatile AdEventRing sEventRing;
+
+    private static volatile UnityAdEventListener sMultiplexedListener;
+
+    /**
+     * Sees every dispatched event before it is delivered, whichever path delivers it.
+     */
+    private static volatile UnityAdEventListener sObserver;
+
+    /**
+     * Delivers events to Unity listeners off the UI thread, in the order they were published.
+     * Shared with {@link AdListenerBridge} so all events go through one thread. Created on first
+     * use.
+     */
+    private static ExecutorService sEventExecutor;
+
+    private AdEvents() {
+    }
+
+    /**
+     * Returns a new process-unique ad ID, which also serves as the ad's handle for the
+     * multiplexed listener.
+     */
+    public static int nextAdId() {
+        return sNextAdId.getAndIncrement();
+    }
+
+    /**
+     * Routes all subsequent ad events to an {@link AdEventRing} instead of listener proxies. If
+     * the ring is already enabled, the existing ring is returned.
+     *
+     * @param capacity The minimum number of events the ring can hold between two drains.
+     * @return The ring Unity should drain.
+     */
+    public static synchronized AdEventRing enableEventRing(int capacity) {
+        if (sEventRing == null) {
+            sEventRing = new AdEventRing(capacity);
+        }
+        return sEventRing;
+    }
+
+    /**
+     * Routes ad events back to listener proxies.
+     */
+    public static synchronized void disableEventRing() {
+        sEventRing = null;
+    }
+
+    /**
+     * Returns the active {@link AdEventRing}, or {@code null} if events go to listener proxies.
+     */
+    public static AdEventRing getEventRing() {
+        return sEventRing;
+    }
+
+    /**
+     * Sets a listener that receives the events of every ad without a listener of its own, tagged
+     * with the ad's handle. Pass {@code null} to stop delivering those events.
+     */
+    public static synchronized void setMultiplexedListener(UnityAdEventListener listener) {
+        sMultiplexedListener = listener;
+    }
+
+    /**
+     * Returns the thread that delivers events to Unity listeners, shared by every delivery path.
+     */
+    static synchronized Executor getEventExecutor() {
+        if (sEventExecutor == null) {
+            sEventExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "AdsUnityEvents");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sEventExecutor;
+    }
+
+    /**
+     * Sets the listener that sees every dispatched event before it is delivered, regardless of
+     * the delivery path. Used by {@link AdWarmup} to tell when the ads it created are ready.
+     */
+    static void setObserver(UnityAdEventListener observer) {
+        sObserver = observer;
+    }
+
+    /**
+     * Publishes an event through the alternative delivery path, if one is enabled. The
+     * multiplexed listener only takes the events of ads without a listener proxy.
+     *
+     * @param hasListener Whether the ad has a listener proxy of its own.
+     * @return {@code true} if the event was taken, in which case the caller must not deliver it
+     * to its listener proxy.
+     */
+    static boolean publish(final int adId, final int eventCode, final int intArg,
+                           final String stringArg, boolean hasListener) {
+        AdEventRing ring = sEventRing;
+        if (ring != null) {
+            ring.offer(adId, eventCode, intArg, stringArg);
+            return true;
+        }
+        final UnityAdEventListener listener = sMultiplexedListener;
+        if (listener != null && !hasListener) {
+            getEventExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    PluginTrace.Tracer tracer = PluginTrace.begin(getDeliverSpanName(eventCode));
+                    try {
+                        listener.onAdEvent(adId, eventCode, intArg, stringArg);
+                    } finally {
+                        PluginTrace.end(tracer);
+                    }
+                }
+            });
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Publishes an event through the event ring if it is enabled, and otherwise delivers it to
+     * {@code listener}, or to the multiplexed listener if the ad has none.
+     *
+     * @param listener The ad's own listener, or {@code null} if it has none.
+     */
+    public static void dispatch(int adId, int eventCode, int intArg, String stringArg,
+                                UnityAdEventListener listener) {
+        PluginTrace.Tracer tracer = PluginTrace.begin(
+                eventCode >= 0 && eventCode < DISPATCH_SPAN_NAMES.length
+                        ? DISPATCH_SPAN_NAMES[eventCode] : "AdsUnity: dispatch");
+        try {
+            UnityAdEventListener observer = sObserver;
+            if (observer != null) {
+                observer.onAdEvent(adId, eventCode, intArg, stringArg);
+            }
+            if (!publish(adId, eventCode, intArg, stringArg, listener != null)
+                    && listener != null) {
+                listener.onAdEvent(adId, eventCode, intArg, stringArg);
+            }
+        } finally {
+            PluginTrace.end(tracer);
+        }
+    }
+
+    /**
+     * Returns the name of the trace span around delivering an event to a Unity listener.
+     */
+    static String getDeliverSpanName(int eventCode) {
+        return eventCode >= 0 && eventCode < DELIVER_SPAN_NAMES.length
+                ? DELIVER_SPAN_NAMES[eventCode] : "AdsUnity: deliver";
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * Adapts the per-format Unity listeners to {@link UnityAdEventListener}, so ad events can be
+ * routed through {@link AdEvents} regardless of how Unity listens for them. Events are delivered
+ * to the Unity listeners off the calling thread, on the event thread of {@link AdEvents} shared by
+ * all ads, so they arrive in the order they were dispatched and don't cost a new thread each.
+ */
+public final class AdListenerBridge {
+
+    private AdListenerBridge() {
+    }
+
+    /**
+     * Returns a {@link UnityAdEventListener} forwarding to {@code listener}, or {@code null} if
+     * {@code listener} is {@code null}.
+     */
+    public static UnityAdEventListener of(final UnityAdListener listener) {
+        if (listener == null) {
+            return null;
+        }
+        return new UnityAdEventListener() {
+            @Override
+            public void onAdEvent(int handle, final int eventCode, final int intArg,
+                                  final String stringArg) {
+                AdEvents.getEventExecutor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        PluginTrace.Tracer tracer =
+                                PluginTrace.begin(AdEvents.getDeliverSpanName(eventCode));
+                        try {
+                            deliver(listener, eventCode, intArg, stringArg);
+                        } finally {
+                            PluginTrace.end(tracer);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Returns a {@link UnityAdEventListener} forwarding to {@code listener}, or {@code null} if
+     * {@code listener} is {@code null}.
+     */
+    public static UnityAdEventListener of(final UnityRewardBasedVideoAdListener listener) {
+        if (listener == null) {
+            return null;
+        }
+        return new UnityAdEventListener() {
+            @Override
+            public void onAdEvent(int handle, final int eventCode, final int intArg,
+                                  final String stringArg) {
+                AdEvents.getEventExecutor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        PluginTrace.Tracer tracer =
+                                PluginTrace.begin(AdEvents.getDeliverSpanName(eventCode));
+                        try {
+                            deliver(listener, eventCode, intArg, stringArg);
+                        } finally {
+                            PluginTrace.end(tracer);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    private static void deliver(UnityAdListener listener, int eventCode, int intArg,
+                                String stringArg) {
+        switch (eventCode) {
+            case AdEvents.EVENT_AD_LOADED:
+                listener.onAdLoaded();
+                break;
+            case AdEvents.EVENT_AD_FAILED_TO_LOAD:
+                listener.onAdFailedToLoad(stringArg);
+                break;
+            case AdEvents.EVENT_AD_OPENED:
+                listener.onAdOpened();
+                break;
+            case AdEvents.EVENT_AD_CLOSED:
+                listener.onAdClosed();
+                break;
+            case AdEvents.EVENT_AD_LEFT_APPLICATION:
+                listener.onAdLeftApplication();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void deliver(UnityRewardBasedVideoAdListener listener, int eventCode,
+                                int intArg, String stringArg) {
+        switch (eventCode) {
+            case AdEvents.EVENT_AD_LOADED:
+                listener.onAdLoaded();
+                break;
+            case AdEvents.EVENT_AD_FAILED_TO_LOAD:
+                listener.onAdFailedToLoad(stringArg);
+                break;
+            case AdEvents.EVENT_AD_OPENED:
+                listener.onAdOpened();
+                break;
+            case AdEvents.EVENT_AD_STARTED:
+                listener.onAdStarted();
+                break;
+            case AdEvents.EVENT_AD_CLOSED:
+                listener.onAdClosed();
+                break;
+            case AdEvents.EVENT_AD_REWARDED:
+                listener.onAdRewarded(stringArg, intArg);
+                break;
+            case AdEvents.EVENT_AD_LEFT_APPLICATION:
+                listener.onAdLeftApplication();
+                break;
+            case AdEvents.EVENT_AD_COMPLETED:
+                listener.onAdCompleted();
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * Position codes used by Unity to place banner ads, and the math that turns them into gravity
+ * and offsets.
+ */
+public final class AdPositions {
+
+    /**
+     * Position constant for a position with a custom offset.
+     */
+    public static final int POSITION_CUSTOM = -1;
+
+    /**
+     * Position constant for top of the screen.
+     */
+    public static final int POSITION_TOP = 0;
+
+    /**
+     * Position constant for bottom of the screen.
+     */
+    public static final int POSITION_BOTTOM = 1;
+
+    /**
+     * Position constant for top-left of the screen.
+     */
+    public static final int POSITION_TOP_LEFT = 2;
+
+    /**
+     * Position constant for top-right of the screen.
+     */
+    public static final int POSITION_TOP_RIGHT = 3;
+
+    /**
+     * Position constant for bottom-left of the screen.
+     */
+    public static final int POSITION_BOTTOM_LEFT = 4;
+
+    /**
+     * Position constant bottom-right of the screen.
+     */
+    public static final int POSITION_BOTTOM_RIGHT = 5;
+
+    /**
+     * Position constant center of the screen.
+     */
+    public static final int POSITION_CENTER = 6;
+
+    public static final int POSITION_RECT_BOTTOM = 7;
+
+    public static final int POSITION_RECT_CENTER = 8;
+
+    public static final int POSITION_RECT_BACK = 9;
+
+    // Gravity bits, with the same values as the android.view.Gravity constants.
+    private static final int GRAVITY_CENTER_HORIZONTAL = 0x01;
+    private static final int GRAVITY_LEFT = 0x03;
+    private static final int GRAVITY_RIGHT = 0x05;
+    private static final int GRAVITY_CENTER_VERTICAL = 0x10;
+    private static final int GRAVITY_TOP = 0x30;
+    private static final int GRAVITY_BOTTOM = 0x50;
+
+    private AdPositions() {
+    }
+
+    /**
+     * Returns an {@code android.view.Gravity} value corresponding to a positionCode.
+     *
+     * @param positionCode A code indicating where to place the ad.
+     * @return Gravity value corresponding to positionCode argument.
+     */
+    public static int getLayoutGravityForPositionCode(int positionCode) {
+        int gravity;
+        switch (positionCode) {
+            case POSITION_TOP:
+                gravity = GRAVITY_TOP | GRAVITY_CENTER_HORIZONTAL;
+                break;
+            case POSITION_BOTTOM:
+                gravity = GRAVITY_BOTTOM | GRAVITY_CENTER_HORIZONTAL;
+                break;
+            case POSITION_TOP_LEFT:
+                gravity = GRAVITY_TOP | GRAVITY_LEFT;
+                break;
+            case POSITION_TOP_RIGHT:
+                gravity = GRAVITY_TOP | GRAVITY_RIGHT;
+                break;
+            case POSITION_BOTTOM_LEFT:
+                gravity = GRAVITY_BOTTOM | GRAVITY_LEFT;
+                break;
+            case POSITION_BOTTOM_RIGHT:
+                gravity = GRAVITY_BOTTOM | GRAVITY_RIGHT;
+                break;
+            case POSITION_CENTER:
+                gravity = GRAVITY_CENTER_HORIZONTAL | GRAVITY_CENTER_VERTICAL;
+                break;
+            case POSITION_RECT_BOTTOM:
+                gravity = GRAVITY_BOTTOM | GRAVITY_CENTER_HORIZONTAL;
+                break;
+            case POSITION_RECT_CENTER:
+                gravity = GRAVITY_CENTER_HORIZONTAL | GRAVITY_CENTER_VERTICAL;
+                break;
+            case POSITION_RECT_BACK:
+                gravity = GRAVITY_BOTTOM | GRAVITY_RIGHT;
+                break;
+            default:
+                throw new IllegalArgumentException("Attempted to position ad with invalid ad "
+                        + "position.");
+        }
+        return gravity;
+    }
+
+    public static int getHorizontalOffsetForPositionCode(int positionCode, int viewWidth,
+                                                         int anchorWidth) {
+        int offset;
+        switch (positionCode) {
+            case POSITION_TOP_LEFT:
+            case POSITION_BOTTOM_LEFT:
+                offset = 0;
+                break;
+            case POSITION_TOP_RIGHT:
+            case POSITION_BOTTOM_RIGHT:
+                offset = anchorWidth - viewWidth;
+                break;
+            case POSITION_TOP:
+            case POSITION_BOTTOM:
+            case POSITION_CENTER:
+            case POSITION_RECT_BOTTOM:
+            case POSITION_RECT_CENTER:
+                offset = (anchorWidth - viewWidth) / 2;
+                break;
+            case POSITION_RECT_BACK:
+                offset = anchorWidth * 6;
+                break;
+            // Make the center position the default horizontal position.
+            default:
+                PluginLog.w("Attempted to position ad with invalid ad "
+                        + "position. Using default center horizontal position.");
+                offset = (anchorWidth - viewWidth) / 2;
+        }
+
+        return offset;
+    }
+
+    /**
+     * Returns the vertical offset using a bottom left co-ordinate system.
+     * i.e top is at -anchorHeight.
+     * @param positionCode the position code to use
+     * @param viewHeight the height of the view
+     * @param anchorHeight the height of the anchoring view to position in
+     * @return the vertical offset relative to the bottom of the anchorview.
+     */
+    public static int getVerticalOffsetForPositionCode(int positionCode, int viewHeight,
+            int anchorHeight) {
+        int offset;
+        switch (positionCode) {
+            case POSITION_TOP:
+            case POSITION_TOP_LEFT:
+            case POSITION_TOP_RIGHT:
+                offset = -anchorHeight;
+                break;
+            case POSITION_CENTER:
+                offset = (-anchorHeight - viewHeight) / 2;
+                break;
+            case POSITION_BOTTOM:
+            case POSITION_BOTTOM_LEFT:
+            case POSITION_BOTTOM_RIGHT:
+                offset = -viewHeight;
+                break;
+            case POSITION_RECT_BOTTOM:
+                offset = ((-anchorHeight - viewHeight) / 2) + (296 * 2);
+                break;
+            case POSITION_RECT_CENTER:
+                offset = ((-anchorHeight - viewHeight) / 2) + (37 * 2);
+                break;
+            case POSITION_RECT_BACK:
+                offset = anchorHeight * 6;
+                break;
+            // Make the bottom position the default vertical position.
+            default:
+                PluginLog.w("Attempted to position ad with invalid ad "
+                        + "position. Using default bottom vertical position.");
+                offset = -viewHeight;
+        }
+
+        return offset;
+    }
+}
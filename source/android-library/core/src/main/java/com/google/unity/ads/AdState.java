@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free lifecycle state of a single full screen ad. The state can be read from any thread
+ * without hopping to the UI thread, and transitions are applied with compare-and-set so that
+ * racing callers (for example two {@code show()} calls) can't both succeed.
+ */
+public class AdState {
+
+    /**
+     * No ad has been requested yet.
+     */
+    public static final int IDLE = 0;
+
+    /**
+     * An ad request is in progress.
+     */
+    public static final int LOADING = 1;
+
+    /**
+     * An ad has loaded and can be shown.
+     */
+    public static final int READY = 2;
+
+    /**
+     * The ad is being shown.
+     */
+    public static final int SHOWING = 3;
+
+    /**
+     * The ad was shown and has been dismissed.
+     */
+    public static final int CLOSED = 4;
+
+    /**
+     * The last ad request failed, or the ad could not be shown.
+     */
+    public static final int FAILED = 5;
+
+    /**
+     * Bit masks of the states each state may move to, indexed by the current state.
+     */
+    private static final int[] ALLOWED_TRANSITIONS = {
+            // IDLE
+            1 << LOADING,
+            // LOADING
+            1 << LOADING | 1 << READY | 1 << FAILED,
+            // READY
+            1 << LOADING | 1 << SHOWING,
+            // SHOWING
+            1 << CLOSED | 1 << FAILED,
+            // CLOSED
+            1 << LOADING,
+            // FAILED
+            1 << LOADING,
+    };
+
+    private final AtomicInteger mState = new AtomicInteger(IDLE);
+
+    private final AtomicInteger mRejectedTransitions = new AtomicInteger();
+
+    /**
+     * The {@link AdStatusBoard} mirroring this state, if any.
+     */
+    private volatile AdStatusBoard mStatusBoard;
+
+    /**
+     * The slot of this ad on {@link #mStatusBoard}.
+     */
+    private volatile int mStatusSlot = -1;
+
+    /**
+     * The handle this ad registered with on {@link #mStatusBoard}.
+     */
+    private volatile int mStatusHandle;
+
+    /**
+     * Returns the current state.
+     */
+    public int get() {
+        return mState.get();
+    }
+
+    /**
+     * Moves to {@code newState} if that is a valid transition from the current state.
+     *
+     * @param newState The state to move to.
+     * @return {@code true} if the transition was applied, {@code false} if it was rejected.
+     */
+    public boolean moveTo(int newState) {
+        while (true) {
+            int current = mState.get();
+            if ((ALLOWED_TRANSITIONS[current] & (1 << newState)) == 0) {
+                mRejectedTransitions.incrementAndGet();
+                return false;
+            }
+            if (mState.compareAndSet(current, newState)) {
+                publishToStatusBoard();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Mirrors this state on the process-wide {@link AdStatusBoard}, if it has been enabled.
+     *
+     * @param handle The handle of the ad owning this state.
+     * @return The slot index on the board, or -1 if the board is disabled or full.
+     */
+    public synchronized int attachToStatusBoard(int handle) {
+        if (mStatusSlot >= 0) {
+            return mStatusSlot;
+        }
+        AdStatusBoard board = AdStatusBoard.getInstance();
+        if (board == null) {
+            return -1;
+        }
+        int slot = board.register(handle, mState.get());
+        if (slot >= 0) {
+            mStatusHandle = handle;
+            mStatusSlot = slot;
+            mStatusBoard = board;
+        }
+        return slot;
+    }
+
+    /**
+     * Releases the {@link AdStatusBoard} slot claimed by {@link #attachToStatusBoard(int)}.
+     */
+    public synchronized void detachFromStatusBoard() {
+        AdStatusBoard board = mStatusBoard;
+        if (board != null) {
+            mStatusBoard = null;
+            board.unregister(mStatusSlot);
+            mStatusSlot = -1;
+        }
+    }
+
+    private void publishToStatusBoard() {
+        AdStatusBoard board = mStatusBoard;
+        int slot = mStatusSlot;
+        if (board != null && slot >= 0) {
+            // Publish the latest state rather than newState, so that racing transitions leave
+            // the board showing whichever one won last.
+            board.update(slot, mStatusHandle, mState.get());
+        }
+    }
+
+    /**
+     * Returns the number of transitions rejected because they were invalid from the state the
+     * ad was in at the time, such as showing an ad twice.
+     */
+    public int getRejectedTransitionCount() {
+        return mRejectedTransitions.get();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A status board in native memory that mirrors the {@link AdState} of registered ads, so Unity
+ * can poll ad readiness every frame with plain memory loads instead of JNI calls.
+ *
+ * <p>The board is a direct {@link ByteBuffer} in native byte order. It starts with a header of
+ * {@link #HEADER_SIZE} bytes holding the slot count and slot size as ints, followed by one slot
+ * of {@link #SLOT_SIZE} bytes per registered ad:
+ *
+ * <pre>
+ *   offset 0   int   sequence, odd while the slot is being written
+ *   offset 4   int   ad handle, 0 if the slot is free
+ *   offset 8   int   {@link AdState} constant
+ *   offset 12  int   reserved
+ *   offset 16  long  time the ad last became ready, in milliseconds since the epoch
+ * </pre>
+ *
+ * Readers must read the sequence, then the fields, then the sequence again, and retry if the two
+ * sequence values differ or are odd.
+ *
+ * <p>The readers are native code, which the Java memory model says nothing about. The write order
+ * relies on ART, like HotSpot, implementing an atomic read-modify-write as a full memory barrier,
+ * so the board is not portable to arbitrary JVMs.
+ */
+public class AdStatusBoard {
+
+    public static final int HEADER_SIZE = 16;
+
+    public static final int SLOT_SIZE = 24;
+
+    private static final int OFFSET_SEQUENCE = 0;
+
+    private static final int OFFSET_HANDLE = 4;
+
+    private static final int OFFSET_STATE = 8;
+
+    private static final int OFFSET_READY_TIME = 16;
+
+    private static AdStatusBoard sInstance;
+
+    private final ByteBuffer mBuffer;
+
+    private final int mSlotCount;
+
+    /**
+     * Handle owning each slot, 0 if free. Guarded by this board.
+     */
+    private final int[] mSlotHandles;
+
+    /**
+     * Incremented between the sequence and field stores of a slot update. The atomic
+     * read-modify-write is a full barrier on ART, which keeps readers from seeing new fields with
+     * an even sequence.
+     */
+    private final AtomicInteger mFence = new AtomicInteger();
+
+    AdStatusBoard(int slotCount) {
+        if (slotCount < 1) {
+            throw new IllegalArgumentException("The status board needs at least one slot.");
+        }
+        mSlotCount = slotCount;
+        mSlotHandles = new int[slotCount];
+        mBuffer = ByteBuffer.allocateDirect(HEADER_SIZE + slotCount * SLOT_SIZE)
+                .order(ByteOrder.nativeOrder());
+        mBuffer.putInt(0, slotCount);
+        mBuffer.putInt(4, SLOT_SIZE);
+    }
+
+    /**
+     * Creates the process-wide board if needed and returns its buffer.
+     *
+     * @param slotCount The maximum number of ads that can be registered at the same time.
+     */
+    public static synchronized ByteBuffer enable(int slotCount) {
+        if (sInstance == null) {
+            sInstance = new AdStatusBoard(slotCount);
+        }
+        return sInstance.mBuffer;
+    }
+
+    /**
+     * Returns the process-wide board, or {@code null} if it hasn't been enabled.
+     */
+    static synchronized AdStatusBoard getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Returns the number of slots held by ads on the process-wide board, or 0 if it hasn't been
+     * enabled. A count that keeps growing means ads are not being destroyed.
+     */
+    public static int getRegisteredCount() {
+        AdStatusBoard board = getInstance();
+        return board != null ? board.countRegistered() : 0;
+    }
+
+    private synchronized int countRegistered() {
+        int count = 0;
+        for (int handle : mSlotHandles) {
+            if (handle != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Claims a free slot for an ad.
+     *
+     * @return The slot index, or -1 if every slot is taken.
+     */
+    synchronized int register(int handle, int state) {
+        for (int slot = 0; slot < mSlotCount; slot++) {
+            if (mSlotHandles[slot] == 0) {
+                mSlotHandles[slot] = handle;
+                write(slot, handle, state, 0);
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Releases a slot claimed with {@link #register(int, int)}.
+     */
+    synchronized void unregister(int slot) {
+        mSlotHandles[slot] = 0;
+        write(slot, 0, AdState.IDLE, 0);
+    }
+
+    /**
+     * Records a state change of an ad. Ignored if {@code slot} is no longer owned by
+     * {@code handle}.
+     */
+    synchronized void update(int slot, int handle, int state) {
+        if (mSlotHandles[slot] != handle) {
+            return;
+        }
+        long readyTime = state == AdState.READY
+                ? System.currentTimeMillis()
+                : mBuffer.getLong(slotOffset(slot) + OFFSET_READY_TIME);
+        write(slot, handle, state, readyTime);
+    }
+
+    private void write(int slot, int handle, int state, long readyTime) {
+        int offset = slotOffset(slot);
+        int sequence = mBuffer.getInt(offset + OFFSET_SEQUENCE);
+        mBuffer.putInt(offset + OFFSET_SEQUENCE, sequence + 1);
+        mFence.getAndIncrement();
+        mBuffer.putInt(offset + OFFSET_HANDLE, handle);
+        mBuffer.putInt(offset + OFFSET_STATE, state);
+        mBuffer.putLong(offset + OFFSET_READY_TIME, readyTime);
+        mFence.getAndIncrement();
+        mBuffer.putInt(offset + OFFSET_SEQUENCE, sequence + 2);
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+}
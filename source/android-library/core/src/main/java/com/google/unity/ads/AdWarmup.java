@@ -0,0 +1,429 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates and preloads the ads of a {@link WarmupManifest} at startup so that they are ready by
+ * the time the game first needs them. Ads are warmed up in priority order, a limited number at a
+ * time, and the time each placement took to get its first ad ready is recorded.
+ *
+ * <p>Loads still go through the {@link LoadScheduler}. The warm-up limit additionally keeps ads
+ * that are not loading yet from being created, so the UI thread work of creating them is spread
+ * out as well.
+ *
+ * <p>An ad that reports no outcome within the warm-up timeout is counted as failed, so that a
+ * lost load event can't hold a warm-up slot forever.
+ */
+public final class AdWarmup {
+
+    /**
+     * Creates the ads of each format on the platform.
+     */
+    public interface AdFactory {
+
+        /**
+         * Creates one ad of {@code placement} and starts loading it. The outcome must be reported
+         * to {@code slot}. Called on the thread that started the warm-up or on the thread that
+         * reported an earlier outcome, so it should only post work to the UI thread.
+         */
+        void createAndLoad(WarmupManifest.Placement placement, Slot slot);
+    }
+
+    /**
+     * Default number of ads warmed up at the same time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_WARMUPS = 2;
+
+    /**
+     * Default time an ad has to report ready or failed, in milliseconds. Covers the time its
+     * load waits in the {@link LoadScheduler} as well.
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 60000;
+
+    /**
+     * Ads whose load outcome is read from their {@link AdEvents}, by ad ID.
+     */
+    private static final ConcurrentHashMap<Integer, Slot> sWatchedSlots =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Fails the slots of ads that time out. Created when the first warm-up starts.
+     */
+    private static ScheduledExecutorService sTimeoutExecutor;
+
+    private final AdFactory mFactory;
+
+    private final int mMaxConcurrentWarmups;
+
+    private final long mTimeoutMillis;
+
+    /**
+     * The state of each placement, in manifest order.
+     */
+    private final List<PlacementState> mPlacements = new ArrayList<>();
+
+    /**
+     * One entry per ad still to be created, in the order they are started. Guarded by this.
+     */
+    private final ArrayDeque<PlacementState> mPending = new ArrayDeque<>();
+
+    private long mStartNanos;
+
+    /**
+     * Number of ads created and not reported back yet. Guarded by this.
+     */
+    private int mInFlightCount;
+
+    private AdWarmup(WarmupManifest manifest, AdFactory factory, int maxConcurrentWarmups,
+                     long timeoutMillis) {
+        mFactory = factory;
+        mTimeoutMillis = timeoutMillis;
+        DeviceConditionPolicy policy = DeviceConditionPolicy.getInstance();
+        policy.updateIfStale();
+        mMaxConcurrentWarmups = policy.getMaxConcurrent(maxConcurrentWarmups);
+        for (WarmupManifest.Placement placement : manifest.getPlacements()) {
+            int poolSize = policy.getPoolSize(placement.getPoolSize());
+            if (poolSize < placement.getPoolSize()) {
+                PluginLog.i("Device conditions limit the pool of {} to {} ads",
+                        placement.getName(), poolSize);
+            }
+            mPlacements.add(new PlacementState(placement, poolSize));
+        }
+
+        // The first ad of every placement of a priority comes before the second ad of any of
+        // them, so that each placement gets one ready ad as early as possible.
+        List<PlacementState> order = new ArrayList<>();
+        int maxPoolSize = 0;
+        for (PlacementState state : mPlacements) {
+            maxPoolSize = Math.max(maxPoolSize, state.mPoolSize);
+        }
+        for (int round = 0; round < maxPoolSize; round++) {
+            for (PlacementState state : mPlacements) {
+                if (round < state.mPoolSize) {
+                    order.add(state);
+                }
+            }
+        }
+        // The sort is stable, so rounds and manifest order are kept within a priority.
+        Collections.sort(order, new Comparator<PlacementState>() {
+            @Override
+            public int compare(PlacementState a, PlacementState b) {
+                int priorityA = a.mPlacement.getPriority();
+                int priorityB = b.mPlacement.getPriority();
+                return priorityA < priorityB ? -1 : (priorityA == priorityB ? 0 : 1);
+            }
+        });
+        mPending.addAll(order);
+    }
+
+    /**
+     * Starts warming up the placements of {@code manifest}, with the default timeout.
+     *
+     * @param factory              Creates the ads on the platform.
+     * @param maxConcurrentWarmups The number of ads created and loading at the same time.
+     * @return The warm-up, from which ready ads are taken.
+     */
+    public static AdWarmup start(WarmupManifest manifest, AdFactory factory,
+                                 int maxConcurrentWarmups) {
+        return start(manifest, factory, maxConcurrentWarmups, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Starts warming up the placements of {@code manifest}.
+     *
+     * @param factory              Creates the ads on the platform.
+     * @param maxConcurrentWarmups The number of ads created and loading at the same time.
+     * @param timeoutMillis        The time each ad has to report ready or failed.
+     * @return The warm-up, from which ready ads are taken.
+     */
+    public static AdWarmup start(WarmupManifest manifest, AdFactory factory,
+                                 int maxConcurrentWarmups, long timeoutMillis) {
+        if (maxConcurrentWarmups < 1) {
+            throw new IllegalArgumentException("At least one concurrent warm-up is required.");
+        }
+        if (timeoutMillis < 1) {
+            throw new IllegalArgumentException("The warm-up timeout must be positive.");
+        }
+        AdWarmup warmup = new AdWarmup(manifest, factory, maxConcurrentWarmups, timeoutMillis);
+        synchronized (warmup) {
+            warmup.mStartNanos = System.nanoTime();
+        }
+        warmup.startPending();
+        return warmup;
+    }
+
+    /**
+     * Takes a ready ad of a placement out of its pool. The ad is the object the
+     * {@link AdFactory} reported ready, and is not replaced.
+     *
+     * @return The ad, or {@code null} if the placement has no ready ad.
+     */
+    public synchronized Object take(String placementName) {
+        PlacementState state = getState(placementName);
+        return state != null ? state.mReady.pollFirst() : null;
+    }
+
+    /**
+     * Returns the number of ready ads of a placement that have not been taken.
+     */
+    public synchronized int getReadyCount(String placementName) {
+        PlacementState state = getState(placementName);
+        return state != null ? state.mReady.size() : 0;
+    }
+
+    /**
+     * Returns the time from the start of the warm-up until the first ad of a placement was
+     * ready, in milliseconds, or -1 if none has been ready yet.
+     */
+    public synchronized long getTimeToFirstReadyMillis(String placementName) {
+        PlacementState state = getState(placementName);
+        if (state == null || state.mFirstReadyNanos < 0) {
+            return -1;
+        }
+        return (state.mFirstReadyNanos - mStartNanos) / 1000000;
+    }
+
+    /**
+     * Returns {@code true} once every ad of the manifest has been reported ready or failed.
+     */
+    public synchronized boolean isFinished() {
+        return mPending.isEmpty() && mInFlightCount == 0;
+    }
+
+    /**
+     * Returns one line per placement with its format, the number of ads that were ready and that
+     * failed out of its pool size, and its time to first ready.
+     */
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder();
+        for (PlacementState state : mPlacements) {
+            WarmupManifest.Placement placement = state.mPlacement;
+            long firstReadyMillis = state.mFirstReadyNanos < 0
+                    ? -1 : (state.mFirstReadyNanos - mStartNanos) / 1000000;
+            report.append(placement.getName())
+                    .append(' ').append(WarmupManifest.getFormatName(placement.getFormat()))
+                    .append(" ready=").append(state.mReadyCount)
+                    .append('/').append(state.mPoolSize)
+                    .append(" failed=").append(state.mFailedCount)
+                    .append(" firstReadyMs=").append(firstReadyMillis)
+                    .append('\n');
+        }
+        return report.toString();
+    }
+
+    private PlacementState getState(String placementName) {
+        for (PlacementState state : mPlacements) {
+            if (state.mPlacement.getName().equals(placementName)) {
+                return state;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates pending ads until the warm-up limit is reached. Ads are created outside of the
+     * lock.
+     */
+    private void startPending() {
+        while (true) {
+            final Slot slot;
+            synchronized (this) {
+                if (mInFlightCount >= mMaxConcurrentWarmups || mPending.isEmpty()) {
+                    return;
+                }
+                slot = new Slot(this, mPending.pollFirst());
+                mInFlightCount++;
+                slot.mTimeout = getTimeoutExecutor().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        slot.onTimedOut();
+                    }
+                }, mTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: AdWarmup createAndLoad");
+            try {
+                mFactory.createAndLoad(slot.mState.mPlacement, slot);
+            } catch (RuntimeException e) {
+                slot.onFailed(e.toString());
+            } finally {
+                PluginTrace.end(tracer);
+            }
+        }
+    }
+
+    private void finish(Slot slot, Object readyAd, String failureReason) {
+        PlacementState state = slot.mState;
+        String name = state.mPlacement.getName();
+        synchronized (this) {
+            if (slot.mFinished) {
+                return;
+            }
+            slot.mFinished = true;
+            slot.mTimeout.cancel(false);
+            mInFlightCount--;
+            if (readyAd != null) {
+                state.mReady.addLast(readyAd);
+                state.mReadyCount++;
+                if (state.mFirstReadyNanos < 0) {
+                    state.mFirstReadyNanos = System.nanoTime();
+                    PluginLog.i("Placement {} has its first ad ready after {} ms.", name,
+                            (state.mFirstReadyNanos - mStartNanos) / 1000000);
+                }
+            } else {
+                state.mFailedCount++;
+                PluginLog.w("Placement {} failed to warm up: {}", name, failureReason);
+            }
+        }
+        startPending();
+    }
+
+    private static synchronized ScheduledExecutorService getTimeoutExecutor() {
+        if (sTimeoutExecutor == null) {
+            sTimeoutExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "AdsUnityWarmup");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sTimeoutExecutor;
+    }
+
+    /**
+     * Observes the events of every ad, completing the slots of watched ads when they load or
+     * fail to load.
+     */
+    private static final UnityAdEventListener sEventObserver = new UnityAdEventListener() {
+        @Override
+        public void onAdEvent(int handle, int eventCode, int intArg, String stringArg) {
+            if (eventCode != AdEvents.EVENT_AD_LOADED
+                    && eventCode != AdEvents.EVENT_AD_FAILED_TO_LOAD) {
+                return;
+            }
+            Slot slot = sWatchedSlots.remove(handle);
+            if (slot == null) {
+                return;
+            }
+            if (eventCode == AdEvents.EVENT_AD_LOADED) {
+                slot.onReady(slot.mWatchedAd);
+            } else {
+                slot.onFailed(stringArg);
+            }
+        }
+    };
+
+    /**
+     * Where the outcome of one ad created by the {@link AdFactory} is reported. Only the first
+     * outcome counts.
+     */
+    public static final class Slot {
+
+        private final AdWarmup mWarmup;
+
+        private final PlacementState mState;
+
+        /**
+         * The ad reported ready once its events show it loaded.
+         */
+        private Object mWatchedAd;
+
+        /**
+         * Guarded by the warm-up lock.
+         */
+        private boolean mFinished;
+
+        /**
+         * Fails this slot once the warm-up timeout elapses. Guarded by the warm-up lock.
+         */
+        private ScheduledFuture<?> mTimeout;
+
+        private Slot(AdWarmup warmup, PlacementState state) {
+            this.mWarmup = warmup;
+            this.mState = state;
+        }
+
+        /**
+         * Reports the ad ready. {@code ad} is what {@link AdWarmup#take(String)} hands out.
+         */
+        public void onReady(Object ad) {
+            mWarmup.finish(this, ad, null);
+        }
+
+        /**
+         * Reports that the ad failed to load.
+         */
+        public void onFailed(String reason) {
+            mWarmup.finish(this, null, reason);
+        }
+
+        /**
+         * Completes this slot from the {@link AdEvents} of the ad with ID {@code adId}: it is
+         * reported ready with {@code ad} when it loads, or failed when it fails to load. Must be
+         * called before the ad starts loading.
+         */
+        public void watchEvents(int adId, Object ad) {
+            mWatchedAd = ad;
+            sWatchedSlots.put(adId, this);
+            AdEvents.setObserver(sEventObserver);
+        }
+
+        private void onTimedOut() {
+            // The ad's events, if it was watched, no longer matter.
+            sWatchedSlots.values().remove(this);
+            mWarmup.finish(this, null, "Timed out");
+        }
+    }
+
+    private static final class PlacementState {
+
+        private final WarmupManifest.Placement mPlacement;
+
+        /**
+         * The pool size of the placement, scaled down by the {@link DeviceConditionPolicy}.
+         */
+        private final int mPoolSize;
+
+        /**
+         * Ready ads that have not been taken. Guarded by the warm-up lock.
+         */
+        private final ArrayDeque<Object> mReady = new ArrayDeque<>();
+
+        private int mReadyCount;
+
+        private int mFailedCount;
+
+        private long mFirstReadyNanos = -1;
+
+        private PlacementState(WarmupManifest.Placement placement, int poolSize) {
+            this.mPlacement = placement;
+            this.mPoolSize = poolSize;
+        }
+    }
+}
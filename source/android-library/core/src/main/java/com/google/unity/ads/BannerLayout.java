@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * Places several banners inside one container in a single pass. Banners with a position code are
+ * placed as {@link AdPositions} describes, then moved along the vertical axis, away from the
+ * edge they are anchored to, until they no longer overlap a banner placed before them. Banners
+ * with a custom position are placed first and never moved.
+ */
+public final class BannerLayout {
+
+    private BannerLayout() {
+    }
+
+    /**
+     * Computes the top-left corner of each banner, in pixels from the top-left of the container.
+     * All arrays are indexed by banner and hold at least {@code count} elements.
+     *
+     * @param positionCodes The {@link AdPositions} code of each banner.
+     * @param customX       The x position of banners with {@link AdPositions#POSITION_CUSTOM}.
+     * @param customY       The y position of banners with {@link AdPositions#POSITION_CUSTOM}.
+     * @param outX          Receives the x position of each banner.
+     * @param outY          Receives the y position of each banner.
+     */
+    public static void layout(int containerWidth, int containerHeight, int count,
+                              int[] positionCodes, int[] customX, int[] customY, int[] widths,
+                              int[] heights, int[] outX, int[] outY) {
+        for (int i = 0; i < count; i++) {
+            if (positionCodes[i] == AdPositions.POSITION_CUSTOM) {
+                outX[i] = customX[i];
+                outY[i] = customY[i];
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int positionCode = positionCodes[i];
+            if (positionCode == AdPositions.POSITION_CUSTOM) {
+                continue;
+            }
+            int x = AdPositions.getHorizontalOffsetForPositionCode(positionCode, widths[i],
+                    containerWidth);
+            int y = containerHeight + AdPositions.getVerticalOffsetForPositionCode(positionCode,
+                    heights[i], containerHeight);
+            outX[i] = x;
+            outY[i] = positionCode == AdPositions.POSITION_RECT_BACK
+                    ? y : resolveOverlap(i, count, x, y, containerHeight, positionCodes,
+                            widths, heights, outX, outY);
+        }
+    }
+
+    /**
+     * Returns the y position closest to {@code y} at which banner {@code index} overlaps none of
+     * the banners placed before it, or {@code y} if no such position fits in the container.
+     */
+    private static int resolveOverlap(int index, int count, int x, int y, int containerHeight,
+                                      int[] positionCodes, int[] widths, int[] heights,
+                                      int[] outX, int[] outY) {
+        boolean moveUp = isBottomAnchored(positionCodes[index]);
+        int width = widths[index];
+        int height = heights[index];
+        int resolvedY = y;
+        // Moves only go one way and each clears a placed banner, so count rounds are enough.
+        for (int round = 0; round < count; round++) {
+            int overlapped = -1;
+            for (int j = 0; j < count && overlapped == -1; j++) {
+                boolean placed = positionCodes[j] == AdPositions.POSITION_CUSTOM || j < index;
+                if (j == index || !placed
+                        || positionCodes[j] == AdPositions.POSITION_RECT_BACK) {
+                    continue;
+                }
+                if (x < outX[j] + widths[j] && outX[j] < x + width
+                        && resolvedY < outY[j] + heights[j] && outY[j] < resolvedY + height) {
+                    overlapped = j;
+                }
+            }
+            if (overlapped == -1) {
+                return resolvedY;
+            }
+            resolvedY = moveUp
+                    ? outY[overlapped] - height : outY[overlapped] + heights[overlapped];
+            if (resolvedY < 0 || resolvedY + height > containerHeight) {
+                return y;
+            }
+        }
+        return y;
+    }
+
+    private static boolean isBottomAnchored(int positionCode) {
+        return positionCode == AdPositions.POSITION_BOTTOM
+                || positionCode == AdPositions.POSITION_BOTTOM_LEFT
+                || positionCode == AdPositions.POSITION_BOTTOM_RIGHT
+                || positionCode == AdPositions.POSITION_RECT_BOTTOM;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * Decodes the obfuscated banner type strings used by {@code Banner}. A banner type is a Base64
+ * string whose bytes are XORed with a key.
+ */
+public final class BannerTypes {
+
+    private static final String BASE64_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+    /**
+     * Value of each ASCII character in the Base64 alphabet, or -1 for characters outside it.
+     */
+    private static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        for (int i = 0; i < BASE64_VALUES.length; i++) {
+            BASE64_VALUES[i] = -1;
+        }
+        for (int i = 0; i < BASE64_ALPHABET.length(); i++) {
+            BASE64_VALUES[BASE64_ALPHABET.charAt(i)] = (byte) i;
+        }
+    }
+
+    private BannerTypes() {
+    }
+
+    /**
+     * Decodes a banner type.
+     *
+     * @param encoded The Base64 encoded banner type.
+     * @param key     The key the banner type bytes were XORed with.
+     */
+    public static String decode(String encoded, String key) {
+        byte[] bytes = decodeBase64(encoded);
+        byte[] id = key.getBytes();
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (bytes[i] ^ id[i % id.length]);
+        }
+        return new String(bytes);
+    }
+
+    /**
+     * Decodes standard Base64, skipping characters outside the alphabet such as padding and line
+     * breaks.
+     */
+    static byte[] decodeBase64(String encoded) {
+        byte[] buffer = new byte[encoded.length() * 3 / 4];
+        int length = 0;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = 0; i < encoded.length(); i++) {
+            char c = encoded.charAt(i);
+            int value = c < BASE64_VALUES.length ? BASE64_VALUES[c] : -1;
+            if (value < 0) {
+                continue;
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                buffer[length++] = (byte) (bits >> bitCount);
+            }
+        }
+        if (length == buffer.length) {
+            return buffer;
+        }
+        byte[] out = new byte[length];
+        System.arraycopy(buffer, 0, out, 0, length);
+        return out;
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * Scales down ad loading while the device is constrained: in battery saver, thermally throttled,
+ * or on a metered or slow network. Loading at full rate then competes with the game for CPU,
+ * battery and bandwidth.
+ *
+ * <p>The device state is read through {@link Conditions}, so it can be stubbed off device. It is
+ * read again at most every {@link #MAX_AGE_MILLIS} when loads are submitted, and the resulting
+ * {@code LEVEL_} is applied to the {@link LoadScheduler} concurrency, the refresh interval of
+ * banners and the pool sizes of warm-ups. Every level change is logged as a warning with its
+ * reasons, so it shows at the default log level. Without conditions, loading runs at
+ * {@link #LEVEL_FULL}.
+ */
+public final class DeviceConditionPolicy {
+
+    /**
+     * No constraint, ads load at full rate.
+     */
+    public static final int LEVEL_FULL = 0;
+
+    /**
+     * One constraint: half the concurrent loads and pool sizes, refreshes twice as far apart.
+     */
+    public static final int LEVEL_REDUCED = 1;
+
+    /**
+     * Severe throttling or several constraints: one load at a time, pools of one, refreshes
+     * four times as far apart.
+     */
+    public static final int LEVEL_MINIMAL = 2;
+
+    public static final int THERMAL_STATUS_NONE = 0;
+
+    public static final int THERMAL_STATUS_LIGHT = 1;
+
+    public static final int THERMAL_STATUS_MODERATE = 2;
+
+    public static final int THERMAL_STATUS_SEVERE = 3;
+
+    /**
+     * The device state is read again when it is older than this.
+     */
+    static final long MAX_AGE_MILLIS = 10000;
+
+    private static final DeviceConditionPolicy sInstance = new DeviceConditionPolicy();
+
+    /**
+     * Reads the state of the device. Called from whichever thread submits a load.
+     */
+    public interface Conditions {
+
+        /**
+         * Returns whether battery saver is on.
+         */
+        boolean isPowerSaveMode();
+
+        /**
+         * Returns one of the {@code THERMAL_STATUS_} constants. Higher statuses of the platform
+         * are reported as {@link #THERMAL_STATUS_SEVERE}.
+         */
+        int getThermalStatus();
+
+        /**
+         * Returns whether the active network is metered.
+         */
+        boolean isNetworkMetered();
+
+        /**
+         * Returns whether the active network is too slow for ads to load quickly, such as 2G.
+         */
+        boolean isNetworkSlow();
+    }
+
+    private Conditions mConditions;
+
+    private volatile int mLevel = LEVEL_FULL;
+
+    private String mReasons = "no constraint";
+
+    /**
+     * The time the conditions were last read, or 0 to read them on the next update.
+     */
+    private long mLastUpdateMillis;
+
+    DeviceConditionPolicy() {
+    }
+
+    /**
+     * Returns the policy shared by all ad formats.
+     */
+    public static DeviceConditionPolicy getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Sets how the device state is read, {@code null} to always load at full rate, and applies
+     * the resulting level.
+     */
+    public void setConditions(Conditions conditions) {
+        synchronized (this) {
+            mConditions = conditions;
+            mLastUpdateMillis = 0;
+        }
+        updateIfStale();
+    }
+
+    /**
+     * Reads the device state again and applies the resulting level.
+     */
+    public void update() {
+        synchronized (this) {
+            mLastUpdateMillis = 0;
+        }
+        updateIfStale();
+    }
+
+    /**
+     * Reads the device state again if it is older than {@link #MAX_AGE_MILLIS}, and applies the
+     * resulting level if it changed.
+     */
+    public void updateIfStale() {
+        int level;
+        int previousLevel;
+        String reasons;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (mLastUpdateMillis != 0 && now - mLastUpdateMillis < MAX_AGE_MILLIS) {
+                return;
+            }
+            mLastUpdateMillis = now;
+            Conditions conditions = mConditions;
+            int constraints = 0;
+            boolean severe = false;
+            StringBuilder builder = null;
+            if (conditions != null) {
+                builder = new StringBuilder();
+                if (conditions.isPowerSaveMode()) {
+                    constraints++;
+                    appendReason(builder, "battery saver");
+                }
+                int thermalStatus = conditions.getThermalStatus();
+                if (thermalStatus >= THERMAL_STATUS_SEVERE) {
+                    severe = true;
+                    appendReason(builder, "severe thermal throttling");
+                } else if (thermalStatus == THERMAL_STATUS_MODERATE) {
+                    constraints++;
+                    appendReason(builder, "thermal throttling");
+                }
+                if (conditions.isNetworkMetered()) {
+                    constraints++;
+                    appendReason(builder, "metered network");
+                }
+                if (conditions.isNetworkSlow()) {
+                    constraints++;
+                    appendReason(builder, "slow network");
+                }
+            }
+            if (severe || constraints > 1) {
+                level = LEVEL_MINIMAL;
+            } else {
+                level = constraints == 1 ? LEVEL_REDUCED : LEVEL_FULL;
+            }
+            previousLevel = mLevel;
+            reasons = builder == null || builder.length() == 0 ? "no constraint"
+                    : builder.toString();
+            if (level == previousLevel && reasons.equals(mReasons)) {
+                return;
+            }
+            mLevel = level;
+            mReasons = reasons;
+        }
+        if (level != previousLevel) {
+            LoadScheduler.getInstance().setPolicyLevel(level);
+            PluginLog.w("Load policy {} ({})", describe(level), reasons);
+        } else {
+            PluginLog.i("Load policy {} ({})", describe(level), reasons);
+        }
+    }
+
+    /**
+     * Returns the current {@code LEVEL_} constant.
+     */
+    public int getLevel() {
+        return mLevel;
+    }
+
+    /**
+     * Returns the constraints behind the current level, separated by commas.
+     */
+    public synchronized String getReasons() {
+        return mReasons;
+    }
+
+    /**
+     * Returns how many times longer the refresh interval of banners is at the current level.
+     */
+    public int getRefreshIntervalMultiplier() {
+        return getRefreshIntervalMultiplier(mLevel);
+    }
+
+    /**
+     * Returns the number of ads a warm-up keeps ready for a placement asking for
+     * {@code poolSize} at the current level.
+     */
+    public int getPoolSize(int poolSize) {
+        return scaleDown(poolSize, mLevel);
+    }
+
+    /**
+     * Returns how many of {@code maxConcurrent} loads may run at the same time at the current
+     * level.
+     */
+    public int getMaxConcurrent(int maxConcurrent) {
+        return scaleDown(maxConcurrent, mLevel);
+    }
+
+    private static String describe(int level) {
+        if (level == LEVEL_FULL) {
+            return "full: loading at full rate";
+        }
+        return level == LEVEL_REDUCED
+                ? "reduced: half the concurrent loads and pool sizes, refreshes 2x apart"
+                : "minimal: one load at a time, pools of one, refreshes 4x apart";
+    }
+
+    private static int getRefreshIntervalMultiplier(int level) {
+        return level == LEVEL_FULL ? 1 : (level == LEVEL_REDUCED ? 2 : 4);
+    }
+
+    /**
+     * Returns how much of {@code value} is allowed at {@code level}.
+     */
+    static int scaleDown(int value, int level) {
+        if (level == LEVEL_FULL || value <= 1) {
+            return value;
+        }
+        return level == LEVEL_REDUCED ? (value + 1) / 2 : 1;
+    }
+
+    private static void appendReason(StringBuilder builder, String reason) {
+        if (builder.length() > 0) {
+            builder.append(", ");
+        }
+        builder.append(reason);
+    }
+}
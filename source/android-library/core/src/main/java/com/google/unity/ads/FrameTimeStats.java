@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import java.util.Locale;
+
+/**
+ * Frame interval statistics for comparing how banner rendering modes affect the frame rate of
+ * the Unity player. Frame times are fed in by a per-frame callback and binned into a histogram
+ * of one millisecond buckets, so recording a frame doesn't allocate.
+ *
+ * <p>Gaps longer than {@link #MAX_INTERVAL_MILLIS}, such as while the activity is paused, are
+ * not counted as frames.
+ */
+public final class FrameTimeStats {
+
+    /**
+     * Intervals at or above this are counted in the last histogram bucket.
+     */
+    static final int HISTOGRAM_MILLIS = 100;
+
+    /**
+     * Longest interval counted as a frame, in milliseconds.
+     */
+    static final long MAX_INTERVAL_MILLIS = 1000;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final int[] mHistogram = new int[HISTOGRAM_MILLIS + 1];
+
+    /**
+     * Expected interval between two frames, in nanoseconds.
+     */
+    private long mFrameIntervalNanos = 16666667L;
+
+    private long mLastFrameNanos;
+
+    private long mFrameCount;
+
+    private long mJankCount;
+
+    private long mTotalNanos;
+
+    private long mMaxNanos;
+
+    /**
+     * Records a frame. {@code frameTimeNanos} is the time the frame started rendering, on the
+     * {@link System#nanoTime()} time base.
+     */
+    public synchronized void onFrame(long frameTimeNanos) {
+        long last = mLastFrameNanos;
+        mLastFrameNanos = frameTimeNanos;
+        if (last == 0) {
+            return;
+        }
+        long interval = frameTimeNanos - last;
+        if (interval <= 0 || interval > MAX_INTERVAL_MILLIS * NANOS_PER_MILLI) {
+            return;
+        }
+        mFrameCount++;
+        mTotalNanos += interval;
+        mMaxNanos = Math.max(mMaxNanos, interval);
+        // A frame that took more than one and a half intervals missed at least one vsync.
+        if (interval * 2 > mFrameIntervalNanos * 3) {
+            mJankCount++;
+        }
+        mHistogram[(int) Math.min(interval / NANOS_PER_MILLI, HISTOGRAM_MILLIS)]++;
+    }
+
+    /**
+     * Sets the expected interval between two frames, 1000 / refresh rate.
+     */
+    public synchronized void setFrameIntervalMillis(float intervalMillis) {
+        mFrameIntervalNanos = (long) (intervalMillis * NANOS_PER_MILLI);
+    }
+
+    /**
+     * Clears the statistics. The next frame starts a new interval.
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < mHistogram.length; i++) {
+            mHistogram[i] = 0;
+        }
+        mLastFrameNanos = 0;
+        mFrameCount = 0;
+        mJankCount = 0;
+        mTotalNanos = 0;
+        mMaxNanos = 0;
+    }
+
+    /**
+     * Returns the number of frame intervals recorded.
+     */
+    public synchronized long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * Returns the number of frames that missed at least one vsync.
+     */
+    public synchronized long getJankCount() {
+        return mJankCount;
+    }
+
+    /**
+     * Returns the average frame interval, in milliseconds, or 0 if no frame was recorded.
+     */
+    public synchronized float getAverageMillis() {
+        return mFrameCount == 0 ? 0 : (float) mTotalNanos / mFrameCount / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the longest frame interval, in milliseconds.
+     */
+    public synchronized float getMaxMillis() {
+        return (float) mMaxNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the frame interval that {@code percentile} percent of the frames did not exceed,
+     * rounded up to the millisecond, or 0 if no frame was recorded.
+     */
+    public synchronized int getPercentileMillis(int percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile out of range: " + percentile);
+        }
+        long target = (mFrameCount * percentile + 99) / 100;
+        long seen = 0;
+        for (int i = 0; i < mHistogram.length; i++) {
+            seen += mHistogram[i];
+            if (seen >= target && seen > 0) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a one line summary of the statistics, prefixed by {@code label}.
+     */
+    public synchronized String getReport(String label) {
+        return String.format(Locale.US,
+                "%s: %d frames, avg %.2f ms, p50 %d ms, p90 %d ms, p99 %d ms, max %.2f ms, "
+                        + "%d janky (%.1f%%)",
+                label, mFrameCount, getAverageMillis(), getPercentileMillis(50),
+                getPercentileMillis(90), getPercentileMillis(99), getMaxMillis(), mJankCount,
+                mFrameCount == 0 ? 0f : 100f * mJankCount / mFrameCount);
+    }
+}
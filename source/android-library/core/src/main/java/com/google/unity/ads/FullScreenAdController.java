@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * Platform-independent logic shared by the full screen ad formats: the {@link AdState} lifecycle,
+ * load scheduling through the {@link LoadScheduler} and event routing through {@link AdEvents}.
+ * The platform adapter owns the SDK object, forwards its callbacks to the {@code onAd} methods
+ * and exposes it to the controller as a {@link FullScreenAdSdk}.
+ *
+ * @param <R> The SDK's ad request type.
+ */
+public class FullScreenAdController<R> {
+
+    /**
+     * Time after {@link #show()} within which the SDK must open the ad. A later load assumes the
+     * show was lost if it didn't, since the SDK doesn't call back when it shows nothing.
+     */
+    static final long SHOW_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Name of the ad format, used in log messages.
+     */
+    private final String mFormatName;
+
+    private final UiThread mUiThread;
+
+    private final FullScreenAdSdk<R> mSdk;
+
+    /**
+     * Listener receiving events that are not routed through {@link AdEvents}, if any.
+     */
+    private final UnityAdEventListener mListener;
+
+    /**
+     * The lifecycle state of the ad, readable from any thread.
+     */
+    private final AdState mState = new AdState();
+
+    /**
+     * Process-unique ID used to tag this ad's events when they are routed through
+     * {@link AdEvents}.
+     */
+    private final int mAdId = AdEvents.nextAdId();
+
+    /**
+     * The loads of this ad through the {@link LoadScheduler}.
+     */
+    private final ScheduledLoad mScheduledLoad;
+
+    /**
+     * Names of the trace spans around loading and showing the ad.
+     */
+    private final String mLoadSpanName;
+
+    private final String mShowSpanName;
+
+    /**
+     * The time {@link #show()} was last called, in milliseconds since the epoch, or 0 once the ad
+     * has opened.
+     */
+    private volatile long mShowRequestedMillis;
+
+    /**
+     * Creates a controller for a single full screen ad.
+     *
+     * @param formatName   Name of the ad format, such as "Interstitial", used in log messages.
+     * @param loadPriority One of the {@link LoadScheduler} {@code PRIORITY_} constants.
+     * @param uiThread     The thread on which {@code sdk} is called.
+     * @param sdk          The SDK ad driven by this controller.
+     * @param listener     Listener receiving events not routed through {@link AdEvents}, or
+     *                     {@code null}.
+     */
+    public FullScreenAdController(String formatName, int loadPriority, UiThread uiThread,
+                                  FullScreenAdSdk<R> sdk, UnityAdEventListener listener) {
+        mFormatName = formatName;
+        mUiThread = uiThread;
+        mSdk = sdk;
+        mListener = listener;
+        mScheduledLoad = new ScheduledLoad(loadPriority, uiThread);
+        mLoadSpanName = "AdsUnity: " + formatName + " loadAd";
+        mShowSpanName = "AdsUnity: " + formatName + " show";
+        TimelineRecorder.record(mAdId, TimelineRecorder.KIND_CREATE, loadPriority);
+    }
+
+    /**
+     * Queues an ad load with the {@link LoadScheduler}.
+     *
+     * @param request  The ad request with targeting parameters.
+     * @param adUnitId The ad unit to load, or {@code null} if the ad unit was set when the ad was
+     *                 created.
+     * @return {@code false} if the ad is being shown and can't be loaded. The load then fails
+     *         with {@link AdErrors#ERROR_CODE_INVALID_REQUEST} so Unity still gets a callback.
+     */
+    public boolean loadAd(final R request, final String adUnitId) {
+        TimelineRecorder.record(mAdId, TimelineRecorder.KIND_LOAD, 0);
+        if (!mState.moveTo(AdState.LOADING)
+                && !(recoverLostShow() && mState.moveTo(AdState.LOADING))) {
+            PluginLog.w("{} cannot be loaded while it is being shown.", mFormatName);
+            dispatch(AdEvents.EVENT_AD_FAILED_TO_LOAD, AdErrors.ERROR_CODE_INVALID_REQUEST,
+                    "Ad is being shown");
+            return false;
+        }
+        mScheduledLoad.submit(new Runnable() {
+            @Override
+            public void run() {
+                PluginTrace.Tracer tracer = PluginTrace.begin(mLoadSpanName);
+                try {
+                    mSdk.load(request, adUnitId);
+                } finally {
+                    PluginTrace.end(tracer);
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Shows the ad if it has loaded.
+     *
+     * @return {@code false} if the ad was not ready to be shown.
+     */
+    public boolean show() {
+        TimelineRecorder.record(mAdId, TimelineRecorder.KIND_SHOW, 0);
+        if (!mState.moveTo(AdState.SHOWING)) {
+            PluginLog.w("{} is not ready to be shown.", mFormatName);
+            return false;
+        }
+        mShowRequestedMillis = System.currentTimeMillis();
+        mUiThread.post(new Runnable() {
+            @Override
+            public void run() {
+                PluginTrace.Tracer tracer = PluginTrace.begin(mShowSpanName);
+                try {
+                    if (mSdk.isLoaded()) {
+                        mSdk.show();
+                    } else {
+                        mState.moveTo(AdState.FAILED);
+                        PluginLog.w("{} is not ready to be shown.", mFormatName);
+                    }
+                } finally {
+                    PluginTrace.end(tracer);
+                }
+            }
+        });
+        return true;
+    }
+
+    public void onAdLoaded() {
+        mState.moveTo(AdState.READY);
+        mScheduledLoad.finish();
+        dispatch(AdEvents.EVENT_AD_LOADED, 0, null);
+    }
+
+    public void onAdFailedToLoad(int errorCode) {
+        mState.moveTo(AdState.FAILED);
+        mScheduledLoad.finish();
+        dispatch(AdEvents.EVENT_AD_FAILED_TO_LOAD, errorCode, AdErrors.getErrorReason(errorCode));
+    }
+
+    public void onAdOpened() {
+        mShowRequestedMillis = 0;
+        dispatch(AdEvents.EVENT_AD_OPENED, 0, null);
+    }
+
+    public void onAdStarted() {
+        dispatch(AdEvents.EVENT_AD_STARTED, 0, null);
+    }
+
+    public void onAdClosed() {
+        mState.moveTo(AdState.CLOSED);
+        dispatch(AdEvents.EVENT_AD_CLOSED, 0, null);
+    }
+
+    public void onAdRewarded(String type, int amount) {
+        dispatch(AdEvents.EVENT_AD_REWARDED, amount, type);
+    }
+
+    public void onAdLeftApplication() {
+        dispatch(AdEvents.EVENT_AD_LEFT_APPLICATION, 0, null);
+    }
+
+    public void onAdCompleted() {
+        dispatch(AdEvents.EVENT_AD_COMPLETED, 0, null);
+    }
+
+    /**
+     * Moves an ad stuck in {@link AdState#SHOWING} to {@link AdState#FAILED} if the SDK didn't
+     * open it within {@link #SHOW_TIMEOUT_MILLIS}, for example because it had expired or the app
+     * was in the background.
+     *
+     * @return {@code true} if the ad was stuck and can be loaded again.
+     */
+    private boolean recoverLostShow() {
+        long requestedMillis = mShowRequestedMillis;
+        if (mState.get() != AdState.SHOWING || requestedMillis == 0
+                || System.currentTimeMillis() - requestedMillis < SHOW_TIMEOUT_MILLIS) {
+            return false;
+        }
+        PluginLog.w("{} was never opened after show(), loading it again.", mFormatName);
+        mShowRequestedMillis = 0;
+        return mState.moveTo(AdState.FAILED);
+    }
+
+    private void dispatch(int eventCode, int intArg, String stringArg) {
+        TimelineRecorder.record(mAdId, TimelineRecorder.KIND_CALLBACK + eventCode, intArg);
+        AdEvents.dispatch(mAdId, eventCode, intArg, stringArg, mListener);
+    }
+
+    /**
+     * Returns the process-unique ID that tags this ad's events.
+     */
+    public int getAdId() {
+        return mAdId;
+    }
+
+    /**
+     * Returns {@code true} if the ad has loaded and has not been shown yet.
+     */
+    public boolean isLoaded() {
+        return mState.get() == AdState.READY;
+    }
+
+    /**
+     * Returns the lifecycle state of the ad as one of the {@link AdState} constants. Safe to call
+     * from any thread.
+     */
+    public int getState() {
+        return mState.get();
+    }
+
+    /**
+     * Gives the ad a slot on the {@link AdStatusBoard}, which mirrors its state for Unity to read
+     * without JNI calls.
+     *
+     * @return The slot index, or -1 if the board is not enabled or has no free slot.
+     */
+    public int registerWithStatusBoard() {
+        return mState.attachToStatusBoard(mAdId);
+    }
+
+    /**
+     * Returns the number of invalid state transitions that were rejected, such as showing the ad
+     * twice.
+     */
+    public int getRejectedTransitionCount() {
+        return mState.getRejectedTransitionCount();
+    }
+
+    /**
+     * Releases the load slot and status board slot held by the ad.
+     */
+    public void destroy() {
+        TimelineRecorder.record(mAdId, TimelineRecorder.KIND_DESTROY, 0);
+        mScheduledLoad.finish();
+        mState.detachFromStatusBoard();
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * The part of the ad SDK a {@link FullScreenAdController} drives. Every method is called on the
+ * {@link UiThread}.
+ *
+ * @param <R> The SDK's ad request type.
+ */
+public interface FullScreenAdSdk<R> {
+
+    /**
+     * Requests an ad.
+     *
+     * @param request  The ad request with targeting parameters.
+     * @param adUnitId The ad unit to load, or {@code null} if the ad unit was set when the ad was
+     *                 created.
+     */
+    void load(R request, String adUnitId);
+
+    /**
+     * Returns {@code true} if the SDK has an ad ready to be shown.
+     */
+    boolean isLoaded();
+
+    /**
+     * Shows the loaded ad.
+     */
+    void show();
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * Process-wide scheduler that every ad load issued by the Google Mobile Ads Unity plugin goes
+ * through. It caps the number of loads in flight and admits pending loads in priority order so
+ * that banners, interstitials, reward based videos and native ads don't compete for a slow
+ * network at startup.
+ *
+ * <p>Within a priority loads are admitted first in, first out. To keep low priority loads from
+ * starving, a pending load is promoted by one priority level for every aging interval it has
+ * waited.
+ */
+public class LoadScheduler {
+
+    /**
+     * Priority for reward based video ad loads.
+     */
+    public static final int PRIORITY_REWARDED = 0;
+
+    /**
+     * Priority for interstitial ad loads.
+     */
+    public static final int PRIORITY_INTERSTITIAL = 1;
+
+    /**
+     * Priority for native ad loads.
+     */
+    public static final int PRIORITY_NATIVE = 2;
+
+    /**
+     * Priority for banner loads and refreshes.
+     */
+    public static final int PRIORITY_BANNER = 3;
+
+    /**
+     * Number of priority levels.
+     */
+    private static final int PRIORITY_COUNT = 4;
+
+    /**
+     * Default number of loads allowed in flight at the same time.
+     */
+    private static final int DEFAULT_MAX_CONCURRENT_LOADS = 2;
+
+    /**
+     * Default time a pending load waits before being promoted by one priority level.
+     */
+    private static final long DEFAULT_AGING_MILLIS = 3000;
+
+    /**
+     * Default time after which an in-flight load that never reported back releases its slot.
+     */
+    private static final long DEFAULT_LOAD_TIMEOUT_MILLIS = 60000;
+
+    private static final LoadScheduler sInstance = new LoadScheduler();
+
+    /**
+     * Pending loads, one first in, first out queue per priority.
+     */
+    private final ArrayDeque<Ticket>[] mPending;
+
+    /**
+     * Loads that have been admitted and have not finished yet.
+     */
+    private final ArrayList<Ticket> mInFlight = new ArrayList<>();
+
+    /**
+     * Sum of the time loads of each priority spent in the queue, in milliseconds.
+     */
+    private final long[] mTotalWaitMillis = new long[PRIORITY_COUNT];
+
+    /**
+     * Longest time a load of each priority spent in the queue, in milliseconds.
+     */
+    private final long[] mMaxWaitMillis = new long[PRIORITY_COUNT];
+
+    /**
+     * Number of admitted loads of each priority.
+     */
+    private final long[] mAdmittedCount = new long[PRIORITY_COUNT];
+
+    private int mMaxConcurrentLoads = DEFAULT_MAX_CONCURRENT_LOADS;
+
+    /**
+     * The {@link DeviceConditionPolicy} level scaling down {@link #mMaxConcurrentLoads}.
+     */
+    private int mPolicyLevel = DeviceConditionPolicy.LEVEL_FULL;
+
+    private long mAgingMillis = DEFAULT_AGING_MILLIS;
+
+    private long mLoadTimeoutMillis = DEFAULT_LOAD_TIMEOUT_MILLIS;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    LoadScheduler() {
+        mPending = new ArrayDeque[PRIORITY_COUNT];
+        for (int i = 0; i < PRIORITY_COUNT; i++) {
+            mPending[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Returns the scheduler shared by all ad formats.
+     */
+    public static LoadScheduler getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Queues an ad load. The load runs on the thread that admits it, which is either the calling
+     * thread or the thread finishing an earlier load, so it should only post work to the UI
+     * thread.
+     *
+     * @param priority One of the {@code PRIORITY_} constants.
+     * @param load     The work that starts the network load.
+     * @return A {@link Ticket} that must be finished once the load succeeds or fails.
+     */
+    public Ticket submit(int priority, Runnable load) {
+        if (priority < 0 || priority >= PRIORITY_COUNT) {
+            throw new IllegalArgumentException("Invalid load priority: " + priority);
+        }
+        Ticket ticket = new Ticket(this, priority, load);
+        synchronized (this) {
+            mPending[priority].addLast(ticket);
+        }
+        admitPending();
+        return ticket;
+    }
+
+    /**
+     * Sets the maximum number of loads allowed in flight at the same time. While the device is
+     * constrained, the {@link DeviceConditionPolicy} may allow fewer.
+     */
+    public void setMaxConcurrentLoads(int maxConcurrentLoads) {
+        if (maxConcurrentLoads < 1) {
+            throw new IllegalArgumentException("At least one concurrent load is required.");
+        }
+        synchronized (this) {
+            mMaxConcurrentLoads = maxConcurrentLoads;
+        }
+        admitPending();
+    }
+
+    /**
+     * Scales the limit set with {@link #setMaxConcurrentLoads(int)} down for a
+     * {@link DeviceConditionPolicy} level, without changing that limit.
+     */
+    void setPolicyLevel(int level) {
+        synchronized (this) {
+            mPolicyLevel = level;
+        }
+        admitPending();
+    }
+
+    /**
+     * Sets the time a pending load waits before being promoted by one priority level.
+     */
+    public synchronized void setAgingMillis(long agingMillis) {
+        mAgingMillis = Math.max(1, agingMillis);
+    }
+
+    /**
+     * Sets the time after which an in-flight load that never reported back releases its slot.
+     */
+    public synchronized void setLoadTimeoutMillis(long loadTimeoutMillis) {
+        mLoadTimeoutMillis = Math.max(1, loadTimeoutMillis);
+    }
+
+    /**
+     * Returns the maximum number of loads allowed in flight at the same time, as set with
+     * {@link #setMaxConcurrentLoads(int)}.
+     */
+    public synchronized int getMaxConcurrentLoads() {
+        return mMaxConcurrentLoads;
+    }
+
+    /**
+     * Returns the number of loads currently allowed in flight at the same time, after the cap of
+     * the {@link DeviceConditionPolicy}.
+     */
+    public synchronized int getEffectiveMaxConcurrentLoads() {
+        return DeviceConditionPolicy.scaleDown(mMaxConcurrentLoads, mPolicyLevel);
+    }
+
+    /**
+     * Returns the number of loads currently in flight.
+     */
+    public synchronized int getInFlightCount() {
+        return mInFlight.size();
+    }
+
+    /**
+     * Returns the number of loads of the given priority waiting to be admitted.
+     */
+    public synchronized int getPendingCount(int priority) {
+        return mPending[priority].size();
+    }
+
+    /**
+     * Returns the number of loads of the given priority admitted so far.
+     */
+    public synchronized long getAdmittedCount(int priority) {
+        return mAdmittedCount[priority];
+    }
+
+    /**
+     * Returns the average time loads of the given priority waited before being admitted, in
+     * milliseconds.
+     */
+    public synchronized long getAverageQueueWaitMillis(int priority) {
+        long count = mAdmittedCount[priority];
+        return count == 0 ? 0 : mTotalWaitMillis[priority] / count;
+    }
+
+    /**
+     * Returns the longest time a load of the given priority waited before being admitted, in
+     * milliseconds.
+     */
+    public synchronized long getMaxQueueWaitMillis(int priority) {
+        return mMaxWaitMillis[priority];
+    }
+
+    /**
+     * Admits pending loads until the concurrency limit is reached. Loads are started outside of
+     * the lock.
+     */
+    private void admitPending() {
+        while (true) {
+            Ticket next;
+            synchronized (this) {
+                long now = System.nanoTime();
+                expireInFlight(now);
+                if (mInFlight.size()
+                        >= DeviceConditionPolicy.scaleDown(mMaxConcurrentLoads, mPolicyLevel)) {
+                    return;
+                }
+                next = pollNext(now);
+                if (next == null) {
+                    return;
+                }
+                long waitMillis = (now - next.mSubmitTimeNanos) / 1000000;
+                mTotalWaitMillis[next.mPriority] += waitMillis;
+                mMaxWaitMillis[next.mPriority] = Math.max(mMaxWaitMillis[next.mPriority],
+                        waitMillis);
+                mAdmittedCount[next.mPriority]++;
+                next.mAdmitTimeNanos = now;
+                next.mState = Ticket.STATE_IN_FLIGHT;
+                mInFlight.add(next);
+            }
+            next.mLoad.run();
+        }
+    }
+
+    /**
+     * Removes and returns the pending load with the best effective priority, where each aging
+     * interval waited counts as one priority level. Ties go to the load that was queued first.
+     */
+    private Ticket pollNext(long now) {
+        int bestPriority = -1;
+        long bestScore = Long.MAX_VALUE;
+        long agingNanos = mAgingMillis * 1000000;
+        for (int i = 0; i < PRIORITY_COUNT; i++) {
+            Ticket head = mPending[i].peekFirst();
+            if (head == null) {
+                continue;
+            }
+            long promotions = (now - head.mSubmitTimeNanos) / agingNanos;
+            long score = i - promotions;
+            if (score < bestScore || (score == bestScore
+                    && head.mSubmitTimeNanos < mPending[bestPriority].peekFirst()
+                            .mSubmitTimeNanos)) {
+                bestScore = score;
+                bestPriority = i;
+            }
+        }
+        return bestPriority == -1 ? null : mPending[bestPriority].pollFirst();
+    }
+
+    /**
+     * Releases the slots of in-flight loads that have not reported back within the load
+     * timeout.
+     */
+    private void expireInFlight(long now) {
+        long timeoutNanos = mLoadTimeoutMillis * 1000000;
+        for (int i = mInFlight.size() - 1; i >= 0; i--) {
+            Ticket ticket = mInFlight.get(i);
+            if (now - ticket.mAdmitTimeNanos > timeoutNanos) {
+                ticket.mState = Ticket.STATE_DONE;
+                mInFlight.remove(i);
+            }
+        }
+    }
+
+    private void finish(Ticket ticket) {
+        synchronized (this) {
+            switch (ticket.mState) {
+                case Ticket.STATE_PENDING:
+                    mPending[ticket.mPriority].remove(ticket);
+                    ticket.mState = Ticket.STATE_DONE;
+                    return;
+                case Ticket.STATE_IN_FLIGHT:
+                    mInFlight.remove(ticket);
+                    ticket.mState = Ticket.STATE_DONE;
+                    break;
+                default:
+                    return;
+            }
+        }
+        admitPending();
+    }
+
+    /**
+     * A load queued with the {@link LoadScheduler}.
+     */
+    public static class Ticket {
+
+        private static final int STATE_PENDING = 0;
+
+        private static final int STATE_IN_FLIGHT = 1;
+
+        private static final int STATE_DONE = 2;
+
+        private final LoadScheduler mScheduler;
+
+        private final int mPriority;
+
+        private final Runnable mLoad;
+
+        private final long mSubmitTimeNanos;
+
+        private long mAdmitTimeNanos;
+
+        /**
+         * Guarded by the scheduler lock.
+         */
+        private int mState;
+
+        private Ticket(LoadScheduler scheduler, int priority, Runnable load) {
+            this.mScheduler = scheduler;
+            this.mPriority = priority;
+            this.mLoad = load;
+            this.mSubmitTimeNanos = System.nanoTime();
+            this.mState = STATE_PENDING;
+        }
+
+        /**
+         * Marks the load as finished, releasing its slot to the next pending load. If the load
+         * has not been admitted yet it is dropped from the queue instead. Calling this more than
+         * once has no effect.
+         */
+        public void finish() {
+            mScheduler.finish(this);
+        }
+    }
+}
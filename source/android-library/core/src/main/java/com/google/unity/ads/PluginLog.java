@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * Logging for the Google Mobile Ads Unity plugin. Messages go to a {@link Sink}, which the Android
+ * module points at logcat. Until a sink is set they are written to {@code System.err}.
+ *
+ * <p>Messages below the level set with {@link #setLevel(int)} are dropped before anything is
+ * built, so at the default level of {@link #WARN} debug and info calls allocate nothing. To keep
+ * it that way, pass dynamic values as arguments to a constant pattern, where each {@code {}} is
+ * replaced by the next argument, instead of concatenating them into the message:
+ *
+ * <pre>
+ *   PluginLog.d("Calling setRefreshInterval() on Android: {}", interval);
+ * </pre>
+ *
+ * Messages that repeat quickly, such as a warning for a call Unity makes every frame, are rate
+ * limited per pattern. The first message let through after a burst reports how many were
+ * suppressed.
+ */
+public final class PluginLog {
+
+    /**
+     * Tag used for logging statements.
+     */
+    public static final String TAG = "AdsUnity";
+
+    /**
+     * Level for debug messages. The level values match {@code android.util.Log} priorities.
+     */
+    public static final int DEBUG = 3;
+
+    /**
+     * Level for informational messages.
+     */
+    public static final int INFO = 4;
+
+    /**
+     * Level for warnings.
+     */
+    public static final int WARN = 5;
+
+    /**
+     * Level for errors.
+     */
+    public static final int ERROR = 6;
+
+    /**
+     * Level that turns logging off.
+     */
+    public static final int NONE = 7;
+
+    /**
+     * Default number of messages with the same pattern let through per rate limit window.
+     */
+    private static final int DEFAULT_RATE_LIMIT_COUNT = 5;
+
+    private static final long DEFAULT_RATE_LIMIT_WINDOW_MILLIS = 10000;
+
+    /**
+     * Number of patterns whose rate is tracked at the same time. When the table is full, the
+     * least recently seen pattern in the probed slots is forgotten.
+     */
+    private static final int RATE_TABLE_SIZE = 64;
+
+    private static final int RATE_TABLE_PROBES = 4;
+
+    /**
+     * Destination of log messages.
+     */
+    public interface Sink {
+        void write(int level, String tag, String message);
+    }
+
+    private static final Sink SYSTEM_ERR_SINK = new Sink() {
+        @Override
+        public void write(int level, String tag, String message) {
+            System.err.println(tag + ": " + message);
+        }
+    };
+
+    private static volatile Sink sSink = SYSTEM_ERR_SINK;
+
+    private static volatile int sLevel = WARN;
+
+    private static volatile int sRateLimitCount = DEFAULT_RATE_LIMIT_COUNT;
+
+    private static volatile long sRateLimitWindowNanos = DEFAULT_RATE_LIMIT_WINDOW_MILLIS * 1000000;
+
+    /**
+     * Rate limit state per pattern, guarded by {@link #sRateLock}.
+     */
+    private static final String[] sRatePatterns = new String[RATE_TABLE_SIZE];
+
+    private static final long[] sRateWindowStarts = new long[RATE_TABLE_SIZE];
+
+    private static final int[] sRateCounts = new int[RATE_TABLE_SIZE];
+
+    private static final int[] sRateSuppressed = new int[RATE_TABLE_SIZE];
+
+    private static final Object sRateLock = new Object();
+
+    private PluginLog() {
+    }
+
+    /**
+     * Sends all subsequent messages to {@code sink}. Pass {@code null} to go back to
+     * {@code System.err}.
+     */
+    public static void setSink(Sink sink) {
+        sSink = sink != null ? sink : SYSTEM_ERR_SINK;
+    }
+
+    /**
+     * Drops all subsequent messages below {@code level}, one of {@link #DEBUG}, {@link #INFO},
+     * {@link #WARN}, {@link #ERROR} or {@link #NONE}. Defaults to {@link #WARN}.
+     */
+    public static void setLevel(int level) {
+        sLevel = level;
+    }
+
+    public static int getLevel() {
+        return sLevel;
+    }
+
+    /**
+     * Returns {@code true} if messages of {@code level} are logged, for callers that need to do
+     * work to build a message.
+     */
+    public static boolean isLoggable(int level) {
+        return level >= sLevel;
+    }
+
+    /**
+     * Lets through at most {@code maxMessages} messages with the same pattern per
+     * {@code windowMillis}. Pass 0 for {@code maxMessages} to turn rate limiting off.
+     */
+    public static void setRateLimit(int maxMessages, long windowMillis) {
+        sRateLimitWindowNanos = windowMillis * 1000000;
+        sRateLimitCount = maxMessages;
+    }
+
+    public static void d(String message) {
+        if (DEBUG >= sLevel) {
+            log(DEBUG, message, 0, null, null);
+        }
+    }
+
+    public static void d(String pattern, Object arg) {
+        if (DEBUG >= sLevel) {
+            log(DEBUG, pattern, 1, arg, null);
+        }
+    }
+
+    public static void d(String pattern, Object arg1, Object arg2) {
+        if (DEBUG >= sLevel) {
+            log(DEBUG, pattern, 2, arg1, arg2);
+        }
+    }
+
+    public static void d(String pattern, int arg) {
+        if (DEBUG >= sLevel) {
+            log(DEBUG, pattern, 1, arg, null);
+        }
+    }
+
+    public static void d(String pattern, float arg) {
+        if (DEBUG >= sLevel) {
+            log(DEBUG, pattern, 1, arg, null);
+        }
+    }
+
+    public static void i(String message) {
+        if (INFO >= sLevel) {
+            log(INFO, message, 0, null, null);
+        }
+    }
+
+    public static void i(String pattern, Object arg) {
+        if (INFO >= sLevel) {
+            log(INFO, pattern, 1, arg, null);
+        }
+    }
+
+    public static void i(String pattern, Object arg1, Object arg2) {
+        if (INFO >= sLevel) {
+            log(INFO, pattern, 2, arg1, arg2);
+        }
+    }
+
+    public static void i(String pattern, int arg) {
+        if (INFO >= sLevel) {
+            log(INFO, pattern, 1, arg, null);
+        }
+    }
+
+    public static void w(String message) {
+        if (WARN >= sLevel) {
+            log(WARN, message, 0, null, null);
+        }
+    }
+
+    public static void w(String pattern, Object arg) {
+        if (WARN >= sLevel) {
+            log(WARN, pattern, 1, arg, null);
+        }
+    }
+
+    public static void w(String pattern, Object arg1, Object arg2) {
+        if (WARN >= sLevel) {
+            log(WARN, pattern, 2, arg1, arg2);
+        }
+    }
+
+    public static void w(String pattern, int arg) {
+        if (WARN >= sLevel) {
+            log(WARN, pattern, 1, arg, null);
+        }
+    }
+
+    public static void e(String message) {
+        if (ERROR >= sLevel) {
+            log(ERROR, message, 0, null, null);
+        }
+    }
+
+    public static void e(String pattern, Object arg) {
+        if (ERROR >= sLevel) {
+            log(ERROR, pattern, 1, arg, null);
+        }
+    }
+
+    private static void log(int level, String pattern, int argCount, Object arg1, Object arg2) {
+        int suppressed = admit(pattern);
+        if (suppressed < 0) {
+            return;
+        }
+        String message = argCount == 0 ? pattern : format(pattern, argCount, arg1, arg2);
+        if (suppressed > 0) {
+            message = message + " (" + suppressed + " similar messages suppressed)";
+        }
+        sSink.write(level, TAG, message);
+    }
+
+    /**
+     * Applies the rate limit to a message with {@code pattern}.
+     *
+     * @return -1 if the message is suppressed, otherwise the number of messages with the same
+     * pattern suppressed since the last one let through.
+     */
+    private static int admit(String pattern) {
+        int limit = sRateLimitCount;
+        if (limit <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        synchronized (sRateLock) {
+            int home = (System.identityHashCode(pattern) & 0x7fffffff) % RATE_TABLE_SIZE;
+            int slot = -1;
+            int oldest = home;
+            for (int i = 0; i < RATE_TABLE_PROBES; i++) {
+                int probe = (home + i) % RATE_TABLE_SIZE;
+                if (sRatePatterns[probe] == pattern || sRatePatterns[probe] == null) {
+                    slot = probe;
+                    break;
+                }
+                if (sRateWindowStarts[probe] - sRateWindowStarts[oldest] < 0) {
+                    oldest = probe;
+                }
+            }
+            if (slot < 0 || sRatePatterns[slot] == null) {
+                slot = slot < 0 ? oldest : slot;
+                sRatePatterns[slot] = pattern;
+                sRateWindowStarts[slot] = now;
+                sRateCounts[slot] = 1;
+                sRateSuppressed[slot] = 0;
+                return 0;
+            }
+            if (now - sRateWindowStarts[slot] >= sRateLimitWindowNanos) {
+                int suppressed = sRateSuppressed[slot];
+                sRateWindowStarts[slot] = now;
+                sRateCounts[slot] = 1;
+                sRateSuppressed[slot] = 0;
+                return suppressed;
+            }
+            if (sRateCounts[slot] < limit) {
+                sRateCounts[slot]++;
+                return 0;
+            }
+            sRateSuppressed[slot]++;
+            return -1;
+        }
+    }
+
+    /**
+     * Replaces the first {@code argCount} {@code {}} in {@code pattern} with {@code arg1} and
+     * {@code arg2}.
+     */
+    private static String format(String pattern, int argCount, Object arg1, Object arg2) {
+        StringBuilder builder = new StringBuilder(pattern.length() + 16);
+        int start = 0;
+        int argIndex = 0;
+        while (argIndex < argCount) {
+            int placeholder = pattern.indexOf("{}", start);
+            if (placeholder < 0) {
+                break;
+            }
+            builder.append(pattern, start, placeholder);
+            builder.append(argIndex == 0 ? arg1 : arg2);
+            start = placeholder + 2;
+            argIndex++;
+        }
+        builder.append(pattern, start, pattern.length());
+        return builder.toString();
+    }
+}
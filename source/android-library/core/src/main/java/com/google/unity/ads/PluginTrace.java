@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * Trace spans around plugin operations and SDK callbacks, so ad work can be lined up with the
+ * game's frame traces. Spans go to a pluggable {@link Tracer}: on Android, {@code SystemTracer}
+ * emits {@code android.os.Trace} sections, and {@link TraceRing} keeps them in memory for a
+ * Chrome trace dump.
+ *
+ * <p>Spans are opened and closed on the same thread:
+ *
+ * <pre>
+ *   PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity.Banner.show");
+ *   try {
+ *       ...
+ *   } finally {
+ *       PluginTrace.end(tracer);
+ *   }
+ * </pre>
+ *
+ * Span names are string constants, so while no tracer is set a span costs a volatile read and
+ * two null checks, and allocates nothing.
+ */
+public final class PluginTrace {
+
+    /**
+     * Destination of trace spans. Sections nest per thread, as with {@code android.os.Trace}.
+     */
+    public interface Tracer {
+        void beginSection(String name);
+
+        void endSection();
+    }
+
+    private static volatile Tracer sTracer;
+
+    private PluginTrace() {
+    }
+
+    /**
+     * Sends all subsequent spans to {@code tracer}. Pass {@code null} to stop tracing. Spans
+     * already open are closed on the tracer they were opened on.
+     */
+    public static void setTracer(Tracer tracer) {
+        sTracer = tracer;
+    }
+
+    /**
+     * Stops tracing. Equivalent to {@code setTracer(null)}, for callers such as Unity that can't
+     * pass {@code null} through JNI.
+     */
+    public static void disable() {
+        sTracer = null;
+    }
+
+    /**
+     * Returns the current tracer, or {@code null} if tracing is off.
+     */
+    public static Tracer getTracer() {
+        return sTracer;
+    }
+
+    /**
+     * Opens a span on the current thread.
+     *
+     * @param name The name of the span. Should be a constant, so that building it doesn't
+     *             allocate when tracing is off.
+     * @return The tracer the span was opened on, to be passed to {@link #end(Tracer)}, or
+     * {@code null} if tracing is off.
+     */
+    public static Tracer begin(String name) {
+        Tracer tracer = sTracer;
+        if (tracer != null) {
+            tracer.beginSection(name);
+        }
+        return tracer;
+    }
+
+    /**
+     * Closes the span opened by the {@link #begin(String)} call that returned {@code tracer}.
+     */
+    public static void end(Tracer tracer) {
+        if (tracer != null) {
+            tracer.endSection();
+        }
+    }
+}
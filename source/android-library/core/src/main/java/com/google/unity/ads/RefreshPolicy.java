@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * Adapts the refresh interval of a banner to how its loads go. The interval starts at the
+ * configured interval, which is also its floor. It is stretched after failed or slow loads, up to
+ * {@link #MAX_STRETCH} times the floor, and shrunk back toward the floor after fast fills.
+ *
+ * <p>Refreshes of all banners also share a {@link RateLimiter}, which caps the total request
+ * rate. Methods can be called from any thread.
+ */
+public final class RefreshPolicy {
+
+    public static final String REASON_CONFIGURED = "configured";
+
+    public static final String REASON_FAILED_LOAD = "failed load";
+
+    public static final String REASON_SLOW_FILL = "slow fill";
+
+    public static final String REASON_FAST_FILL = "fast fill";
+
+    public static final String REASON_RATE_CAPPED = "request rate cap";
+
+    public static final String REASON_NOT_VIEWABLE = "not viewable";
+
+    /**
+     * The interval is never stretched beyond this multiple of the configured interval.
+     */
+    static final int MAX_STRETCH = 8;
+
+    /**
+     * Loads that take longer than this are slow, in milliseconds.
+     */
+    static final long SLOW_FILL_MILLIS = 2000;
+
+    private static final float FAILED_LOAD_FACTOR = 2f;
+
+    private static final float SLOW_FILL_FACTOR = 1.5f;
+
+    private static final float FAST_FILL_FACTOR = 0.75f;
+
+    private long mFloorMillis;
+
+    private long mIntervalMillis;
+
+    private String mReason = REASON_CONFIGURED;
+
+    /**
+     * Sets the configured interval, which is also the floor, and resets the interval to it.
+     */
+    public synchronized void setInterval(long intervalMillis) {
+        mFloorMillis = intervalMillis;
+        mIntervalMillis = intervalMillis;
+        mReason = REASON_CONFIGURED;
+    }
+
+    /**
+     * Adapts the interval to a load that took {@code latencyMillis}.
+     *
+     * @param filled {@code true} if an ad was loaded, {@code false} if the load failed.
+     */
+    public synchronized void onLoadFinished(long latencyMillis, boolean filled) {
+        if (mFloorMillis == 0) {
+            return;
+        }
+        if (!filled) {
+            scale(FAILED_LOAD_FACTOR, REASON_FAILED_LOAD);
+        } else if (latencyMillis > SLOW_FILL_MILLIS) {
+            scale(SLOW_FILL_FACTOR, REASON_SLOW_FILL);
+        } else if (mIntervalMillis > mFloorMillis) {
+            scale(FAST_FILL_FACTOR, REASON_FAST_FILL);
+        }
+    }
+
+    /**
+     * Records that a refresh was held back, without changing the interval.
+     *
+     * @param reason {@link #REASON_RATE_CAPPED} or {@link #REASON_NOT_VIEWABLE}.
+     */
+    public synchronized void onRefreshHeldBack(String reason) {
+        mReason = reason;
+    }
+
+    /**
+     * Returns the current interval, in milliseconds, or 0 if refreshing is off.
+     */
+    public synchronized long getIntervalMillis() {
+        return mIntervalMillis;
+    }
+
+    /**
+     * Returns why the interval last changed or a refresh was last held back, one of the
+     * {@code REASON_} constants.
+     */
+    public synchronized String getReason() {
+        return mReason;
+    }
+
+    private void scale(float factor, String reason) {
+        long interval = (long) (mIntervalMillis * factor);
+        mIntervalMillis = Math.max(mFloorMillis, Math.min(interval, mFloorMillis * MAX_STRETCH));
+        mReason = reason;
+    }
+
+    /**
+     * A token bucket capping the rate of requests shared by several ads. It holds up to one
+     * minute's worth of requests, refilled continuously.
+     */
+    public static final class RateLimiter {
+
+        private static final long NANOS_PER_MINUTE = 60L * 1000 * 1000 * 1000;
+
+        private int mRequestsPerMinute;
+
+        private double mTokens;
+
+        private long mLastRefillNanos;
+
+        /**
+         * @param requestsPerMinute The maximum rate of requests, 0 for no limit.
+         */
+        public RateLimiter(int requestsPerMinute) {
+            setRequestsPerMinute(requestsPerMinute);
+        }
+
+        public synchronized void setRequestsPerMinute(int requestsPerMinute) {
+            if (requestsPerMinute < 0) {
+                throw new IllegalArgumentException("Negative request rate: " + requestsPerMinute);
+            }
+            mRequestsPerMinute = requestsPerMinute;
+            mTokens = requestsPerMinute;
+            mLastRefillNanos = 0;
+        }
+
+        /**
+         * Takes a request from the bucket.
+         *
+         * @return 0 if the request may be made now, else the milliseconds until it may.
+         */
+        public synchronized long tryAcquire(long nowNanos) {
+            if (mRequestsPerMinute == 0) {
+                return 0;
+            }
+            if (mLastRefillNanos != 0) {
+                double refill = (double) (nowNanos - mLastRefillNanos) * mRequestsPerMinute
+                        / NANOS_PER_MINUTE;
+                mTokens = Math.min(mRequestsPerMinute, mTokens + Math.max(0, refill));
+            }
+            mLastRefillNanos = nowNanos;
+            if (mTokens >= 1) {
+                mTokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - mTokens) * 60000 / mRequestsPerMinute);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * The loads of a single ad, queued with the {@link LoadScheduler} and run on the ad's UI thread
+ * once admitted. Submitting a load replaces any load of the same ad still in progress.
+ *
+ * <p>The runnable handed to the scheduler is allocated once per ad, so a steady-state load or
+ * refresh only allocates its {@link LoadScheduler.Ticket}.
+ */
+public final class ScheduledLoad {
+
+    private final int mPriority;
+
+    private final UiThread mUiThread;
+
+    /**
+     * The work of the load most recently submitted.
+     */
+    private volatile Runnable mLoad;
+
+    /**
+     * The {@link LoadScheduler.Ticket} of the load in progress, if any.
+     */
+    private volatile LoadScheduler.Ticket mTicket;
+
+    private final Runnable mPostLoad = new Runnable() {
+        @Override
+        public void run() {
+            Runnable load = mLoad;
+            if (load != null) {
+                mUiThread.post(load);
+            }
+        }
+    };
+
+    /**
+     * Creates the loads of an ad.
+     *
+     * @param priority One of the {@link LoadScheduler} {@code PRIORITY_} constants.
+     * @param uiThread The thread on which loads run.
+     */
+    public ScheduledLoad(int priority, UiThread uiThread) {
+        mPriority = priority;
+        mUiThread = uiThread;
+    }
+
+    /**
+     * Queues a load, finishing any load still in progress.
+     *
+     * @param load The work to run on the UI thread once the load is admitted.
+     */
+    public void submit(Runnable load) {
+        DeviceConditionPolicy.getInstance().updateIfStale();
+        finish();
+        mLoad = load;
+        mTicket = LoadScheduler.getInstance().submit(mPriority, mPostLoad);
+    }
+
+    /**
+     * Releases the {@link LoadScheduler} slot held by the load in progress, if any. Call this once
+     * the ad has loaded or failed to load, and when the ad is destroyed.
+     */
+    public void finish() {
+        LoadScheduler.Ticket ticket = mTicket;
+        if (ticket != null) {
+            mTicket = null;
+            ticket.finish();
+        }
+    }
+}
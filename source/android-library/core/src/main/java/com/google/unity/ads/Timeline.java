@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import java.util.Arrays;
+
+/**
+ * A recording made by {@link TimelineRecorder}, decoded into parallel arrays ordered by time.
+ */
+public final class Timeline {
+
+    private final long[] mTimesMicros;
+
+    private final int[] mAdIds;
+
+    private final int[] mKinds;
+
+    private final int[] mIntArgs;
+
+    private Timeline(long[] timesMicros, int[] adIds, int[] kinds, int[] intArgs) {
+        mTimesMicros = timesMicros;
+        mAdIds = adIds;
+        mKinds = kinds;
+        mIntArgs = intArgs;
+    }
+
+    /**
+     * Decodes a recording.
+     *
+     * @throws IllegalArgumentException If {@code recording} is not a valid recording.
+     */
+    public static Timeline parse(byte[] recording) {
+        Reader reader = new Reader(recording);
+        if (recording.length < 8 || reader.readInt() != TimelineRecorder.MAGIC) {
+            throw new IllegalArgumentException("Not a timeline recording.");
+        }
+        int version = reader.readInt();
+        if (version != TimelineRecorder.VERSION) {
+            throw new IllegalArgumentException("Unsupported timeline version: " + version);
+        }
+        // Every entry takes at least four bytes.
+        int capacity = (recording.length - 8) / 4;
+        long[] times = new long[capacity];
+        int[] adIds = new int[capacity];
+        int[] kinds = new int[capacity];
+        int[] intArgs = new int[capacity];
+        int count = 0;
+        long time = 0;
+        while (reader.hasMore()) {
+            time += reader.readVarLong();
+            times[count] = time;
+            adIds[count] = (int) reader.readVarLong();
+            kinds[count] = reader.readByte();
+            int zigzag = (int) reader.readVarLong();
+            intArgs[count] = (zigzag >>> 1) ^ -(zigzag & 1);
+            count++;
+        }
+        return new Timeline(Arrays.copyOf(times, count), Arrays.copyOf(adIds, count),
+                Arrays.copyOf(kinds, count), Arrays.copyOf(intArgs, count));
+    }
+
+    /**
+     * Returns the number of events.
+     */
+    public int size() {
+        return mAdIds.length;
+    }
+
+    /**
+     * Returns the time of an event in microseconds since the recording started.
+     */
+    public long getTimeMicros(int index) {
+        return mTimesMicros[index];
+    }
+
+    public int getAdId(int index) {
+        return mAdIds[index];
+    }
+
+    /**
+     * Returns one of the {@link TimelineRecorder} {@code KIND_} values.
+     */
+    public int getKind(int index) {
+        return mKinds[index];
+    }
+
+    public int getIntArg(int index) {
+        return mIntArgs[index];
+    }
+
+    private static final class Reader {
+
+        private final byte[] mData;
+
+        private int mPosition;
+
+        Reader(byte[] data) {
+            mData = data;
+        }
+
+        boolean hasMore() {
+            return mPosition < mData.length;
+        }
+
+        int readByte() {
+            if (mPosition >= mData.length) {
+                throw new IllegalArgumentException("Truncated timeline recording.");
+            }
+            return mData[mPosition++] & 0xFF;
+        }
+
+        int readInt() {
+            return readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (shift > 63) {
+                    throw new IllegalArgumentException("Malformed timeline recording.");
+                }
+                b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Records the timeline of plugin calls and SDK callbacks of every ad into a compact binary form,
+ * so that timing problems seen in the field can be replayed offline. Recording is off by default
+ * and costs a single volatile read per event while off.
+ *
+ * <p>A recording starts with the {@link #MAGIC} and {@link #VERSION} ints, followed by one entry
+ * per event: the time since the previous entry in microseconds, the ad ID, the kind and a kind
+ * specific int argument. Numbers are stored as variable-length integers, so most entries take
+ * four or five bytes. Use {@link Timeline#parse(byte[])} to read a recording back.
+ */
+public final class TimelineRecorder {
+
+    public static final int MAGIC = 0x4144544c;
+
+    public static final int VERSION = 1;
+
+    /**
+     * An ad was created. The argument is the {@link LoadScheduler} priority of its format, which
+     * also identifies the format.
+     */
+    public static final int KIND_CREATE = 0;
+
+    public static final int KIND_LOAD = 1;
+
+    public static final int KIND_SHOW = 2;
+
+    public static final int KIND_HIDE = 3;
+
+    public static final int KIND_DESTROY = 4;
+
+    /**
+     * A banner refresh, from {@code Banner.refreshAd} or the refresh timer.
+     */
+    public static final int KIND_REFRESH = 5;
+
+    /**
+     * SDK callbacks are recorded as this value plus the {@link AdEvents} event code. The argument
+     * is the event's int argument.
+     */
+    public static final int KIND_CALLBACK = 16;
+
+    private static volatile TimelineRecorder sActive;
+
+    private final int mMaxBytes;
+
+    private byte[] mBuffer;
+
+    private int mLength;
+
+    private long mLastNanos;
+
+    private long mDroppedCount;
+
+    private TimelineRecorder(int maxBytes) {
+        mMaxBytes = maxBytes;
+        mBuffer = new byte[Math.min(maxBytes, 4096)];
+        mLastNanos = System.nanoTime();
+        writeInt(MAGIC);
+        writeInt(VERSION);
+    }
+
+    /**
+     * Starts recording, discarding any recording in progress.
+     *
+     * @param maxBytes Size limit of the recording. Events past the limit are dropped.
+     */
+    public static synchronized void start(int maxBytes) {
+        sActive = new TimelineRecorder(Math.max(maxBytes, 64));
+    }
+
+    /**
+     * Stops recording.
+     *
+     * @return The recording, or {@code null} if no recording was in progress.
+     */
+    public static synchronized byte[] stop() {
+        TimelineRecorder recorder = sActive;
+        sActive = null;
+        if (recorder == null) {
+            return null;
+        }
+        synchronized (recorder) {
+            if (recorder.mDroppedCount > 0) {
+                PluginLog.w("Timeline recording dropped {} events past its size limit.",
+                        recorder.mDroppedCount);
+            }
+            return Arrays.copyOf(recorder.mBuffer, recorder.mLength);
+        }
+    }
+
+    /**
+     * Stops recording and writes the recording to {@code path}.
+     *
+     * @return {@code false} if no recording was in progress or it could not be written.
+     */
+    public static boolean stopAndSave(String path) {
+        byte[] recording = stop();
+        if (recording == null) {
+            return false;
+        }
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(path);
+            out.write(recording);
+            return true;
+        } catch (IOException exception) {
+            PluginLog.w("Unable to save timeline recording: {}", exception.getLocalizedMessage());
+            return false;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                    // Nothing more can be done.
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} while a recording is in progress.
+     */
+    public static boolean isRecording() {
+        return sActive != null;
+    }
+
+    /**
+     * Records an event if a recording is in progress.
+     */
+    static void record(int adId, int kind, int intArg) {
+        TimelineRecorder recorder = sActive;
+        if (recorder != null) {
+            recorder.append(adId, kind, intArg);
+        }
+    }
+
+    private synchronized void append(int adId, int kind, int intArg) {
+        // Worst case size of an entry: a 64-bit and two 32-bit varints plus the kind byte.
+        if (mLength + 21 > mMaxBytes) {
+            mDroppedCount++;
+            return;
+        }
+        if (mLength + 21 > mBuffer.length) {
+            mBuffer = Arrays.copyOf(mBuffer, Math.min(mMaxBytes, mBuffer.length * 2));
+        }
+        long now = System.nanoTime();
+        writeVarLong((now - mLastNanos) / 1000);
+        // Carry the sub-microsecond remainder so that deltas don't drift.
+        mLastNanos = now - (now - mLastNanos) % 1000;
+        writeVarLong(adId);
+        mBuffer[mLength++] = (byte) kind;
+        // Zigzag encoding keeps small negative arguments short.
+        writeVarLong(((intArg << 1) ^ (intArg >> 31)) & 0xFFFFFFFFL);
+    }
+
+    private void writeInt(int value) {
+        mBuffer[mLength++] = (byte) (value >>> 24);
+        mBuffer[mLength++] = (byte) (value >>> 16);
+        mBuffer[mLength++] = (byte) (value >>> 8);
+        mBuffer[mLength++] = (byte) value;
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            mBuffer[mLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        mBuffer[mLength++] = (byte) value;
+    }
+}
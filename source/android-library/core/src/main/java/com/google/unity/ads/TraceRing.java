@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link PluginTrace.Tracer} that keeps the most recent span events in a preallocated ring, to
+ * be dumped as Chrome trace JSON, which {@code chrome://tracing} and Perfetto can open next to a
+ * frame trace of the game. Timestamps come from {@link System#nanoTime()}, the monotonic clock
+ * that Android's system traces use.
+ *
+ * <p>Recording is lock-free and doesn't allocate: any number of threads claim slots with an
+ * atomic increment, and each slot is published once written. When the ring is full the oldest
+ * events are overwritten. A dump taken while spans are being recorded skips the events still
+ * being written. Each thread's name is recorded the first time it records an event, so only that
+ * first event allocates.
+ */
+public class TraceRing implements PluginTrace.Tracer {
+
+    private static final char PHASE_BEGIN = 'B';
+
+    private static final char PHASE_END = 'E';
+
+    private final int mCapacity;
+
+    private final int mMask;
+
+    private final long[] mTimesNanos;
+
+    private final long[] mThreadIds;
+
+    /**
+     * Span names of begin events, {@code null} for end events.
+     */
+    private final String[] mNames;
+
+    /**
+     * For each slot, the index of the event it holds plus one, or 0 while it is being written.
+     */
+    private final AtomicLongArray mPublished;
+
+    /**
+     * Index of the next event to record.
+     */
+    private final AtomicLong mNext = new AtomicLong();
+
+    /**
+     * Names of the threads that recorded events, by thread ID, as of their first event.
+     */
+    private final Map<Long, String> mThreadNames = new ConcurrentHashMap<>();
+
+    /**
+     * Set on each thread once its name is in {@link #mThreadNames}.
+     */
+    private final ThreadLocal<Boolean> mThreadNamed = new ThreadLocal<>();
+
+    /**
+     * Creates a ring holding at least {@code capacity} events. The capacity is rounded up to a
+     * power of two.
+     */
+    public TraceRing(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Trace ring capacity must be positive.");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mCapacity = size;
+        mMask = size - 1;
+        mTimesNanos = new long[size];
+        mThreadIds = new long[size];
+        mNames = new String[size];
+        mPublished = new AtomicLongArray(size);
+    }
+
+    /**
+     * Creates a ring holding at least {@code capacity} events and sends all subsequent spans to
+     * it.
+     *
+     * @return The ring, to be dumped with {@link #dumpChromeJson(String)}.
+     */
+    public static TraceRing install(int capacity) {
+        TraceRing ring = new TraceRing(capacity);
+        PluginTrace.setTracer(ring);
+        return ring;
+    }
+
+    @Override
+    public void beginSection(String name) {
+        record(name);
+    }
+
+    @Override
+    public void endSection() {
+        record(null);
+    }
+
+    private void record(String name) {
+        long time = System.nanoTime();
+        long index = mNext.getAndIncrement();
+        int slot = (int) index & mMask;
+        mPublished.set(slot, 0);
+        mTimesNanos[slot] = time;
+        mThreadIds[slot] = Thread.currentThread().getId();
+        mNames[slot] = name;
+        mPublished.lazySet(slot, index + 1);
+        if (mThreadNamed.get() == null) {
+            Thread thread = Thread.currentThread();
+            mThreadNames.put(thread.getId(), thread.getName());
+            mThreadNamed.set(Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Returns the number of events recorded since the ring was created, including those
+     * overwritten since.
+     */
+    public long getRecordedCount() {
+        return mNext.get();
+    }
+
+    /**
+     * Returns the number of events overwritten because the ring was full.
+     */
+    public long getOverwrittenCount() {
+        return Math.max(0, mNext.get() - mCapacity);
+    }
+
+    /**
+     * Writes the events in the ring to {@code out} as a Chrome trace JSON object. Threads are
+     * named after the Java threads, as named when they first recorded an event.
+     */
+    public void writeChromeJson(Writer out) throws IOException {
+        long end = mNext.get();
+        long start = Math.max(0, end - mCapacity);
+
+        out.write("{\"traceEvents\":[");
+        boolean first = true;
+        for (Map.Entry<Long, String> thread : mThreadNames.entrySet()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":");
+            out.write(Long.toString(thread.getKey()));
+            out.write(",\"args\":{\"name\":");
+            writeString(out, thread.getValue());
+            out.write("}}");
+        }
+        for (long index = start; index < end; index++) {
+            int slot = (int) index & mMask;
+            if (mPublished.get(slot) != index + 1) {
+                continue;
+            }
+            long time = mTimesNanos[slot];
+            long threadId = mThreadIds[slot];
+            String name = mNames[slot];
+            if (mPublished.get(slot) != index + 1) {
+                // Overwritten while being read.
+                continue;
+            }
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            out.write("{\"ph\":\"");
+            out.write(name != null ? PHASE_BEGIN : PHASE_END);
+            out.write("\",\"pid\":1,\"tid\":");
+            out.write(Long.toString(threadId));
+            out.write(",\"ts\":");
+            writeMicros(out, time);
+            if (name != null) {
+                out.write(",\"name\":");
+                writeString(out, name);
+            }
+            out.write('}');
+        }
+        out.write("],\"displayTimeUnit\":\"ms\"}");
+    }
+
+    /**
+     * Returns the events in the ring as a Chrome trace JSON object.
+     */
+    public String toChromeJson() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeChromeJson(writer);
+        } catch (IOException exception) {
+            // A StringWriter doesn't throw.
+            throw new IllegalStateException(exception);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the events in the ring to a Chrome trace JSON file.
+     *
+     * @return {@code false} if the file could not be written.
+     */
+    public boolean dumpChromeJson(String path) {
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(path), "UTF-8"));
+            writeChromeJson(writer);
+            return true;
+        } catch (IOException exception) {
+            PluginLog.w("Unable to save trace: {}", exception.getLocalizedMessage());
+            return false;
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                    // Nothing more can be done.
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes {@code nanos} as microseconds with three decimals.
+     */
+    private static void writeMicros(Writer out, long nanos) throws IOException {
+        if (nanos < 0) {
+            out.write('-');
+            nanos = -nanos;
+        }
+        out.write(Long.toString(nanos / 1000));
+        out.write('.');
+        String fraction = Long.toString(1000 + nanos % 1000);
+        out.write(fraction, 1, 3);
+    }
+
+    private static void writeString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
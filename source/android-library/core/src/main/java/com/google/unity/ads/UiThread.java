@@ -0,0 +1,28 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * The thread that owns the ad views and on which the ad SDK must be called. On Android this is
+ * the main thread of the Unity player activity.
+ */
+public interface UiThread {
+
+    /**
+     * Runs {@code task} on the UI thread. May run it immediately if called from the UI thread.
+     */
+    void post(Runnable task);
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * Runs plugin work on the UI thread according to how urgent it is, so that work nobody is
+ * waiting for stays out of busy frames.
+ *
+ * <ul>
+ * <li>{@link #URGENCY_IMMEDIATE} work, such as showing or hiding an ad, is posted right away.
+ * <li>{@link #URGENCY_FRAME} work, such as refreshes and repositioning, runs at the start of a
+ * frame while the frame budget lasts.
+ * <li>{@link #URGENCY_IDLE} work, such as creating ad views, runs when the UI thread is idle,
+ * one task per idle slot.
+ * </ul>
+ *
+ * <p>Deferred work that has waited longer than the class's maximum deferral runs at the next
+ * frame regardless of the budget. Work is tagged with an owner, normally the ad, and the work of
+ * one owner always runs in the order it was submitted: before a task runs, the owner's earlier
+ * tasks in other classes run first.
+ *
+ * <p>Queue nodes are recycled, so steady-state submissions don't allocate.
+ */
+public final class UiWorkScheduler {
+
+    public static final int URGENCY_IMMEDIATE = 0;
+
+    public static final int URGENCY_FRAME = 1;
+
+    public static final int URGENCY_IDLE = 2;
+
+    private static final int URGENCY_COUNT = 3;
+
+    /**
+     * Default time from the start of a frame during which deferred work may run.
+     */
+    private static final long DEFAULT_FRAME_BUDGET_NANOS = 4000000;
+
+    /**
+     * Default longest time frame work waits for a frame with spare budget.
+     */
+    private static final long DEFAULT_MAX_FRAME_DEFERRAL_NANOS = 100000000;
+
+    /**
+     * Default longest time idle work waits for an idle slot.
+     */
+    private static final long DEFAULT_MAX_IDLE_DEFERRAL_NANOS = 500000000;
+
+    /**
+     * Schedules the callbacks of a {@link UiWorkScheduler} on the platform's UI thread.
+     */
+    public interface Driver {
+
+        /**
+         * Runs {@code task} on the UI thread, immediately if called from it.
+         */
+        void post(Runnable task);
+
+        /**
+         * Arranges for {@link #onFrame(long)} to be called at the start of the next frame.
+         * May be called from any thread.
+         */
+        void requestFrame();
+
+        /**
+         * Arranges for {@link #onIdle()} to be called the next time the UI thread is idle, and
+         * again for as long as it returns {@code true}. May be called from any thread.
+         */
+        void requestIdle();
+    }
+
+    private final Driver mDriver;
+
+    /**
+     * First and last queued node of each urgency class. Guarded by this.
+     */
+    private final Node[] mHeads = new Node[URGENCY_COUNT];
+
+    private final Node[] mTails = new Node[URGENCY_COUNT];
+
+    /**
+     * Recycled nodes. Guarded by this.
+     */
+    private Node mFreeNodes;
+
+    private long mNextSequence;
+
+    private boolean mFrameRequested;
+
+    private boolean mIdleRequested;
+
+    private long mFrameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+
+    private final long[] mMaxDeferralNanos = {
+            0, DEFAULT_MAX_FRAME_DEFERRAL_NANOS, DEFAULT_MAX_IDLE_DEFERRAL_NANOS};
+
+    private final long[] mRunCount = new long[URGENCY_COUNT];
+
+    private final long[] mTotalLatencyNanos = new long[URGENCY_COUNT];
+
+    private final long[] mMaxLatencyNanos = new long[URGENCY_COUNT];
+
+    private final Runnable mRunImmediate = new Runnable() {
+        @Override
+        public void run() {
+            runImmediate();
+        }
+    };
+
+    public UiWorkScheduler(Driver driver) {
+        mDriver = driver;
+    }
+
+    /**
+     * Returns a {@link UiThread} whose tasks are submitted with the given owner and urgency.
+     */
+    public UiThread asUiThread(final Object owner, final int urgency) {
+        checkUrgency(urgency);
+        return new UiThread() {
+            @Override
+            public void post(Runnable task) {
+                submit(owner, urgency, task);
+            }
+        };
+    }
+
+    /**
+     * Queues {@code task} to run on the UI thread.
+     *
+     * @param owner   The object whose tasks must run in submission order, or {@code null} if the
+     *                task doesn't depend on earlier tasks.
+     * @param urgency One of the {@code URGENCY_} constants.
+     */
+    public void submit(Object owner, int urgency, Runnable task) {
+        checkUrgency(urgency);
+        boolean requestFrame = false;
+        boolean requestIdle = false;
+        synchronized (this) {
+            Node node = mFreeNodes;
+            if (node != null) {
+                mFreeNodes = node.mNext;
+                node.mNext = null;
+            } else {
+                node = new Node();
+            }
+            node.mOwner = owner;
+            node.mTask = task;
+            node.mUrgency = urgency;
+            node.mSequence = mNextSequence++;
+            node.mSubmitNanos = System.nanoTime();
+            if (mTails[urgency] == null) {
+                mHeads[urgency] = node;
+            } else {
+                mTails[urgency].mNext = node;
+            }
+            mTails[urgency] = node;
+
+            if (urgency == URGENCY_FRAME || urgency == URGENCY_IDLE) {
+                // Overdue idle work also runs in frames.
+                requestFrame = !mFrameRequested;
+                mFrameRequested = true;
+            }
+            if (urgency == URGENCY_IDLE) {
+                requestIdle = !mIdleRequested;
+                mIdleRequested = true;
+            }
+        }
+        if (urgency == URGENCY_IMMEDIATE) {
+            mDriver.post(mRunImmediate);
+        }
+        if (requestFrame) {
+            mDriver.requestFrame();
+        }
+        if (requestIdle) {
+            mDriver.requestIdle();
+        }
+    }
+
+    /**
+     * Runs every queued task of {@code owner} now, in submission order, whatever its urgency.
+     * Work that touches the owner outside of the scheduler calls this first to keep the owner's
+     * order. Must be called on the UI thread.
+     */
+    public void flush(Object owner) {
+        runQueued(owner, mark());
+    }
+
+    /**
+     * Runs the queued tasks of {@code owner} submitted before {@code mark} was taken, in
+     * submission order, whatever their urgency. Tasks submitted later stay queued. Must be called
+     * on the UI thread.
+     *
+     * @param mark A value returned by {@link #mark()}.
+     */
+    public void flush(Object owner, long mark) {
+        runQueued(owner, mark);
+    }
+
+    /**
+     * Returns a mark separating the tasks submitted so far from those submitted afterwards, for
+     * {@link #flush(Object, long)}.
+     */
+    public synchronized long mark() {
+        return mNextSequence;
+    }
+
+    /**
+     * Sets the time from the start of a frame during which deferred work may run.
+     */
+    public synchronized void setFrameBudgetMillis(float budgetMillis) {
+        mFrameBudgetNanos = Math.max(0, (long) (budgetMillis * 1000000));
+    }
+
+    /**
+     * Sets the longest time work of a deferred urgency class waits before it runs at the next
+     * frame regardless of the budget.
+     */
+    public synchronized void setMaxDeferralMillis(int urgency, long maxDeferralMillis) {
+        checkUrgency(urgency);
+        if (urgency != URGENCY_IMMEDIATE) {
+            mMaxDeferralNanos[urgency] = Math.max(0, maxDeferralMillis) * 1000000;
+        }
+    }
+
+    /**
+     * Returns the number of tasks of an urgency class that have run.
+     */
+    public synchronized long getRunCount(int urgency) {
+        return mRunCount[urgency];
+    }
+
+    /**
+     * Returns the average time tasks of an urgency class waited between submission and running,
+     * in microseconds.
+     */
+    public synchronized long getAverageQueueLatencyMicros(int urgency) {
+        long count = mRunCount[urgency];
+        return count == 0 ? 0 : mTotalLatencyNanos[urgency] / count / 1000;
+    }
+
+    /**
+     * Returns the longest time a task of an urgency class waited between submission and running,
+     * in microseconds.
+     */
+    public synchronized long getMaxQueueLatencyMicros(int urgency) {
+        return mMaxLatencyNanos[urgency] / 1000;
+    }
+
+    /**
+     * Returns the number of tasks of an urgency class waiting to run.
+     */
+    public synchronized int getPendingCount(int urgency) {
+        int count = 0;
+        for (Node node = mHeads[urgency]; node != null; node = node.mNext) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Runs deferred work at the start of a frame. Called by the {@link Driver} on the UI thread.
+     *
+     * @param frameTimeNanos The time the frame started, on the {@link System#nanoTime()} clock.
+     */
+    public void onFrame(long frameTimeNanos) {
+        PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: UiWorkScheduler frame");
+        try {
+            long deadline;
+            synchronized (this) {
+                mFrameRequested = false;
+                deadline = frameTimeNanos + mFrameBudgetNanos;
+            }
+            boolean inBudget = true;
+            while (true) {
+                long now = System.nanoTime();
+                inBudget = inBudget && now < deadline;
+                Node node;
+                synchronized (this) {
+                    node = inBudget ? mHeads[URGENCY_FRAME] : null;
+                    if (node != null) {
+                        unlink(node);
+                    } else {
+                        node = pollOverdue(now);
+                    }
+                }
+                if (node == null) {
+                    break;
+                }
+                runWithPredecessors(node);
+            }
+
+            boolean requestFrame;
+            synchronized (this) {
+                requestFrame = !mFrameRequested
+                        && (mHeads[URGENCY_FRAME] != null || mHeads[URGENCY_IDLE] != null);
+                mFrameRequested |= requestFrame;
+            }
+            if (requestFrame) {
+                mDriver.requestFrame();
+            }
+        } finally {
+            PluginTrace.end(tracer);
+        }
+    }
+
+    /**
+     * Runs one task of idle work. Called by the {@link Driver} on the UI thread when it is idle.
+     *
+     * @return {@code true} if more idle work is waiting.
+     */
+    public boolean onIdle() {
+        Node node;
+        synchronized (this) {
+            node = mHeads[URGENCY_IDLE];
+            if (node == null) {
+                mIdleRequested = false;
+                return false;
+            }
+            unlink(node);
+        }
+        PluginTrace.Tracer tracer = PluginTrace.begin("AdsUnity: UiWorkScheduler idle");
+        try {
+            runWithPredecessors(node);
+        } finally {
+            PluginTrace.end(tracer);
+        }
+        synchronized (this) {
+            mIdleRequested = mHeads[URGENCY_IDLE] != null;
+            return mIdleRequested;
+        }
+    }
+
+    private void runImmediate() {
+        while (true) {
+            Node node;
+            synchronized (this) {
+                node = mHeads[URGENCY_IMMEDIATE];
+                if (node == null) {
+                    return;
+                }
+                unlink(node);
+            }
+            runWithPredecessors(node);
+        }
+    }
+
+    /**
+     * Removes and returns the deferred node that has waited longest past its class's maximum
+     * deferral, or {@code null} if none is overdue.
+     */
+    private Node pollOverdue(long now) {
+        Node overdue = null;
+        for (int urgency = URGENCY_FRAME; urgency < URGENCY_COUNT; urgency++) {
+            Node head = mHeads[urgency];
+            if (head != null && now - head.mSubmitNanos > mMaxDeferralNanos[urgency]
+                    && (overdue == null || head.mSequence < overdue.mSequence)) {
+                overdue = head;
+            }
+        }
+        if (overdue != null) {
+            unlink(overdue);
+        }
+        return overdue;
+    }
+
+    /**
+     * Runs the queued tasks of {@code node}'s owner that were submitted before it, then
+     * {@code node}'s task. {@code node} must already be unlinked.
+     */
+    private void runWithPredecessors(Node node) {
+        if (node.mOwner != null) {
+            runQueued(node.mOwner, node.mSequence);
+        }
+        run(node);
+    }
+
+    /**
+     * Runs the queued tasks of {@code owner} submitted before {@code sequence}, in order.
+     */
+    private void runQueued(Object owner, long sequence) {
+        while (true) {
+            Node node;
+            synchronized (this) {
+                node = findEarliest(owner, sequence);
+                if (node != null) {
+                    unlink(node);
+                }
+            }
+            if (node == null) {
+                return;
+            }
+            run(node);
+        }
+    }
+
+    /**
+     * Returns the earliest queued node of {@code owner} submitted before {@code sequence}.
+     */
+    private Node findEarliest(Object owner, long sequence) {
+        Node earliest = null;
+        for (int urgency = 0; urgency < URGENCY_COUNT; urgency++) {
+            for (Node node = mHeads[urgency]; node != null && node.mSequence < sequence;
+                    node = node.mNext) {
+                if (node.mOwner == owner) {
+                    if (earliest == null || node.mSequence < earliest.mSequence) {
+                        earliest = node;
+                    }
+                    break;
+                }
+            }
+        }
+        return earliest;
+    }
+
+    private void run(Node node) {
+        Runnable task = node.mTask;
+        synchronized (this) {
+            long latency = System.nanoTime() - node.mSubmitNanos;
+            int urgency = node.mUrgency;
+            mRunCount[urgency]++;
+            mTotalLatencyNanos[urgency] += latency;
+            mMaxLatencyNanos[urgency] = Math.max(mMaxLatencyNanos[urgency], latency);
+            node.mOwner = null;
+            node.mTask = null;
+            node.mNext = mFreeNodes;
+            mFreeNodes = node;
+        }
+        task.run();
+    }
+
+    /**
+     * Removes {@code node} from its queue. Must hold the lock.
+     */
+    private void unlink(Node node) {
+        int urgency = node.mUrgency;
+        Node previous = null;
+        for (Node current = mHeads[urgency]; current != node; current = current.mNext) {
+            previous = current;
+        }
+        if (previous == null) {
+            mHeads[urgency] = node.mNext;
+        } else {
+            previous.mNext = node.mNext;
+        }
+        if (mTails[urgency] == node) {
+            mTails[urgency] = previous;
+        }
+        node.mNext = null;
+    }
+
+    private static void checkUrgency(int urgency) {
+        if (urgency < 0 || urgency >= URGENCY_COUNT) {
+            throw new IllegalArgumentException("Invalid urgency: " + urgency);
+        }
+    }
+
+    private static final class Node {
+
+        private Object mOwner;
+
+        private Runnable mTask;
+
+        private int mUrgency;
+
+        private long mSequence;
+
+        private long mSubmitNanos;
+
+        private Node mNext;
+    }
+}
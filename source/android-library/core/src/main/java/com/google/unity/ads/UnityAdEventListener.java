@@ -0,0 +1,25 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * A single listener that receives the events of every ad, implemented via
+ * {@code AndroidJavaProxy} in Unity. Ads are identified by the handle returned from their
+ * {@code getAdId()} method, and events by the {@link AdEvents} event codes.
+ */
+public interface UnityAdEventListener {
+    void onAdEvent(int handle, int eventCode, int intArg, String stringArg);
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+/**
+ * Tracks how long a banner is viewable from samples of the fraction of its area on screen. A
+ * banner is viewable while at least {@link #VIEWABLE_FRACTION} of it is visible, and the time
+ * between two samples counts as viewable if the earlier sample was.
+ *
+ * <p>Samples are meant to be taken on pre-draw, so {@link #shouldSample(long)} rate limits them
+ * to one per sample interval. Methods can be called from any thread.
+ */
+public final class ViewabilityTracker {
+
+    /**
+     * Fraction of the banner's area that must be visible for it to be viewable.
+     */
+    public static final float VIEWABLE_FRACTION = 0.5f;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private long mSampleIntervalNanos = 200 * NANOS_PER_MILLI;
+
+    /**
+     * Time of the last sample, or 0 before the first one.
+     */
+    private long mLastSampleNanos;
+
+    private boolean mViewable;
+
+    /**
+     * Viewable time of the current impression, in nanoseconds.
+     */
+    private long mImpressionViewableNanos;
+
+    /**
+     * Whether an impression is being tracked, that is an ad has been loaded.
+     */
+    private boolean mInImpression;
+
+    private long mImpressionCount;
+
+    /**
+     * Viewable time of all completed impressions, in nanoseconds.
+     */
+    private long mTotalViewableNanos;
+
+    /**
+     * Sets the minimum time between two samples taken on pre-draw.
+     */
+    public synchronized void setSampleIntervalMillis(long intervalMillis) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("Negative sample interval: " + intervalMillis);
+        }
+        mSampleIntervalNanos = intervalMillis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns {@code true} if the sample interval has passed since the last sample.
+     */
+    public synchronized boolean shouldSample(long nowNanos) {
+        return mLastSampleNanos == 0 || nowNanos - mLastSampleNanos >= mSampleIntervalNanos;
+    }
+
+    /**
+     * Records that {@code visibleFraction} of the banner's area is on screen.
+     *
+     * @return {@code true} if the banner became viewable with this sample.
+     */
+    public synchronized boolean onSample(long nowNanos, float visibleFraction) {
+        accumulate(nowNanos);
+        boolean wasViewable = mViewable;
+        mViewable = visibleFraction >= VIEWABLE_FRACTION;
+        return mViewable && !wasViewable;
+    }
+
+    /**
+     * Starts a new impression, completing the current one if any.
+     */
+    public synchronized void onImpression(long nowNanos) {
+        completeImpression(nowNanos);
+        mInImpression = true;
+    }
+
+    /**
+     * Completes the current impression, if any, for example when the banner is destroyed.
+     */
+    public synchronized void completeImpression(long nowNanos) {
+        accumulate(nowNanos);
+        if (mInImpression) {
+            mImpressionCount++;
+            mTotalViewableNanos += mImpressionViewableNanos;
+        }
+        mInImpression = false;
+        mImpressionViewableNanos = 0;
+    }
+
+    /**
+     * Returns whether the banner was viewable at the last sample.
+     */
+    public synchronized boolean isViewable() {
+        return mViewable;
+    }
+
+    /**
+     * Returns the viewable time of the current impression so far, in milliseconds.
+     */
+    public synchronized long getImpressionViewableMillis() {
+        return mImpressionViewableNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the number of completed impressions.
+     */
+    public synchronized long getImpressionCount() {
+        return mImpressionCount;
+    }
+
+    /**
+     * Returns the average viewable time of the completed impressions, in seconds, or 0 if none
+     * has completed.
+     */
+    public synchronized float getViewableSecondsPerImpression() {
+        if (mImpressionCount == 0) {
+            return 0;
+        }
+        return (float) mTotalViewableNanos / mImpressionCount / (1000 * NANOS_PER_MILLI);
+    }
+
+    private void accumulate(long nowNanos) {
+        if (mLastSampleNanos != 0 && mViewable && mInImpression) {
+            mImpressionViewableNanos += Math.max(0, nowNanos - mLastSampleNanos);
+        }
+        mLastSampleNanos = nowNanos;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The placements {@link AdWarmup} creates and preloads at startup. A manifest is plain text with
+ * one placement per line:
+ *
+ * <pre>
+ * # name, format, ad unit ID, priority, pool size[, option]
+ * level_end, interstitial, ca-app-pub-3940256099942544/1033173712, 1, 2
+ * continue, rewarded, ca-app-pub-3940256099942544/5224354917, 0, 1
+ * menu, banner, ca-app-pub-3940256099942544/6300978111, 3, 1, SMART_BANNER
+ * shop, native, /6499/example/native, 2, 1, 10104090
+ * </pre>
+ *
+ * <p>Lower priorities are warmed up first, as with the {@link LoadScheduler} priorities. The
+ * option is the ad size name for banners and the custom template ID for native ads. Blank lines
+ * and lines starting with {@code #} are ignored.
+ */
+public final class WarmupManifest {
+
+    public static final int FORMAT_INTERSTITIAL = 0;
+
+    public static final int FORMAT_REWARDED = 1;
+
+    public static final int FORMAT_BANNER = 2;
+
+    public static final int FORMAT_NATIVE = 3;
+
+    private static final String[] FORMAT_NAMES = {"interstitial", "rewarded", "banner", "native"};
+
+    private final List<Placement> mPlacements;
+
+    private WarmupManifest(List<Placement> placements) {
+        mPlacements = Collections.unmodifiableList(placements);
+    }
+
+    /**
+     * Parses a manifest.
+     *
+     * @throws IllegalArgumentException If a line is not a valid placement, or two placements share
+     *                                  a name.
+     */
+    public static WarmupManifest parse(String manifest) {
+        List<Placement> placements = new ArrayList<>();
+        String[] lines = manifest.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            Placement placement = parsePlacement(line, i + 1);
+            for (Placement other : placements) {
+                if (other.mName.equals(placement.mName)) {
+                    throw new IllegalArgumentException(
+                            "Line " + (i + 1) + ": duplicate placement " + placement.mName);
+                }
+            }
+            placements.add(placement);
+        }
+        return new WarmupManifest(placements);
+    }
+
+    private static Placement parsePlacement(String line, int lineNumber) {
+        String[] fields = line.split(",");
+        if (fields.length < 5 || fields.length > 6) {
+            throw new IllegalArgumentException(
+                    "Line " + lineNumber + ": expected 5 or 6 comma separated fields");
+        }
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fields[i].trim();
+        }
+        int format = -1;
+        for (int i = 0; i < FORMAT_NAMES.length; i++) {
+            if (FORMAT_NAMES[i].equals(fields[1])) {
+                format = i;
+            }
+        }
+        if (format == -1) {
+            throw new IllegalArgumentException(
+                    "Line " + lineNumber + ": unknown format " + fields[1]);
+        }
+        int priority;
+        int poolSize;
+        try {
+            priority = Integer.parseInt(fields[3]);
+            poolSize = Integer.parseInt(fields[4]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "Line " + lineNumber + ": priority and pool size must be integers");
+        }
+        if (poolSize < 1) {
+            throw new IllegalArgumentException(
+                    "Line " + lineNumber + ": pool size must be at least 1");
+        }
+        if (format == FORMAT_REWARDED && poolSize > 1) {
+            // The SDK has a single reward based video ad per process.
+            throw new IllegalArgumentException(
+                    "Line " + lineNumber + ": rewarded placements have a pool size of 1");
+        }
+        String option = fields.length == 6 ? fields[5] : null;
+        if (format == FORMAT_NATIVE && option == null) {
+            throw new IllegalArgumentException(
+                    "Line " + lineNumber + ": native placements need a template ID");
+        }
+        return new Placement(fields[0], format, fields[2], priority, poolSize, option);
+    }
+
+    /**
+     * Returns the placements in manifest order.
+     */
+    public List<Placement> getPlacements() {
+        return mPlacements;
+    }
+
+    /**
+     * Returns the manifest name of a {@code FORMAT_} constant.
+     */
+    public static String getFormatName(int format) {
+        return FORMAT_NAMES[format];
+    }
+
+    /**
+     * A placement of a {@link WarmupManifest}.
+     */
+    public static final class Placement {
+
+        private final String mName;
+
+        private final int mFormat;
+
+        private final String mAdUnitId;
+
+        private final int mPriority;
+
+        private final int mPoolSize;
+
+        private final String mOption;
+
+        private Placement(String name, int format, String adUnitId, int priority, int poolSize,
+                          String option) {
+            this.mName = name;
+            this.mFormat = format;
+            this.mAdUnitId = adUnitId;
+            this.mPriority = priority;
+            this.mPoolSize = poolSize;
+            this.mOption = option;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * Returns one of the {@code FORMAT_} constants.
+         */
+        public int getFormat() {
+            return mFormat;
+        }
+
+        public String getAdUnitId() {
+            return mAdUnitId;
+        }
+
+        public int getPriority() {
+            return mPriority;
+        }
+
+        /**
+         * Returns the number of ads of this placement to keep ready.
+         */
+        public int getPoolSize() {
+            return mPoolSize;
+        }
+
+        /**
+         * Returns the ad size name of a banner or the template ID of a native ad, or
+         * {@code null} if none was given.
+         */
+        public String getOption() {
+            return mOption;
+        }
+    }
+}
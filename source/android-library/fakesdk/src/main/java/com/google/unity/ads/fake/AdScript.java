@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.fake;
+
+import com.google.unity.ads.AdErrors;
+
+/**
+ * The scripted behaviour of a {@link FakeAdNetwork}: how long requests take, how often they fill,
+ * how they fail, and what the ads it serves look like.
+ */
+public class AdScript {
+
+    private double mFillRate = 1.0;
+
+    private LatencyDistribution mLatency = LatencyDistribution.fixed(0);
+
+    private int[] mErrorCodes = {AdErrors.ERROR_CODE_NO_FILL};
+
+    private String mMediationAdapterClassName;
+
+    private int mCreativeWidth = 320;
+
+    private int mCreativeHeight = 50;
+
+    private long mShowDurationMillis = 5000;
+
+    private String mRewardType = "coins";
+
+    private int mRewardAmount = 10;
+
+    /**
+     * Sets the probability that a request fills, between 0 and 1. Defaults to 1.
+     */
+    public AdScript setFillRate(double fillRate) {
+        if (fillRate < 0 || fillRate > 1) {
+            throw new IllegalArgumentException("Fill rate must be between 0 and 1: " + fillRate);
+        }
+        mFillRate = fillRate;
+        return this;
+    }
+
+    /**
+     * Sets the distribution request latencies are drawn from. Defaults to no latency.
+     */
+    public AdScript setLatency(LatencyDistribution latency) {
+        mLatency = latency;
+        return this;
+    }
+
+    /**
+     * Sets the error codes unfilled requests fail with, each equally likely. Defaults to
+     * {@link AdErrors#ERROR_CODE_NO_FILL}.
+     */
+    public AdScript setErrorCodes(int... errorCodes) {
+        if (errorCodes.length == 0) {
+            throw new IllegalArgumentException("At least one error code is required.");
+        }
+        mErrorCodes = errorCodes.clone();
+        return this;
+    }
+
+    /**
+     * Sets the mediation adapter class name reported for filled ads. Defaults to {@code null},
+     * as for non-mediated responses.
+     */
+    public AdScript setMediationAdapterClassName(String className) {
+        mMediationAdapterClassName = className;
+        return this;
+    }
+
+    /**
+     * Sets the size of the creatives served, in pixels. Defaults to 320x50.
+     */
+    public AdScript setCreativeSize(int width, int height) {
+        mCreativeWidth = width;
+        mCreativeHeight = height;
+        return this;
+    }
+
+    /**
+     * Sets how long a full screen ad stays open before the user closes it. Defaults to 5
+     * seconds.
+     */
+    public AdScript setShowDurationMillis(long showDurationMillis) {
+        mShowDurationMillis = showDurationMillis;
+        return this;
+    }
+
+    /**
+     * Sets the reward granted when a rewarded video completes. Defaults to 10 coins.
+     */
+    public AdScript setReward(String type, int amount) {
+        mRewardType = type;
+        mRewardAmount = amount;
+        return this;
+    }
+
+    double getFillRate() {
+        return mFillRate;
+    }
+
+    LatencyDistribution getLatency() {
+        return mLatency;
+    }
+
+    int[] getErrorCodes() {
+        return mErrorCodes;
+    }
+
+    String getMediationAdapterClassName() {
+        return mMediationAdapterClassName;
+    }
+
+    int getCreativeWidth() {
+        return mCreativeWidth;
+    }
+
+    int getCreativeHeight() {
+        return mCreativeHeight;
+    }
+
+    long getShowDurationMillis() {
+        return mShowDurationMillis;
+    }
+
+    String getRewardType() {
+        return mRewardType;
+    }
+
+    int getRewardAmount() {
+        return mRewardAmount;
+    }
+}
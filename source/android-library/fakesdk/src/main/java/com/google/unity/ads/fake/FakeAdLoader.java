@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.fake;
+
+/**
+ * Stand-in for an {@code AdLoader} configured for a single custom native template. Must be called
+ * on the {@link VirtualClock} thread.
+ */
+public class FakeAdLoader {
+
+    /**
+     * Stand-in for {@code NativeCustomTemplateAd.OnCustomTemplateAdLoadedListener}.
+     */
+    public interface OnCustomTemplateAdLoadedListener {
+        void onCustomTemplateAdLoaded(FakeNativeAd ad);
+    }
+
+    private final FakeAdNetwork mNetwork;
+
+    private final String mTemplateId;
+
+    private final OnCustomTemplateAdLoadedListener mLoadedListener;
+
+    private final FakeAdListener mAdListener;
+
+    private int mLoadingCount;
+
+    /**
+     * Creates a loader for ads of {@code templateId}.
+     *
+     * @param loadedListener Receives every ad that loads.
+     * @param adListener     Receives load failures.
+     */
+    public FakeAdLoader(FakeAdNetwork network, String templateId,
+                        OnCustomTemplateAdLoadedListener loadedListener,
+                        FakeAdListener adListener) {
+        mNetwork = network;
+        mTemplateId = templateId;
+        mLoadedListener = loadedListener;
+        mAdListener = adListener;
+    }
+
+    /**
+     * Requests an ad. Unlike a banner, each request is answered even if another is in progress.
+     */
+    public void loadAd(Object request) {
+        mLoadingCount++;
+        mNetwork.request(new FakeAdNetwork.Callback() {
+            @Override
+            public void onFilled(AdScript script) {
+                mLoadingCount--;
+                mLoadedListener.onCustomTemplateAdLoaded(new FakeNativeAd(mTemplateId, script));
+            }
+
+            @Override
+            public void onFailed(int errorCode) {
+                mLoadingCount--;
+                mAdListener.onAdFailedToLoad(errorCode);
+            }
+        });
+    }
+
+    /**
+     * Returns {@code true} while a request is in progress.
+     */
+    public boolean isLoading() {
+        return mLoadingCount > 0;
+    }
+}
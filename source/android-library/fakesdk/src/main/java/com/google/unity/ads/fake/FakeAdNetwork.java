@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.fake;
+
+import java.util.Random;
+
+/**
+ * Stands in for Google's ad backend. Each request is answered on the {@link VirtualClock} after a
+ * latency drawn from the current {@link AdScript}, either with a fill or with one of the script's
+ * error codes. All randomness comes from a seeded {@link Random}, so a run can be repeated
+ * exactly.
+ */
+public class FakeAdNetwork {
+
+    /**
+     * Receives the outcome of a request on the clock's thread.
+     */
+    public interface Callback {
+        void onFilled(AdScript script);
+
+        void onFailed(int errorCode);
+    }
+
+    private final VirtualClock mClock;
+
+    private final Random mRandom;
+
+    private volatile AdScript mScript;
+
+    private long mRequestCount;
+
+    private long mFillCount;
+
+    private long mTotalLatencyMillis;
+
+    /**
+     * Creates a network answering requests according to {@code script}.
+     *
+     * @param clock  The clock on which requests are answered.
+     * @param script The behaviour of the network.
+     * @param seed   Seed of the random source deciding latencies and fills.
+     */
+    public FakeAdNetwork(VirtualClock clock, AdScript script, long seed) {
+        mClock = clock;
+        mScript = script;
+        mRandom = new Random(seed);
+    }
+
+    /**
+     * Replaces the behaviour of the network for subsequent requests, for example to script a
+     * network outage partway through a run.
+     */
+    public void setScript(AdScript script) {
+        mScript = script;
+    }
+
+    public AdScript getScript() {
+        return mScript;
+    }
+
+    public VirtualClock getClock() {
+        return mClock;
+    }
+
+    /**
+     * Sends an ad request.
+     */
+    public void request(final Callback callback) {
+        final AdScript script = mScript;
+        long latency = Math.max(0, script.getLatency().sampleMillis(mRandom));
+        final boolean filled = mRandom.nextDouble() < script.getFillRate();
+        int[] errorCodes = script.getErrorCodes();
+        final int errorCode = errorCodes[mRandom.nextInt(errorCodes.length)];
+        mRequestCount++;
+        mTotalLatencyMillis += latency;
+        if (filled) {
+            mFillCount++;
+        }
+        mClock.schedule(latency, new Runnable() {
+            @Override
+            public void run() {
+                if (filled) {
+                    callback.onFilled(script);
+                } else {
+                    callback.onFailed(errorCode);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the number of requests received.
+     */
+    public long getRequestCount() {
+        return mRequestCount;
+    }
+
+    /**
+     * Returns the number of requests that filled.
+     */
+    public long getFillCount() {
+        return mFillCount;
+    }
+
+    /**
+     * Returns the mean latency of the requests received, in milliseconds.
+     */
+    public double getAverageLatencyMillis() {
+        return mRequestCount == 0 ? 0 : (double) mTotalLatencyMillis / mRequestCount;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.fake;
+
+/**
+ * Stand-in for {@code AdView}. Must be called on the {@link VirtualClock} thread.
+ */
+public class FakeBannerAd {
+
+    private final FakeAdNetwork mNetwork;
+
+    private FakeAdListener mAdListener = new FakeAdListener() {
+    };
+
+    private String mAdUnitId;
+
+    private String mMediationAdapterClassName;
+
+    private int mWidth;
+
+    private int mHeight;
+
+    private int mGeneration;
+
+    private boolean mDestroyed;
+
+    public FakeBannerAd(FakeAdNetwork network) {
+        mNetwork = network;
+    }
+
+    public void setAdListener(FakeAdListener adListener) {
+        mAdListener = adListener;
+    }
+
+    public void setAdUnitId(String adUnitId) {
+        mAdUnitId = adUnitId;
+    }
+
+    public String getAdUnitId() {
+        return mAdUnitId;
+    }
+
+    /**
+     * Requests an ad. A banner that is still loading abandons the earlier request.
+     */
+    public void loadAd(Object request) {
+        if (mDestroyed) {
+            return;
+        }
+        final int generation = ++mGeneration;
+        mNetwork.request(new FakeAdNetwork.Callback() {
+            @Override
+            public void onFilled(AdScript script) {
+                if (generation != mGeneration) {
+                    return;
+                }
+                mMediationAdapterClassName = script.getMediationAdapterClassName();
+                mWidth = script.getCreativeWidth();
+                mHeight = script.getCreativeHeight();
+                mAdListener.onAdLoaded();
+            }
+
+            @Override
+            public void onFailed(int errorCode) {
+                if (generation != mGeneration) {
+                    return;
+                }
+                mAdListener.onAdFailedToLoad(errorCode);
+            }
+        });
+    }
+
+    /**
+     * Simulates the user clicking the banner, which opens an overlay and leaves the app.
+     */
+    public void click() {
+        mAdListener.onAdOpened();
+        mAdListener.onAdLeftApplication();
+    }
+
+    /**
+     * Simulates the user returning to the app after {@link #click()}.
+     */
+    public void returnFromClick() {
+        mAdListener.onAdClosed();
+    }
+
+    public String getMediationAdapterClassName() {
+        return mMediationAdapterClassName;
+    }
+
+    /**
+     * Returns the width of the loaded creative in pixels, or 0 before the first fill.
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * Returns the height of the loaded creative in pixels, or 0 before the first fill.
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Drops any pending callbacks and ignores subsequent loads.
+     */
+    public void destroy() {
+        mDestroyed = true;
+        mGeneration++;
+    }
+}
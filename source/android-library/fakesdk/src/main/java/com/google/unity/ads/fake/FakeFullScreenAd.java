@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.fake;
+
+import com.google.unity.ads.FullScreenAdController;
+import com.google.unity.ads.FullScreenAdSdk;
+
+/**
+ * Stand-in for {@code InterstitialAd} and {@code RewardedVideoAd}. Plugs into a
+ * {@link FullScreenAdController} in place of the real SDK and reports back to it the way the
+ * platform adapters do.
+ */
+public class FakeFullScreenAd implements FullScreenAdSdk<Object> {
+
+    private final FakeAdNetwork mNetwork;
+
+    private final boolean mRewarded;
+
+    private FullScreenAdController<?> mController;
+
+    private boolean mLoaded;
+
+    private String mMediationAdapterClassName;
+
+    /**
+     * Incremented by every load and by {@link #destroy()}, so that the outcome of a superseded
+     * request is dropped.
+     */
+    private int mGeneration;
+
+    /**
+     * Creates a full screen ad served by {@code network}.
+     *
+     * @param rewarded {@code true} to behave as a rewarded video, which also reports started,
+     *                 rewarded and completed events.
+     */
+    public FakeFullScreenAd(FakeAdNetwork network, boolean rewarded) {
+        mNetwork = network;
+        mRewarded = rewarded;
+    }
+
+    /**
+     * Sets the controller receiving this ad's callbacks.
+     */
+    public void attach(FullScreenAdController<?> controller) {
+        mController = controller;
+    }
+
+    @Override
+    public void load(Object request, String adUnitId) {
+        final int generation = ++mGeneration;
+        mLoaded = false;
+        mNetwork.request(new FakeAdNetwork.Callback() {
+            @Override
+            public void onFilled(AdScript script) {
+                if (generation != mGeneration) {
+                    return;
+                }
+                mLoaded = true;
+                mMediationAdapterClassName = script.getMediationAdapterClassName();
+                mController.onAdLoaded();
+            }
+
+            @Override
+            public void onFailed(int errorCode) {
+                if (generation != mGeneration) {
+                    return;
+                }
+                mController.onAdFailedToLoad(errorCode);
+            }
+        });
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return mLoaded;
+    }
+
+    @Override
+    public void show() {
+        if (!mLoaded) {
+            return;
+        }
+        mLoaded = false;
+        final int generation = mGeneration;
+        final AdScript script = mNetwork.getScript();
+        mController.onAdOpened();
+        if (mRewarded) {
+            mController.onAdStarted();
+        }
+        mNetwork.getClock().schedule(script.getShowDurationMillis(), new Runnable() {
+            @Override
+            public void run() {
+                if (generation != mGeneration) {
+                    return;
+                }
+                if (mRewarded) {
+                    mController.onAdCompleted();
+                    mController.onAdRewarded(script.getRewardType(), script.getRewardAmount());
+                }
+                mController.onAdClosed();
+            }
+        });
+    }
+
+    /**
+     * Simulates the user clicking the ad while it is shown.
+     */
+    public void click() {
+        mController.onAdLeftApplication();
+    }
+
+    public String getMediationAdapterClassName() {
+        return mMediationAdapterClassName;
+    }
+
+    /**
+     * Drops any pending callbacks.
+     */
+    public void destroy() {
+        mGeneration++;
+        mLoaded = false;
+    }
+}
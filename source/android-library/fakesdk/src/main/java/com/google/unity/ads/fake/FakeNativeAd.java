@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.fake;
+
+/**
+ * Stand-in for {@code NativeCustomTemplateAd}.
+ */
+public class FakeNativeAd {
+
+    private final String mTemplateId;
+
+    private final int mImageWidth;
+
+    private final int mImageHeight;
+
+    private final String mMediationAdapterClassName;
+
+    FakeNativeAd(String templateId, AdScript script) {
+        mTemplateId = templateId;
+        mImageWidth = script.getCreativeWidth();
+        mImageHeight = script.getCreativeHeight();
+        mMediationAdapterClassName = script.getMediationAdapterClassName();
+    }
+
+    public String getCustomTemplateId() {
+        return mTemplateId;
+    }
+
+    /**
+     * Returns a fixed text asset named after the requested asset.
+     */
+    public String getText(String assetName) {
+        return "Fake " + assetName;
+    }
+
+    public int getImageWidth() {
+        return mImageWidth;
+    }
+
+    public int getImageHeight() {
+        return mImageHeight;
+    }
+
+    public String getMediationAdapterClassName() {
+        return mMediationAdapterClassName;
+    }
+}
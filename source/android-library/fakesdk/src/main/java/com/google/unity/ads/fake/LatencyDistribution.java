@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.fake;
+
+import java.util.Random;
+
+/**
+ * A distribution of ad request latencies.
+ */
+public abstract class LatencyDistribution {
+
+    /**
+     * Draws a latency in milliseconds.
+     */
+    public abstract long sampleMillis(Random random);
+
+    /**
+     * Every request takes {@code millis}.
+     */
+    public static LatencyDistribution fixed(final long millis) {
+        return new LatencyDistribution() {
+            @Override
+            public long sampleMillis(Random random) {
+                return millis;
+            }
+        };
+    }
+
+    /**
+     * Latencies spread evenly between {@code minMillis} and {@code maxMillis}, inclusive.
+     */
+    public static LatencyDistribution uniform(final long minMillis, final long maxMillis) {
+        if (maxMillis < minMillis) {
+            throw new IllegalArgumentException("maxMillis is less than minMillis.");
+        }
+        return new LatencyDistribution() {
+            @Override
+            public long sampleMillis(Random random) {
+                return minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1));
+            }
+        };
+    }
+
+    /**
+     * Log-normally distributed latencies, the usual shape of network round trips: most requests
+     * take about {@code medianMillis}, with a long tail whose weight grows with {@code sigma}.
+     */
+    public static LatencyDistribution logNormal(final long medianMillis, final double sigma) {
+        final double mu = Math.log(medianMillis);
+        return new LatencyDistribution() {
+            @Override
+            public long sampleMillis(Random random) {
+                return Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+            }
+        };
+    }
+}
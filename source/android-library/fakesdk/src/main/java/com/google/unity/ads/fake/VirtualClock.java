@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.fake;
+
+import com.google.unity.ads.UiThread;
+
+import java.util.PriorityQueue;
+
+/**
+ * A single-threaded clock whose time only moves when the test advances it. Scheduled tasks run
+ * on the thread calling {@link #advanceBy(long)} or {@link #runUntilIdle()}, in time order and
+ * first in, first out among tasks due at the same time, so runs are fully deterministic.
+ *
+ * <p>The clock doubles as the {@link UiThread} of the ads it drives.
+ */
+public class VirtualClock implements UiThread {
+
+    private final PriorityQueue<Task> mTasks = new PriorityQueue<>();
+
+    private long mNowMillis;
+
+    private long mNextSequence;
+
+    /**
+     * Returns the current virtual time in milliseconds.
+     */
+    public long now() {
+        return mNowMillis;
+    }
+
+    /**
+     * Runs {@code task} at the current virtual time, after the tasks already due.
+     */
+    @Override
+    public void post(Runnable task) {
+        schedule(0, task);
+    }
+
+    /**
+     * Runs {@code task} once the clock has advanced by {@code delayMillis}.
+     */
+    public void schedule(long delayMillis, Runnable task) {
+        if (delayMillis < 0) {
+            throw new IllegalArgumentException("Delay must not be negative: " + delayMillis);
+        }
+        mTasks.add(new Task(mNowMillis + delayMillis, mNextSequence++, task));
+    }
+
+    /**
+     * Advances the clock by {@code millis}, running every task that becomes due.
+     */
+    public void advanceBy(long millis) {
+        long target = mNowMillis + millis;
+        while (!mTasks.isEmpty() && mTasks.peek().mTimeMillis <= target) {
+            Task task = mTasks.poll();
+            mNowMillis = task.mTimeMillis;
+            task.mRunnable.run();
+        }
+        mNowMillis = target;
+    }
+
+    /**
+     * Runs tasks, advancing the clock as needed, until none are left.
+     *
+     * @param maxTasks Upper bound on the number of tasks run, guarding against tasks that keep
+     *                 rescheduling themselves.
+     * @return The number of tasks run.
+     */
+    public int runUntilIdle(int maxTasks) {
+        int count = 0;
+        while (!mTasks.isEmpty() && count < maxTasks) {
+            Task task = mTasks.poll();
+            mNowMillis = task.mTimeMillis;
+            task.mRunnable.run();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of tasks waiting to run.
+     */
+    public int getPendingTaskCount() {
+        return mTasks.size();
+    }
+
+    private static final class Task implements Comparable<Task> {
+
+        final long mTimeMillis;
+
+        final long mSequence;
+
+        final Runnable mRunnable;
+
+        Task(long timeMillis, long sequence, Runnable runnable) {
+            mTimeMillis = timeMillis;
+            mSequence = sequence;
+            mRunnable = runnable;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (mTimeMillis != other.mTimeMillis) {
+                return mTimeMillis < other.mTimeMillis ? -1 : 1;
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+    }
+}
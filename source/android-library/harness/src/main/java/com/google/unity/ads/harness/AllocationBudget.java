@@ -0,0 +1,386 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.harness;
+
+import com.google.unity.ads.AdEventRing;
+import com.google.unity.ads.AdEvents;
+import com.google.unity.ads.AdListenerBridge;
+import com.google.unity.ads.AdPositions;
+import com.google.unity.ads.FrameTimeStats;
+import com.google.unity.ads.FullScreenAdController;
+import com.google.unity.ads.FullScreenAdSdk;
+import com.google.unity.ads.LoadScheduler;
+import com.google.unity.ads.PluginLog;
+import com.google.unity.ads.PluginTrace;
+import com.google.unity.ads.ScheduledLoad;
+import com.google.unity.ads.TraceRing;
+import com.google.unity.ads.UiThread;
+import com.google.unity.ads.UiWorkScheduler;
+import com.google.unity.ads.UnityAdEventListener;
+import com.google.unity.ads.UnityAdListener;
+import com.google.unity.ads.ViewabilityTracker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the bytes allocated by each steady-state operation of the plugin core and checks them
+ * against a per-operation budget, so that hot paths which run for the whole session, such as
+ * banner refreshes and event delivery, stay allocation-light.
+ *
+ * <p>Allocations are counted on the calling thread only. Work handed to the UI thread runs
+ * inline, and the allocations of the SDK itself are left out. The JVM can remove allocations
+ * that don't escape, which ART can't, so run with {@code -XX:-DoEscapeAnalysis} as the
+ * {@code allocationBudget} Gradle task does.
+ *
+ * <p>Usage: {@code AllocationBudget}. Exits with status 1 if any operation is over budget.
+ */
+public class AllocationBudget {
+
+    private static final int WARM_UP_ITERATIONS = 50000;
+
+    private static final int ITERATIONS = 200000;
+
+    /**
+     * Events between two drains of the event ring, as if Unity drained it once per frame.
+     */
+    private static final int EVENTS_PER_FRAME = 64;
+
+    private static final Object REQUEST = new Object();
+
+    /**
+     * Runs work posted to the UI thread immediately.
+     */
+    private static final UiThread INLINE_UI_THREAD = new UiThread() {
+        @Override
+        public void post(Runnable task) {
+            task.run();
+        }
+    };
+
+    private static final Runnable NO_OP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    /**
+     * A steady-state operation and the number of bytes it may allocate.
+     */
+    abstract static class Operation {
+
+        final String mName;
+
+        final long mBudgetBytes;
+
+        Operation(String name, long budgetBytes) {
+            mName = name;
+            mBudgetBytes = budgetBytes;
+        }
+
+        void setUp() {
+        }
+
+        abstract void run(int iteration);
+
+        void tearDown() {
+        }
+    }
+
+    /**
+     * Stands in for the SDK of a full screen ad, reporting every load as filled right away.
+     */
+    private static final class InstantSdk implements FullScreenAdSdk<Object> {
+
+        FullScreenAdController<Object> mController;
+
+        @Override
+        public void load(Object request, String adUnitId) {
+            mController.onAdLoaded();
+        }
+
+        @Override
+        public boolean isLoaded() {
+            return true;
+        }
+
+        @Override
+        public void show() {
+        }
+    }
+
+    private static FullScreenAdController<Object> newInterstitial(UnityAdEventListener listener) {
+        InstantSdk sdk = new InstantSdk();
+        FullScreenAdController<Object> controller = new FullScreenAdController<Object>(
+                "Interstitial", LoadScheduler.PRIORITY_INTERSTITIAL, INLINE_UI_THREAD, sdk,
+                listener);
+        sdk.mController = controller;
+        return controller;
+    }
+
+    /**
+     * Returns the operations measured, with their budgets.
+     */
+    static List<Operation> getOperations() {
+        List<Operation> operations = new ArrayList<>();
+
+        final ScheduledLoad bannerLoad =
+                new ScheduledLoad(LoadScheduler.PRIORITY_BANNER, INLINE_UI_THREAD);
+        // Banner.refreshAd(): the load ticket is the only allocation left.
+        operations.add(new Operation("banner refresh", 64) {
+            @Override
+            void run(int iteration) {
+                bannerLoad.submit(NO_OP);
+                bannerLoad.finish();
+            }
+        });
+
+        final FullScreenAdController<Object> interstitial = newInterstitial(null);
+        // The load ticket and the runnable carrying the request.
+        operations.add(new Operation("interstitial load", 96) {
+            @Override
+            void setUp() {
+                AdEvents.enableEventRing(EVENTS_PER_FRAME);
+            }
+
+            @Override
+            void run(int iteration) {
+                interstitial.loadAd(REQUEST, null);
+                AdEvents.getEventRing().drainInPlace();
+            }
+
+            @Override
+            void tearDown() {
+                AdEvents.disableEventRing();
+            }
+        });
+
+        operations.add(new Operation("reposition", 0) {
+            @Override
+            void run(int iteration) {
+                int positionCode = iteration % (AdPositions.POSITION_RECT_BACK + 1);
+                AdPositions.getLayoutGravityForPositionCode(positionCode);
+                AdPositions.getHorizontalOffsetForPositionCode(positionCode, 320, 1080);
+                AdPositions.getVerticalOffsetForPositionCode(positionCode, 50, 1920);
+            }
+        });
+
+        final UiWorkScheduler workScheduler = new UiWorkScheduler(new UiWorkScheduler.Driver() {
+            @Override
+            public void post(Runnable task) {
+                task.run();
+            }
+
+            @Override
+            public void requestFrame() {
+            }
+
+            @Override
+            public void requestIdle() {
+            }
+        });
+        // A banner reposition deferred to the next frame, with its queue node recycled.
+        operations.add(new Operation("deferred UI work", 0) {
+            @Override
+            void run(int iteration) {
+                workScheduler.submit(bannerLoad, UiWorkScheduler.URGENCY_FRAME, NO_OP);
+                workScheduler.onFrame(System.nanoTime());
+            }
+        });
+
+        final FrameTimeStats frameTimeStats = new FrameTimeStats();
+        operations.add(new Operation("frame time sample", 0) {
+            @Override
+            void run(int iteration) {
+                frameTimeStats.onFrame(System.nanoTime());
+            }
+        });
+
+        final ViewabilityTracker viewabilityTracker = new ViewabilityTracker();
+        operations.add(new Operation("viewability sample", 0) {
+            @Override
+            void run(int iteration) {
+                long now = System.nanoTime();
+                if (viewabilityTracker.shouldSample(now)) {
+                    viewabilityTracker.onSample(now, (iteration & 1) == 0 ? 1f : 0f);
+                }
+            }
+        });
+
+        operations.add(new Operation("readiness query", 0) {
+            @Override
+            void run(int iteration) {
+                interstitial.isLoaded();
+                interstitial.getState();
+            }
+        });
+
+        operations.add(new Operation("event dispatch (event ring)", 0) {
+            @Override
+            void setUp() {
+                AdEvents.enableEventRing(EVENTS_PER_FRAME);
+            }
+
+            @Override
+            void run(int iteration) {
+                interstitial.onAdOpened();
+                AdEventRing ring = AdEvents.getEventRing();
+                if (ring.size() == EVENTS_PER_FRAME) {
+                    ring.drainInPlace();
+                }
+            }
+
+            @Override
+            void tearDown() {
+                AdEvents.disableEventRing();
+            }
+        });
+
+        // The delivery task and the executor's queue node.
+        operations.add(new Operation("event dispatch (multiplexed listener)", 64) {
+            @Override
+            void setUp() {
+                AdEvents.setMultiplexedListener(new UnityAdEventListener() {
+                    @Override
+                    public void onAdEvent(int handle, int eventCode, int intArg,
+                                          String stringArg) {
+                    }
+                });
+            }
+
+            @Override
+            void run(int iteration) {
+                interstitial.onAdOpened();
+            }
+
+            @Override
+            void tearDown() {
+                AdEvents.setMultiplexedListener(null);
+            }
+        });
+
+        final FullScreenAdController<Object> withListener =
+                newInterstitial(AdListenerBridge.of(new UnityAdListener() {
+                    @Override
+                    public void onAdLoaded() {
+                    }
+
+                    @Override
+                    public void onAdFailedToLoad(String errorReason) {
+                    }
+
+                    @Override
+                    public void onAdOpened() {
+                    }
+
+                    @Override
+                    public void onAdClosed() {
+                    }
+
+                    @Override
+                    public void onAdLeftApplication() {
+                    }
+                }));
+        // The delivery task and the executor's queue node.
+        operations.add(new Operation("event dispatch (per-ad listener)", 64) {
+            @Override
+            void run(int iteration) {
+                withListener.onAdOpened();
+            }
+        });
+
+        operations.add(new Operation("debug log (level off)", 0) {
+            @Override
+            void run(int iteration) {
+                PluginLog.d("Calling show() on Android: {}", iteration);
+            }
+        });
+
+        operations.add(new Operation("trace span (tracing off)", 0) {
+            @Override
+            void run(int iteration) {
+                PluginTrace.end(PluginTrace.begin("AdsUnity: budget"));
+            }
+        });
+
+        operations.add(new Operation("trace span (trace ring)", 0) {
+            @Override
+            void setUp() {
+                TraceRing.install(1024);
+            }
+
+            @Override
+            void run(int iteration) {
+                PluginTrace.end(PluginTrace.begin("AdsUnity: budget"));
+            }
+
+            @Override
+            void tearDown() {
+                PluginTrace.disable();
+            }
+        });
+
+        return operations;
+    }
+
+    /**
+     * Returns the mean number of bytes {@code operation} allocates on the calling thread.
+     */
+    static double measure(Operation operation) {
+        Thread thread = Thread.currentThread();
+        operation.setUp();
+        try {
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                operation.run(i);
+            }
+            long before = RuntimeProbe.getAllocatedBytes(thread);
+            for (int i = 0; i < ITERATIONS; i++) {
+                operation.run(i);
+            }
+            return (double) (RuntimeProbe.getAllocatedBytes(thread) - before) / ITERATIONS;
+        } finally {
+            operation.tearDown();
+        }
+    }
+
+    public static void main(String[] args) {
+        if (!RuntimeProbe.isAllocationCountingSupported()) {
+            System.err.println("This JVM can't count allocations per thread.");
+            System.exit(2);
+        }
+        // Rejected transitions log warnings on every iteration. Only errors matter here.
+        PluginLog.setSink(new PluginLog.Sink() {
+            @Override
+            public void write(int level, String tag, String message) {
+                if (level >= PluginLog.ERROR) {
+                    System.err.println(tag + ": " + message);
+                }
+            }
+        });
+
+        boolean passed = true;
+        System.out.println(String.format("%-40s %10s %10s", "operation", "bytes/op", "budget"));
+        for (Operation operation : getOperations()) {
+            double bytes = measure(operation);
+            // Round, so that the odd allocation by the JVM itself doesn't fail a zero budget.
+            boolean withinBudget = Math.round(bytes) <= operation.mBudgetBytes;
+            passed &= withinBudget;
+            System.out.println(String.format("%-40s %10.1f %10d%s", operation.mName, bytes,
+                    operation.mBudgetBytes, withinBudget ? "" : "  OVER BUDGET"));
+        }
+        System.exit(passed ? 0 : 1);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.harness;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Pairs the SDK callbacks fired during a run with their delivery to Unity listeners, measuring
+ * the latency in between and counting deliveries that overtook an earlier callback of the same
+ * ad. Thread safe.
+ */
+public class DeliveryTracker {
+
+    /**
+     * Callbacks fired but not delivered yet, per ad, in the order they were fired. Each element
+     * is {event code, fire time in nanoseconds}.
+     */
+    private final Map<Integer, ArrayDeque<long[]>> mPending = new HashMap<>();
+
+    private long[] mLatenciesNanos = new long[1024];
+
+    private int mDeliveredCount;
+
+    private int mFiredCount;
+
+    private int mOutOfOrderCount;
+
+    private int mUnmatchedCount;
+
+    /**
+     * Records that an SDK callback of {@code adId} was fired.
+     */
+    public synchronized void fired(int adId, int eventCode) {
+        ArrayDeque<long[]> pending = mPending.get(adId);
+        if (pending == null) {
+            pending = new ArrayDeque<>();
+            mPending.put(adId, pending);
+        }
+        pending.addLast(new long[] {eventCode, System.nanoTime()});
+        mFiredCount++;
+    }
+
+    /**
+     * Records that an event of {@code adId} reached its listener.
+     */
+    public synchronized void delivered(int adId, int eventCode) {
+        long now = System.nanoTime();
+        ArrayDeque<long[]> pending = mPending.get(adId);
+        if (pending == null) {
+            mUnmatchedCount++;
+            return;
+        }
+        boolean first = true;
+        for (Iterator<long[]> iterator = pending.iterator(); iterator.hasNext(); ) {
+            long[] entry = iterator.next();
+            if (entry[0] == eventCode) {
+                iterator.remove();
+                if (!first) {
+                    mOutOfOrderCount++;
+                }
+                if (mDeliveredCount == mLatenciesNanos.length) {
+                    mLatenciesNanos = Arrays.copyOf(mLatenciesNanos, mDeliveredCount * 2);
+                }
+                mLatenciesNanos[mDeliveredCount++] = now - entry[1];
+                notifyAll();
+                return;
+            }
+            first = false;
+        }
+        mUnmatchedCount++;
+    }
+
+    /**
+     * Waits until every fired callback has been delivered.
+     *
+     * @return {@code false} if some were still undelivered after {@code timeoutMillis}.
+     */
+    public synchronized boolean awaitDelivery(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (mDeliveredCount < mFiredCount) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    public synchronized int getFiredCount() {
+        return mFiredCount;
+    }
+
+    public synchronized int getDeliveredCount() {
+        return mDeliveredCount;
+    }
+
+    /**
+     * Returns the number of deliveries that overtook an earlier, still undelivered callback of
+     * the same ad, such as onAdClosed arriving before onAdOpened.
+     */
+    public synchronized int getOutOfOrderCount() {
+        return mOutOfOrderCount;
+    }
+
+    /**
+     * Returns the number of deliveries that matched no fired callback.
+     */
+    public synchronized int getUnmatchedCount() {
+        return mUnmatchedCount;
+    }
+
+    /**
+     * Returns a latency percentile in microseconds, or 0 if nothing was delivered.
+     *
+     * @param percentile Between 0 and 100.
+     */
+    public synchronized long getLatencyPercentileMicros(double percentile) {
+        if (mDeliveredCount == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(mLatenciesNanos, mDeliveredCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1000;
+    }
+
+    public synchronized long getMeanLatencyMicros() {
+        if (mDeliveredCount == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < mDeliveredCount; i++) {
+            total += mLatenciesNanos[i];
+        }
+        return total / mDeliveredCount / 1000;
+    }
+}
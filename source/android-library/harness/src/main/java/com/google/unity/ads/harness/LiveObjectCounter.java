@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.harness;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Counts how many of the objects handed to {@link #track(Object)} are still reachable, such as
+ * the listeners of ads that have been destroyed. Only used from one thread.
+ */
+public final class LiveObjectCounter {
+
+    private final ReferenceQueue<Object> mQueue = new ReferenceQueue<>();
+
+    /**
+     * Holds the references until they are enqueued, so the references themselves aren't
+     * collected.
+     */
+    private final Set<WeakReference<Object>> mReferences = new HashSet<>();
+
+    private long mTrackedCount;
+
+    /**
+     * Starts tracking {@code object}. It is counted as live until it is garbage collected.
+     */
+    public void track(Object object) {
+        mReferences.add(new WeakReference<>(object, mQueue));
+        mTrackedCount++;
+    }
+
+    /**
+     * Collects garbage and returns the number of tracked objects still reachable.
+     */
+    public int getLiveCount() {
+        RuntimeProbe.getRetainedHeapBytes();
+        Reference<?> reference;
+        while ((reference = mQueue.poll()) != null) {
+            mReferences.remove(reference);
+        }
+        return mReferences.size();
+    }
+
+    /**
+     * Returns the number of objects tracked so far.
+     */
+    public long getTrackedCount() {
+        return mTrackedCount;
+    }
+}
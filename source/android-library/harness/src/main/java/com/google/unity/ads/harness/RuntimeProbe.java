@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.harness;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the JVM resource counters the harnesses report on: threads, allocations, heap and GC.
+ */
+public final class RuntimeProbe {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private RuntimeProbe() {
+    }
+
+    /**
+     * Returns the number of live threads.
+     */
+    public static int getLiveThreadCount() {
+        return THREADS.getThreadCount();
+    }
+
+    /**
+     * Returns the highest number of live threads since the last {@link #resetPeakThreadCount()}.
+     */
+    public static int getPeakThreadCount() {
+        return THREADS.getPeakThreadCount();
+    }
+
+    public static void resetPeakThreadCount() {
+        THREADS.resetPeakThreadCount();
+    }
+
+    /**
+     * Returns the number of threads started since the JVM started.
+     */
+    public static long getTotalStartedThreadCount() {
+        return THREADS.getTotalStartedThreadCount();
+    }
+
+    /**
+     * Returns {@code true} if {@link #getAllocatedBytes(Thread)} is supported by this JVM.
+     */
+    public static boolean isAllocationCountingSupported() {
+        return THREADS instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported();
+    }
+
+    /**
+     * Returns the number of bytes allocated by {@code thread} so far, or -1 if allocation counting
+     * is not supported.
+     */
+    public static long getAllocatedBytes(Thread thread) {
+        if (!isAllocationCountingSupported()) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(thread.getId());
+    }
+
+    /**
+     * Returns the total time spent in garbage collection since the JVM started, in milliseconds.
+     */
+    public static long getGcTimeMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of garbage collections since the JVM started.
+     */
+    public static long getGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    /**
+     * Collects garbage and returns the heap still in use, in bytes.
+     */
+    public static long getRetainedHeapBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // A few rounds, so that objects freed by finalizers are collected too.
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
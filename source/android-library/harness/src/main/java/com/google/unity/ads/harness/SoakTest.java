@@ -0,0 +1,680 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.harness;
+
+import com.google.unity.ads.AdErrors;
+import com.google.unity.ads.AdEvents;
+import com.google.unity.ads.AdListenerBridge;
+import com.google.unity.ads.AdStatusBoard;
+import com.google.unity.ads.FullScreenAdController;
+import com.google.unity.ads.LoadScheduler;
+import com.google.unity.ads.PluginLog;
+import com.google.unity.ads.UnityAdEventListener;
+import com.google.unity.ads.UnityAdListener;
+import com.google.unity.ads.UnityRewardBasedVideoAdListener;
+import com.google.unity.ads.fake.AdScript;
+import com.google.unity.ads.fake.FakeAdListener;
+import com.google.unity.ads.fake.FakeAdLoader;
+import com.google.unity.ads.fake.FakeAdNetwork;
+import com.google.unity.ads.fake.FakeBannerAd;
+import com.google.unity.ads.fake.FakeFullScreenAd;
+import com.google.unity.ads.fake.FakeNativeAd;
+import com.google.unity.ads.fake.LatencyDistribution;
+import com.google.unity.ads.fake.VirtualClock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives thousands of create, load, show and destroy cycles of one ad format against the local
+ * SDK stand-in and checks that nothing accumulates: live threads, retained heap, ads registered
+ * with the plugin, listeners of destroyed ads that are still reachable, and time spent in garbage
+ * collection. The run is split into checkpoints, and it fails if any of these keeps growing from
+ * one checkpoint to the next instead of levelling off.
+ *
+ * <p>Banners and native ads run their loads through the {@link LoadScheduler} and their events
+ * through {@link AdEvents} and {@link AdListenerBridge}, which is the part of {@code Banner} and
+ * {@code NativeAdLoader} that runs off-device. Their views, and so showing and hiding banners, can
+ * only be soaked on a device.
+ *
+ * <p>Usage: {@code SoakTest [cycles] [interstitial|rewarded|banner|native ...]}. Exits with
+ * status 1 if any format fails.
+ */
+public class SoakTest {
+
+    public static final int FORMAT_INTERSTITIAL = 0;
+
+    public static final int FORMAT_REWARDED = 1;
+
+    public static final int FORMAT_BANNER = 2;
+
+    public static final int FORMAT_NATIVE = 3;
+
+    private static final String[] FORMAT_NAMES = {"interstitial", "rewarded", "banner", "native"};
+
+    private static final int DEFAULT_CYCLES = 5000;
+
+    /**
+     * Cycles run before the baseline is taken, so that lazily created threads and caches don't
+     * count as growth.
+     */
+    private static final int WARM_UP_CYCLES = 200;
+
+    private static final int CHECKPOINT_COUNT = 10;
+
+    /**
+     * Live threads tolerated above the baseline, for threads the JVM starts on its own.
+     */
+    private static final int MAX_THREAD_GROWTH = 2;
+
+    /**
+     * Tracked objects tolerated to be reachable at a checkpoint, for those of the last cycle that
+     * the collector hasn't cleared yet.
+     */
+    private static final int MAX_LIVE_OBJECTS = 8;
+
+    /**
+     * Retained heap growth per cycle, fitted across checkpoints, above which the heap is leaking.
+     */
+    private static final double MAX_HEAP_BYTES_PER_CYCLE = 32;
+
+    /**
+     * Retained heap growth over the whole run that is written off as noise whatever its slope.
+     */
+    private static final long MIN_HEAP_GROWTH_BYTES = 1024 * 1024;
+
+    /**
+     * Time spent in garbage collection per checkpoint may grow by this factor, plus
+     * {@link #GC_MILLIS_SLACK}, between the first and second half of the run.
+     */
+    private static final int MAX_GC_GROWTH_FACTOR = 2;
+
+    private static final long GC_MILLIS_SLACK = 20;
+
+    private static final int MAX_TASKS_PER_STEP = 10000;
+
+    private static final long DELIVERY_TIMEOUT_MILLIS = 5000;
+
+    private static final int STATUS_BOARD_SLOTS = 64;
+
+    private static final String AD_UNIT_ID = "ca-app-pub-3940256099942544/soak";
+
+    private static final Object REQUEST = new Object();
+
+    private final int mFormat;
+
+    private final int mCycles;
+
+    private final VirtualClock mClock = new VirtualClock();
+
+    private final FakeAdNetwork mNetwork;
+
+    private final LiveObjectCounter mLiveObjects = new LiveObjectCounter();
+
+    private final AtomicLong mDispatchedCount = new AtomicLong();
+
+    private final AtomicLong mDeliveredCount = new AtomicLong();
+
+    /**
+     * Creates a soak test.
+     *
+     * @param format One of the {@code FORMAT_} constants.
+     * @param cycles The number of cycles measured, after {@link #WARM_UP_CYCLES} warm-up cycles.
+     * @param seed   Seed of the fake network, so a failing run can be repeated.
+     */
+    public SoakTest(int format, int cycles, long seed) {
+        if (format < FORMAT_INTERSTITIAL || format > FORMAT_NATIVE) {
+            throw new IllegalArgumentException("Unknown format: " + format);
+        }
+        if (cycles < CHECKPOINT_COUNT) {
+            throw new IllegalArgumentException("At least " + CHECKPOINT_COUNT + " cycles needed.");
+        }
+        mFormat = format;
+        mCycles = cycles;
+        mNetwork = new FakeAdNetwork(mClock, new AdScript()
+                .setFillRate(0.8)
+                .setLatency(LatencyDistribution.logNormal(300, 0.5))
+                .setErrorCodes(AdErrors.ERROR_CODE_NO_FILL, AdErrors.ERROR_CODE_NETWORK_ERROR)
+                .setMediationAdapterClassName("com.google.ads.mediation.soak.SoakAdapter"),
+                seed);
+    }
+
+    /**
+     * Runs the soak test. Can only be called once.
+     */
+    public Result run() throws InterruptedException {
+        AdStatusBoard.enable(STATUS_BOARD_SLOTS);
+        for (int cycle = 0; cycle < WARM_UP_CYCLES; cycle++) {
+            runCycle(cycle);
+        }
+        awaitDelivery();
+
+        Result result = new Result(FORMAT_NAMES[mFormat], mCycles);
+        Checkpoint baseline = checkpoint(0, 0);
+        result.mCheckpoints.add(baseline);
+        int cycle = 0;
+        for (int i = 1; i <= CHECKPOINT_COUNT; i++) {
+            long gcMillisBefore = RuntimeProbe.getGcTimeMillis();
+            int end = (int) ((long) mCycles * i / CHECKPOINT_COUNT);
+            for (; cycle < end; cycle++) {
+                runCycle(WARM_UP_CYCLES + cycle);
+            }
+            long gcMillis = RuntimeProbe.getGcTimeMillis() - gcMillisBefore;
+            if (!awaitDelivery()) {
+                result.mFailures.add("Events were lost: " + mDeliveredCount.get() + " of "
+                        + mDispatchedCount.get() + " delivered after " + cycle + " cycles.");
+            }
+            result.mCheckpoints.add(checkpoint(cycle, gcMillis));
+        }
+        result.mDispatchedCount = mDispatchedCount.get();
+        result.mNetworkRequestCount = mNetwork.getRequestCount();
+        result.evaluate(baseline);
+        return result;
+    }
+
+    private Checkpoint checkpoint(int cycles, long gcMillis) {
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.mCycles = cycles;
+        checkpoint.mGcMillis = gcMillis;
+        // Counting live objects collects garbage, so take the heap and threads afterwards.
+        checkpoint.mLiveObjects = mLiveObjects.getLiveCount();
+        checkpoint.mRetainedHeapBytes = RuntimeProbe.getRetainedHeapBytes();
+        checkpoint.mLiveThreads = RuntimeProbe.getLiveThreadCount();
+        LoadScheduler scheduler = LoadScheduler.getInstance();
+        int queuedLoads = 0;
+        for (int priority = LoadScheduler.PRIORITY_REWARDED;
+                priority <= LoadScheduler.PRIORITY_BANNER; priority++) {
+            queuedLoads += scheduler.getPendingCount(priority);
+        }
+        checkpoint.mRegistrations = AdStatusBoard.getRegisteredCount()
+                + scheduler.getInFlightCount() + queuedLoads + mClock.getPendingTaskCount();
+        return checkpoint;
+    }
+
+    private boolean awaitDelivery() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DELIVERY_TIMEOUT_MILLIS;
+        while (mDeliveredCount.get() < mDispatchedCount.get()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private void runCycle(int cycle) {
+        switch (mFormat) {
+            case FORMAT_INTERSTITIAL:
+            case FORMAT_REWARDED:
+                runFullScreenCycle(cycle);
+                break;
+            case FORMAT_BANNER:
+                runBannerCycle(cycle);
+                break;
+            default:
+                runNativeCycle();
+                break;
+        }
+    }
+
+    private void runFullScreenCycle(int cycle) {
+        boolean rewarded = mFormat == FORMAT_REWARDED;
+        FakeFullScreenAd sdk = new FakeFullScreenAd(mNetwork, rewarded);
+        FullScreenAdController<Object> controller = new FullScreenAdController<Object>(
+                FORMAT_NAMES[mFormat],
+                rewarded ? LoadScheduler.PRIORITY_REWARDED : LoadScheduler.PRIORITY_INTERSTITIAL,
+                mClock, sdk, newListener());
+        sdk.attach(controller);
+        controller.registerWithStatusBoard();
+
+        controller.loadAd(REQUEST, AD_UNIT_ID);
+        mClock.runUntilIdle(MAX_TASKS_PER_STEP);
+        if (controller.isLoaded() && controller.show()) {
+            // Run the show itself but not the close, so the ad can be clicked while shown.
+            mClock.advanceBy(0);
+            if (cycle % 4 == 0) {
+                sdk.click();
+            }
+            mClock.runUntilIdle(MAX_TASKS_PER_STEP);
+        }
+        controller.destroy();
+        sdk.destroy();
+        mLiveObjects.track(controller);
+        mLiveObjects.track(sdk);
+    }
+
+    private void runBannerCycle(int cycle) {
+        SoakBanner banner = new SoakBanner(new FakeBannerAd(mNetwork), newListener());
+        banner.load();
+        mClock.runUntilIdle(MAX_TASKS_PER_STEP);
+        if (cycle % 2 == 0) {
+            // Refresh, and destroy the banner before the refresh is answered every other time.
+            banner.load();
+            if (cycle % 4 == 0) {
+                mClock.runUntilIdle(MAX_TASKS_PER_STEP);
+            }
+        }
+        if (cycle % 3 == 0) {
+            banner.mView.click();
+            banner.mView.returnFromClick();
+        }
+        banner.destroy();
+        mClock.runUntilIdle(MAX_TASKS_PER_STEP);
+        mLiveObjects.track(banner);
+        mLiveObjects.track(banner.mView);
+    }
+
+    private void runNativeCycle() {
+        SoakNativeAd nativeAd = new SoakNativeAd(newListener());
+        nativeAd.load();
+        mClock.runUntilIdle(MAX_TASKS_PER_STEP);
+        nativeAd.finishLoad();
+        mLiveObjects.track(nativeAd);
+        mLiveObjects.track(nativeAd.mLoader);
+    }
+
+    /**
+     * Returns a Unity listener for a new ad, adapted through {@link AdListenerBridge} and counting
+     * the events dispatched to it and delivered by it.
+     */
+    private UnityAdEventListener newListener() {
+        CountingListener unityListener = new CountingListener();
+        mLiveObjects.track(unityListener);
+        final UnityAdEventListener bridge = mFormat == FORMAT_REWARDED
+                ? AdListenerBridge.of((UnityRewardBasedVideoAdListener) unityListener)
+                : AdListenerBridge.of((UnityAdListener) unityListener);
+        return new UnityAdEventListener() {
+            @Override
+            public void onAdEvent(int handle, int eventCode, int intArg, String stringArg) {
+                mDispatchedCount.incrementAndGet();
+                bridge.onAdEvent(handle, eventCode, intArg, stringArg);
+            }
+        };
+    }
+
+    /**
+     * Stands in for the Unity listener of an ad.
+     */
+    private final class CountingListener
+            implements UnityAdListener, UnityRewardBasedVideoAdListener {
+
+        @Override
+        public void onAdLoaded() {
+            mDeliveredCount.incrementAndGet();
+        }
+
+        @Override
+        public void onAdFailedToLoad(String errorReason) {
+            mDeliveredCount.incrementAndGet();
+        }
+
+        @Override
+        public void onAdOpened() {
+            mDeliveredCount.incrementAndGet();
+        }
+
+        @Override
+        public void onAdStarted() {
+            mDeliveredCount.incrementAndGet();
+        }
+
+        @Override
+        public void onAdClosed() {
+            mDeliveredCount.incrementAndGet();
+        }
+
+        @Override
+        public void onAdRewarded(String type, float amount) {
+            mDeliveredCount.incrementAndGet();
+        }
+
+        @Override
+        public void onAdLeftApplication() {
+            mDeliveredCount.incrementAndGet();
+        }
+
+        @Override
+        public void onAdCompleted() {
+            mDeliveredCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * The off-device part of {@code Banner}: loads go through the {@link LoadScheduler} and
+     * events through {@link AdEvents}.
+     */
+    private final class SoakBanner {
+
+        private final int mAdId = AdEvents.nextAdId();
+
+        private final FakeBannerAd mView;
+
+        private final UnityAdEventListener mListener;
+
+        private LoadScheduler.Ticket mLoadTicket;
+
+        SoakBanner(FakeBannerAd view, UnityAdEventListener listener) {
+            mView = view;
+            mListener = listener;
+            mView.setAdUnitId(AD_UNIT_ID);
+            mView.setAdListener(new FakeAdListener() {
+                @Override
+                public void onAdLoaded() {
+                    finishLoad();
+                    dispatch(AdEvents.EVENT_AD_LOADED, 0, null);
+                }
+
+                @Override
+                public void onAdFailedToLoad(int errorCode) {
+                    finishLoad();
+                    dispatch(AdEvents.EVENT_AD_FAILED_TO_LOAD, errorCode,
+                            AdErrors.getErrorReason(errorCode));
+                }
+
+                @Override
+                public void onAdOpened() {
+                    dispatch(AdEvents.EVENT_AD_OPENED, 0, null);
+                }
+
+                @Override
+                public void onAdClosed() {
+                    dispatch(AdEvents.EVENT_AD_CLOSED, 0, null);
+                }
+
+                @Override
+                public void onAdLeftApplication() {
+                    dispatch(AdEvents.EVENT_AD_LEFT_APPLICATION, 0, null);
+                }
+            });
+        }
+
+        void load() {
+            finishLoad();
+            mLoadTicket = LoadScheduler.getInstance().submit(LoadScheduler.PRIORITY_BANNER,
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            mClock.post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    mView.loadAd(REQUEST);
+                                }
+                            });
+                        }
+                    });
+        }
+
+        void destroy() {
+            finishLoad();
+            mView.destroy();
+        }
+
+        private void finishLoad() {
+            LoadScheduler.Ticket ticket = mLoadTicket;
+            if (ticket != null) {
+                mLoadTicket = null;
+                ticket.finish();
+            }
+        }
+
+        private void dispatch(int eventCode, int intArg, String stringArg) {
+            AdEvents.dispatch(mAdId, eventCode, intArg, stringArg, mListener);
+        }
+    }
+
+    /**
+     * The off-device part of {@code NativeAdLoader}.
+     */
+    private final class SoakNativeAd {
+
+        private final int mAdId = AdEvents.nextAdId();
+
+        private final FakeAdLoader mLoader;
+
+        private final UnityAdEventListener mListener;
+
+        private LoadScheduler.Ticket mLoadTicket;
+
+        SoakNativeAd(UnityAdEventListener listener) {
+            mListener = listener;
+            mLoader = new FakeAdLoader(mNetwork, "10104090",
+                    new FakeAdLoader.OnCustomTemplateAdLoadedListener() {
+                        @Override
+                        public void onCustomTemplateAdLoaded(FakeNativeAd ad) {
+                            finishLoad();
+                            mLiveObjects.track(ad);
+                            AdEvents.dispatch(mAdId, AdEvents.EVENT_AD_LOADED, 0, null,
+                                    mListener);
+                        }
+                    },
+                    new FakeAdListener() {
+                        @Override
+                        public void onAdFailedToLoad(int errorCode) {
+                            finishLoad();
+                            AdEvents.dispatch(mAdId, AdEvents.EVENT_AD_FAILED_TO_LOAD, errorCode,
+                                    AdErrors.getErrorReason(errorCode), mListener);
+                        }
+                    });
+        }
+
+        void load() {
+            mLoadTicket = LoadScheduler.getInstance().submit(LoadScheduler.PRIORITY_NATIVE,
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            mClock.post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    mLoader.loadAd(REQUEST);
+                                }
+                            });
+                        }
+                    });
+        }
+
+        void finishLoad() {
+            LoadScheduler.Ticket ticket = mLoadTicket;
+            if (ticket != null) {
+                mLoadTicket = null;
+                ticket.finish();
+            }
+        }
+    }
+
+    /**
+     * The measurements taken after a number of cycles.
+     */
+    private static final class Checkpoint {
+
+        int mCycles;
+
+        int mLiveThreads;
+
+        long mRetainedHeapBytes;
+
+        int mRegistrations;
+
+        int mLiveObjects;
+
+        long mGcMillis;
+    }
+
+    /**
+     * The outcome of a soak test.
+     */
+    public static final class Result {
+
+        private final String mFormatName;
+
+        private final int mCycles;
+
+        private final List<Checkpoint> mCheckpoints = new ArrayList<>();
+
+        private final List<String> mFailures = new ArrayList<>();
+
+        private long mDispatchedCount;
+
+        private long mNetworkRequestCount;
+
+        private double mHeapBytesPerCycle;
+
+        Result(String formatName, int cycles) {
+            mFormatName = formatName;
+            mCycles = cycles;
+        }
+
+        /**
+         * Returns {@code true} if nothing grew without bound.
+         */
+        public boolean isPassed() {
+            return mFailures.isEmpty();
+        }
+
+        /**
+         * Returns a description of each measurement that grew without bound.
+         */
+        public List<String> getFailures() {
+            return mFailures;
+        }
+
+        void evaluate(Checkpoint baseline) {
+            List<Checkpoint> measured = mCheckpoints.subList(1, mCheckpoints.size());
+            Checkpoint last = measured.get(measured.size() - 1);
+
+            int maxThreads = 0;
+            for (Checkpoint checkpoint : measured) {
+                maxThreads = Math.max(maxThreads, checkpoint.mLiveThreads);
+                if (checkpoint.mRegistrations > 0) {
+                    mFailures.add(checkpoint.mRegistrations + " status board slots, loads or SDK "
+                            + "callbacks still registered after " + checkpoint.mCycles
+                            + " cycles.");
+                }
+                if (checkpoint.mLiveObjects > MAX_LIVE_OBJECTS) {
+                    mFailures.add(checkpoint.mLiveObjects + " listeners and ads still reachable "
+                            + "after being destroyed, after " + checkpoint.mCycles + " cycles.");
+                }
+            }
+            if (maxThreads > baseline.mLiveThreads + MAX_THREAD_GROWTH) {
+                mFailures.add("Live threads grew from " + baseline.mLiveThreads + " to "
+                        + maxThreads + ".");
+            }
+
+            // Least squares slope of the retained heap against the number of cycles run.
+            double meanCycles = 0;
+            double meanHeap = 0;
+            for (Checkpoint checkpoint : measured) {
+                meanCycles += checkpoint.mCycles;
+                meanHeap += checkpoint.mRetainedHeapBytes;
+            }
+            meanCycles /= measured.size();
+            meanHeap /= measured.size();
+            double covariance = 0;
+            double variance = 0;
+            for (Checkpoint checkpoint : measured) {
+                double dx = checkpoint.mCycles - meanCycles;
+                covariance += dx * (checkpoint.mRetainedHeapBytes - meanHeap);
+                variance += dx * dx;
+            }
+            mHeapBytesPerCycle = variance == 0 ? 0 : covariance / variance;
+            long heapGrowth = last.mRetainedHeapBytes - baseline.mRetainedHeapBytes;
+            if (mHeapBytesPerCycle > MAX_HEAP_BYTES_PER_CYCLE
+                    && heapGrowth > MIN_HEAP_GROWTH_BYTES) {
+                mFailures.add("Retained heap grew by " + heapGrowth + " bytes, "
+                        + Math.round(mHeapBytesPerCycle) + " bytes per cycle.");
+            }
+
+            int half = measured.size() / 2;
+            long firstHalfGcMillis = 0;
+            long secondHalfGcMillis = 0;
+            for (int i = 0; i < measured.size(); i++) {
+                if (i < half) {
+                    firstHalfGcMillis += measured.get(i).mGcMillis;
+                } else {
+                    secondHalfGcMillis += measured.get(i).mGcMillis;
+                }
+            }
+            // Compare per-checkpoint means, the halves differ in size when the count is odd.
+            long firstMean = firstHalfGcMillis / half;
+            long secondMean = secondHalfGcMillis / (measured.size() - half);
+            if (secondMean > firstMean * MAX_GC_GROWTH_FACTOR + GC_MILLIS_SLACK) {
+                mFailures.add("Garbage collection time per checkpoint grew from " + firstMean
+                        + " ms to " + secondMean + " ms.");
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(mFormatName).append(": ").append(mCycles).append(" cycles, ")
+                    .append(mNetworkRequestCount).append(" requests, ").append(mDispatchedCount)
+                    .append(" events, ").append(isPassed() ? "PASSED" : "FAILED").append('\n');
+            builder.append(String.format("  %8s %8s %12s %8s %8s %8s%n",
+                    "cycles", "threads", "heap", "regs", "live", "gc ms"));
+            for (Checkpoint checkpoint : mCheckpoints) {
+                builder.append(String.format("  %8d %8d %12d %8d %8d %8d%n",
+                        checkpoint.mCycles, checkpoint.mLiveThreads,
+                        checkpoint.mRetainedHeapBytes, checkpoint.mRegistrations,
+                        checkpoint.mLiveObjects, checkpoint.mGcMillis));
+            }
+            builder.append(String.format("  heap slope: %.1f bytes per cycle%n",
+                    mHeapBytesPerCycle));
+            for (String failure : mFailures) {
+                builder.append("  FAILURE: ").append(failure).append('\n');
+            }
+            return builder.toString();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int cycles = args.length > 0 && !args[0].isEmpty()
+                ? Integer.parseInt(args[0]) : DEFAULT_CYCLES;
+        List<Integer> formats = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            int format = Arrays.asList(FORMAT_NAMES).indexOf(args[i]);
+            if (format < 0) {
+                System.err.println("Usage: SoakTest [cycles] "
+                        + "[interstitial|rewarded|banner|native ...]");
+                System.exit(2);
+            }
+            formats.add(format);
+        }
+        if (formats.isEmpty()) {
+            for (int format = FORMAT_INTERSTITIAL; format <= FORMAT_NATIVE; format++) {
+                formats.add(format);
+            }
+        }
+
+        // Thousands of cycles log a lot. Only warnings and errors matter here.
+        PluginLog.setSink(new PluginLog.Sink() {
+            @Override
+            public void write(int level, String tag, String message) {
+                if (level >= PluginLog.WARN) {
+                    System.err.println(tag + ": " + message);
+                }
+            }
+        });
+
+        boolean passed = true;
+        for (int format : formats) {
+            Result result = new SoakTest(format, cycles, format).run();
+            System.out.print(result);
+            passed &= result.isPassed();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+}
@@ -0,0 +1,551 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.harness;
+
+import com.google.unity.ads.AdErrors;
+import com.google.unity.ads.AdEvents;
+import com.google.unity.ads.AdListenerBridge;
+import com.google.unity.ads.FullScreenAdController;
+import com.google.unity.ads.FullScreenAdSdk;
+import com.google.unity.ads.LoadScheduler;
+import com.google.unity.ads.Timeline;
+import com.google.unity.ads.TimelineRecorder;
+import com.google.unity.ads.UiThread;
+import com.google.unity.ads.UnityAdEventListener;
+import com.google.unity.ads.UnityAdListener;
+import com.google.unity.ads.UnityRewardBasedVideoAdListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a timeline recorded with {@link TimelineRecorder} through the plugin core, at real or
+ * accelerated speed. Plugin calls are issued from the replay thread, the way Unity issues them,
+ * and SDK callbacks are fired on a dedicated UI thread at their recorded times by a stand-in SDK.
+ * The replay reports how long events took to reach their listeners, how many overtook an earlier
+ * event, and the threads and allocations the run cost.
+ *
+ * <p>Full screen ads run through {@link FullScreenAdController}. Banners and native ads replay
+ * their loads through the {@link LoadScheduler} and their events through {@link AdEvents}, which
+ * is the part of {@code Banner} and {@code NativeAdLoader} that runs off-device. Ads created
+ * before the recording started are replayed as interstitials.
+ *
+ * <p>Usage: {@code TimelineReplayer <recording> [speed|max] [listener|multiplexed]}
+ */
+public class TimelineReplayer {
+
+    /**
+     * Events go to a listener per ad through {@link AdListenerBridge}.
+     */
+    public static final int DELIVERY_LISTENER = 0;
+
+    /**
+     * Events go to a single listener set with
+     * {@link AdEvents#setMultiplexedListener(UnityAdEventListener)}.
+     */
+    public static final int DELIVERY_MULTIPLEXED = 1;
+
+    private static final Object REQUEST = new Object();
+
+    private final Timeline mTimeline;
+
+    private final double mSpeed;
+
+    private final int mDelivery;
+
+    private final DeliveryTracker mTracker = new DeliveryTracker();
+
+    /**
+     * Replayed ads by their ID in the recording. Only used on the replay thread.
+     */
+    private final Map<Integer, ReplayAd> mAds = new HashMap<>();
+
+    /**
+     * Maps the IDs of the ads created by the replay to their IDs in the recording.
+     */
+    private final Map<Integer, Integer> mRecordedIds = new ConcurrentHashMap<>();
+
+    private ExecutorService mUiExecutor;
+
+    private volatile Thread mUiThread;
+
+    private UiThread mUi;
+
+    /**
+     * Whether callbacks were posted to the UI thread since it was last drained.
+     */
+    private boolean mCallbacksPending;
+
+    /**
+     * Creates a replayer.
+     *
+     * @param timeline The recording to replay.
+     * @param speed    How many times faster than recorded to replay, or
+     *                 {@link Double#POSITIVE_INFINITY} to replay without waiting.
+     * @param delivery {@link #DELIVERY_LISTENER} or {@link #DELIVERY_MULTIPLEXED}.
+     */
+    public TimelineReplayer(Timeline timeline, double speed, int delivery) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Speed must be positive: " + speed);
+        }
+        mTimeline = timeline;
+        mSpeed = speed;
+        mDelivery = delivery;
+    }
+
+    /**
+     * Replays the timeline. Can only be called once.
+     */
+    public Report run() throws InterruptedException {
+        mUiExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ReplayUi");
+                mUiThread = thread;
+                return thread;
+            }
+        });
+        mUi = new UiThread() {
+            @Override
+            public void post(Runnable task) {
+                mUiExecutor.execute(task);
+            }
+        };
+        if (mDelivery == DELIVERY_MULTIPLEXED) {
+            AdEvents.setMultiplexedListener(new UnityAdEventListener() {
+                @Override
+                public void onAdEvent(int handle, int eventCode, int intArg, String stringArg) {
+                    Integer recordedId = mRecordedIds.get(handle);
+                    mTracker.delivered(recordedId != null ? recordedId : -handle, eventCode);
+                }
+            });
+        }
+        // Make sure the UI thread exists before measuring.
+        drainUiThread();
+
+        Thread replayThread = Thread.currentThread();
+        RuntimeProbe.resetPeakThreadCount();
+        long threadsBefore = RuntimeProbe.getTotalStartedThreadCount();
+        long replayAllocatedBefore = RuntimeProbe.getAllocatedBytes(replayThread);
+        long uiAllocatedBefore = RuntimeProbe.getAllocatedBytes(mUiThread);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < mTimeline.size(); i++) {
+            if (mSpeed != Double.POSITIVE_INFINITY) {
+                long due = start + (long) (mTimeline.getTimeMicros(i) * 1000 / mSpeed);
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            replay(mTimeline.getAdId(i), mTimeline.getKind(i), mTimeline.getIntArg(i));
+        }
+        drainUiThread();
+        boolean allDelivered = mTracker.awaitDelivery(5000);
+        long wallNanos = System.nanoTime() - start;
+
+        Report report = new Report();
+        report.mEventCount = mTimeline.size();
+        report.mWallMillis = wallNanos / 1000000;
+        report.mRecordedMillis = mTimeline.size() == 0
+                ? 0 : mTimeline.getTimeMicros(mTimeline.size() - 1) / 1000;
+        report.mCallbacksFired = mTracker.getFiredCount();
+        report.mCallbacksDelivered = mTracker.getDeliveredCount();
+        report.mAllDelivered = allDelivered;
+        report.mOutOfOrderCount = mTracker.getOutOfOrderCount();
+        report.mUnmatchedCount = mTracker.getUnmatchedCount();
+        report.mMeanLatencyMicros = mTracker.getMeanLatencyMicros();
+        report.mP50LatencyMicros = mTracker.getLatencyPercentileMicros(50);
+        report.mP99LatencyMicros = mTracker.getLatencyPercentileMicros(99);
+        report.mMaxLatencyMicros = mTracker.getLatencyPercentileMicros(100);
+        report.mPeakThreadCount = RuntimeProbe.getPeakThreadCount();
+        report.mThreadsStarted = RuntimeProbe.getTotalStartedThreadCount() - threadsBefore;
+        report.mAllocatedBytes = replayAllocatedBefore < 0 ? -1
+                : RuntimeProbe.getAllocatedBytes(replayThread) - replayAllocatedBefore
+                + RuntimeProbe.getAllocatedBytes(mUiThread) - uiAllocatedBefore;
+
+        for (ReplayAd ad : mAds.values()) {
+            ad.destroy();
+        }
+        if (mDelivery == DELIVERY_MULTIPLEXED) {
+            AdEvents.setMultiplexedListener(null);
+        }
+        mUiExecutor.shutdown();
+        mUiExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        return report;
+    }
+
+    private void replay(int recordedId, int kind, int intArg) throws InterruptedException {
+        if (kind < TimelineRecorder.KIND_CALLBACK && mCallbacksPending) {
+            // Keep the recorded order of callbacks and calls, even when replaying faster than
+            // the UI thread can keep up.
+            drainUiThread();
+            mCallbacksPending = false;
+        }
+        ReplayAd ad = mAds.get(recordedId);
+        if (kind == TimelineRecorder.KIND_CREATE) {
+            if (ad != null) {
+                ad.destroy();
+            }
+            mAds.put(recordedId, new ReplayAd(recordedId, intArg));
+            return;
+        }
+        if (ad == null) {
+            ad = new ReplayAd(recordedId, LoadScheduler.PRIORITY_INTERSTITIAL);
+            mAds.put(recordedId, ad);
+        }
+        if (kind >= TimelineRecorder.KIND_CALLBACK) {
+            ad.fireCallback(kind - TimelineRecorder.KIND_CALLBACK, intArg);
+            mCallbacksPending = true;
+        } else {
+            ad.call(kind);
+        }
+    }
+
+    private void drainUiThread() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        mUiExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        latch.await();
+    }
+
+    /**
+     * Stands in for the SDK of a replayed full screen ad. Its callbacks come from the recording,
+     * so loads and shows don't do anything.
+     */
+    private static final class ReplaySdk implements FullScreenAdSdk<Object> {
+        @Override
+        public void load(Object request, String adUnitId) {
+        }
+
+        @Override
+        public boolean isLoaded() {
+            return true;
+        }
+
+        @Override
+        public void show() {
+        }
+    }
+
+    /**
+     * Receives the events of one ad through {@link AdListenerBridge}.
+     */
+    private final class TrackingListener
+            implements UnityAdListener, UnityRewardBasedVideoAdListener {
+
+        private final int mRecordedId;
+
+        TrackingListener(int recordedId) {
+            mRecordedId = recordedId;
+        }
+
+        @Override
+        public void onAdLoaded() {
+            mTracker.delivered(mRecordedId, AdEvents.EVENT_AD_LOADED);
+        }
+
+        @Override
+        public void onAdFailedToLoad(String errorReason) {
+            mTracker.delivered(mRecordedId, AdEvents.EVENT_AD_FAILED_TO_LOAD);
+        }
+
+        @Override
+        public void onAdOpened() {
+            mTracker.delivered(mRecordedId, AdEvents.EVENT_AD_OPENED);
+        }
+
+        @Override
+        public void onAdStarted() {
+            mTracker.delivered(mRecordedId, AdEvents.EVENT_AD_STARTED);
+        }
+
+        @Override
+        public void onAdClosed() {
+            mTracker.delivered(mRecordedId, AdEvents.EVENT_AD_CLOSED);
+        }
+
+        @Override
+        public void onAdRewarded(String type, float amount) {
+            mTracker.delivered(mRecordedId, AdEvents.EVENT_AD_REWARDED);
+        }
+
+        @Override
+        public void onAdLeftApplication() {
+            mTracker.delivered(mRecordedId, AdEvents.EVENT_AD_LEFT_APPLICATION);
+        }
+
+        @Override
+        public void onAdCompleted() {
+            mTracker.delivered(mRecordedId, AdEvents.EVENT_AD_COMPLETED);
+        }
+    }
+
+    /**
+     * A replayed ad.
+     */
+    private final class ReplayAd {
+
+        private final int mRecordedId;
+
+        private final int mAdId;
+
+        /**
+         * The controller of a full screen ad, {@code null} for banners and native ads.
+         */
+        private final FullScreenAdController<Object> mController;
+
+        /**
+         * The listener of a banner or native ad, {@code null} with multiplexed delivery.
+         */
+        private final UnityAdEventListener mListener;
+
+        private final int mLoadPriority;
+
+        private volatile LoadScheduler.Ticket mLoadTicket;
+
+        ReplayAd(int recordedId, int loadPriority) {
+            mRecordedId = recordedId;
+            mLoadPriority = loadPriority;
+            UnityAdEventListener listener = null;
+            if (mDelivery == DELIVERY_LISTENER) {
+                TrackingListener tracking = new TrackingListener(recordedId);
+                listener = loadPriority == LoadScheduler.PRIORITY_REWARDED
+                        ? AdListenerBridge.of((UnityRewardBasedVideoAdListener) tracking)
+                        : AdListenerBridge.of((UnityAdListener) tracking);
+            }
+            if (loadPriority == LoadScheduler.PRIORITY_REWARDED
+                    || loadPriority == LoadScheduler.PRIORITY_INTERSTITIAL) {
+                mController = new FullScreenAdController<Object>("Replay", loadPriority, mUi,
+                        new ReplaySdk(), listener);
+                mListener = null;
+                mAdId = mController.getAdId();
+            } else {
+                mController = null;
+                mListener = listener;
+                mAdId = AdEvents.nextAdId();
+            }
+            mRecordedIds.put(mAdId, recordedId);
+        }
+
+        void call(int kind) {
+            switch (kind) {
+                case TimelineRecorder.KIND_LOAD:
+                case TimelineRecorder.KIND_REFRESH:
+                    if (mController != null) {
+                        mController.loadAd(REQUEST, null);
+                    } else {
+                        finishLoad();
+                        mLoadTicket = LoadScheduler.getInstance().submit(mLoadPriority,
+                                new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        mUi.post(new Runnable() {
+                                            @Override
+                                            public void run() {
+                                            }
+                                        });
+                                    }
+                                });
+                    }
+                    break;
+                case TimelineRecorder.KIND_SHOW:
+                    if (mController != null) {
+                        mController.show();
+                    }
+                    break;
+                case TimelineRecorder.KIND_DESTROY:
+                    destroy();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        void fireCallback(final int eventCode, final int intArg) {
+            mUi.post(new Runnable() {
+                @Override
+                public void run() {
+                    mTracker.fired(mRecordedId, eventCode);
+                    if (mController != null) {
+                        fireControllerCallback(eventCode, intArg);
+                        return;
+                    }
+                    String stringArg = null;
+                    if (eventCode == AdEvents.EVENT_AD_LOADED) {
+                        finishLoad();
+                    } else if (eventCode == AdEvents.EVENT_AD_FAILED_TO_LOAD) {
+                        finishLoad();
+                        stringArg = AdErrors.getErrorReason(intArg);
+                    }
+                    AdEvents.dispatch(mAdId, eventCode, intArg, stringArg, mListener);
+                }
+            });
+        }
+
+        private void fireControllerCallback(int eventCode, int intArg) {
+            switch (eventCode) {
+                case AdEvents.EVENT_AD_LOADED:
+                    mController.onAdLoaded();
+                    break;
+                case AdEvents.EVENT_AD_FAILED_TO_LOAD:
+                    mController.onAdFailedToLoad(intArg);
+                    break;
+                case AdEvents.EVENT_AD_OPENED:
+                    mController.onAdOpened();
+                    break;
+                case AdEvents.EVENT_AD_CLOSED:
+                    mController.onAdClosed();
+                    break;
+                case AdEvents.EVENT_AD_LEFT_APPLICATION:
+                    mController.onAdLeftApplication();
+                    break;
+                case AdEvents.EVENT_AD_STARTED:
+                    mController.onAdStarted();
+                    break;
+                case AdEvents.EVENT_AD_REWARDED:
+                    mController.onAdRewarded("reward", intArg);
+                    break;
+                case AdEvents.EVENT_AD_COMPLETED:
+                    mController.onAdCompleted();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void finishLoad() {
+            LoadScheduler.Ticket ticket = mLoadTicket;
+            if (ticket != null) {
+                mLoadTicket = null;
+                ticket.finish();
+            }
+        }
+
+        void destroy() {
+            if (mController != null) {
+                mController.destroy();
+            } else {
+                finishLoad();
+            }
+        }
+    }
+
+    /**
+     * The measurements of a replay.
+     */
+    public static final class Report {
+
+        int mEventCount;
+
+        long mWallMillis;
+
+        long mRecordedMillis;
+
+        int mCallbacksFired;
+
+        int mCallbacksDelivered;
+
+        boolean mAllDelivered;
+
+        int mOutOfOrderCount;
+
+        int mUnmatchedCount;
+
+        long mMeanLatencyMicros;
+
+        long mP50LatencyMicros;
+
+        long mP99LatencyMicros;
+
+        long mMaxLatencyMicros;
+
+        int mPeakThreadCount;
+
+        long mThreadsStarted;
+
+        long mAllocatedBytes;
+
+        public int getOutOfOrderCount() {
+            return mOutOfOrderCount;
+        }
+
+        public boolean isAllDelivered() {
+            return mAllDelivered;
+        }
+
+        public long getP99LatencyMicros() {
+            return mP99LatencyMicros;
+        }
+
+        public long getThreadsStarted() {
+            return mThreadsStarted;
+        }
+
+        public long getAllocatedBytes() {
+            return mAllocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "events replayed:       " + mEventCount + "\n"
+                    + "recorded / wall time:  " + mRecordedMillis + " ms / " + mWallMillis
+                    + " ms\n"
+                    + "callbacks delivered:   " + mCallbacksDelivered + " of " + mCallbacksFired
+                    + (mAllDelivered ? "" : " (timed out)") + "\n"
+                    + "out of order:          " + mOutOfOrderCount + "\n"
+                    + "unmatched deliveries:  " + mUnmatchedCount + "\n"
+                    + "dispatch latency (us): mean " + mMeanLatencyMicros + ", p50 "
+                    + mP50LatencyMicros + ", p99 " + mP99LatencyMicros + ", max "
+                    + mMaxLatencyMicros + "\n"
+                    + "threads:               peak " + mPeakThreadCount + ", started "
+                    + mThreadsStarted + "\n"
+                    + "allocated bytes:       "
+                    + (mAllocatedBytes < 0 ? "unsupported" : String.valueOf(mAllocatedBytes))
+                    + " (replay and UI threads)\n";
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1 || args[0].isEmpty()) {
+            System.err.println(
+                    "Usage: TimelineReplayer <recording> [speed|max] [listener|multiplexed]");
+            System.exit(2);
+        }
+        Timeline timeline = Timeline.parse(Files.readAllBytes(new File(args[0]).toPath()));
+        double speed = 1;
+        if (args.length > 1) {
+            speed = "max".equals(args[1]) ? Double.POSITIVE_INFINITY : Double.parseDouble(args[1]);
+        }
+        int delivery = args.length > 2 && "multiplexed".equals(args[2])
+                ? DELIVERY_MULTIPLEXED : DELIVERY_LISTENER;
+        System.out.print(new TimelineReplayer(timeline, speed, delivery).run());
+    }
+}
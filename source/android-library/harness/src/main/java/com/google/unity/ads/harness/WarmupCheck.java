@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2018 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.unity.ads.harness;
+
+import com.google.unity.ads.AdWarmup;
+import com.google.unity.ads.PluginLog;
+import com.google.unity.ads.WarmupManifest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks {@link AdWarmup} and {@link WarmupManifest} against a scripted ad factory, whose ads
+ * report ready, fail or never report after a set delay: the manifest parser, the order ads are
+ * created in, the limit on concurrent warm-ups, time-to-first-ready and the warm-up timeout.
+ *
+ * <p>Usage: {@code WarmupCheck}. Exits with status 1 if any check fails.
+ */
+public class WarmupCheck {
+
+    /**
+     * Slack allowed on top of a scripted delay, for scheduling on a loaded machine.
+     */
+    private static final long TIMING_SLACK_MILLIS = 250;
+
+    private static final long FINISH_TIMEOUT_MILLIS = 5000;
+
+    private static final int OUTCOME_READY = 0;
+
+    private static final int OUTCOME_FAILED = 1;
+
+    /**
+     * The ad never reports back.
+     */
+    private static final int OUTCOME_SILENT = 2;
+
+    /**
+     * One check, collecting the expectations it failed.
+     */
+    abstract static class Check {
+
+        final String mName;
+
+        final List<String> mFailures = new ArrayList<>();
+
+        Check(String name) {
+            mName = name;
+        }
+
+        abstract void run() throws InterruptedException;
+
+        void expect(boolean condition, String failure) {
+            if (!condition) {
+                mFailures.add(failure);
+            }
+        }
+    }
+
+    /**
+     * An {@link AdWarmup.AdFactory} whose ads report the scripted outcome of their placement
+     * after its delay, from a background thread. It records the order ads are created in and the
+     * number of ads loading at the same time.
+     */
+    private static final class ScriptedFactory implements AdWarmup.AdFactory {
+
+        private final ScheduledExecutorService mExecutor =
+                Executors.newSingleThreadScheduledExecutor();
+
+        private final Map<String, int[]> mScripts = new HashMap<>();
+
+        private final List<String> mCreated = new ArrayList<>();
+
+        private int mLoadingCount;
+
+        private int mMaxLoadingCount;
+
+        /**
+         * Makes the ads of {@code placementName} report {@code outcome} after {@code delayMillis}.
+         * Placements without a script report ready right away.
+         */
+        ScriptedFactory script(String placementName, int outcome, int delayMillis) {
+            mScripts.put(placementName, new int[] {outcome, delayMillis});
+            return this;
+        }
+
+        @Override
+        public void createAndLoad(WarmupManifest.Placement placement, final AdWarmup.Slot slot) {
+            final String name = placement.getName();
+            int[] script = mScripts.get(name);
+            final int outcome = script != null ? script[0] : OUTCOME_READY;
+            int delayMillis = script != null ? script[1] : 0;
+            final int adNumber;
+            synchronized (this) {
+                adNumber = mCreated.size();
+                mCreated.add(name);
+                mLoadingCount++;
+                mMaxLoadingCount = Math.max(mMaxLoadingCount, mLoadingCount);
+            }
+            if (outcome == OUTCOME_SILENT) {
+                return;
+            }
+            mExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (ScriptedFactory.this) {
+                        mLoadingCount--;
+                    }
+                    if (outcome == OUTCOME_READY) {
+                        slot.onReady(name + "#" + adNumber);
+                    } else {
+                        slot.onFailed("Scripted failure");
+                    }
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized List<String> getCreated() {
+            return new ArrayList<>(mCreated);
+        }
+
+        synchronized int getMaxLoadingCount() {
+            return mMaxLoadingCount;
+        }
+
+        void shutdown() {
+            mExecutor.shutdownNow();
+        }
+    }
+
+    private static boolean awaitFinished(AdWarmup warmup) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + FINISH_TIMEOUT_MILLIS;
+        while (!warmup.isFinished()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    private static boolean rejects(String manifest) {
+        try {
+            WarmupManifest.parse(manifest);
+            return false;
+        } catch (IllegalArgumentException expected) {
+            return true;
+        }
+    }
+
+    /**
+     * Returns the checks to run.
+     */
+    static List<Check> getChecks() {
+        List<Check> checks = new ArrayList<>();
+
+        checks.add(new Check("manifest parser") {
+            @Override
+            void run() {
+                WarmupManifest manifest = WarmupManifest.parse(
+                        "# name, format, ad unit ID, priority, pool size[, option]\r\n"
+                        + "\n"
+                        + "  level_end , interstitial, unit/1, 1, 2\n"
+                        + "menu, banner, unit/2, -1, 1, SMART_BANNER\n"
+                        + "shop, native, unit/3, 2, 3, 10104090\n");
+                List<WarmupManifest.Placement> placements = manifest.getPlacements();
+                expect(placements.size() == 3, "expected 3 placements, got " + placements.size());
+                if (placements.size() != 3) {
+                    return;
+                }
+                WarmupManifest.Placement levelEnd = placements.get(0);
+                expect("level_end".equals(levelEnd.getName()), "name not trimmed");
+                expect(levelEnd.getFormat() == WarmupManifest.FORMAT_INTERSTITIAL,
+                        "wrong interstitial format");
+                expect("unit/1".equals(levelEnd.getAdUnitId()), "wrong ad unit ID");
+                expect(levelEnd.getPriority() == 1 && levelEnd.getPoolSize() == 2,
+                        "wrong priority or pool size");
+                expect(levelEnd.getOption() == null, "unexpected option");
+                WarmupManifest.Placement menu = placements.get(1);
+                expect(menu.getFormat() == WarmupManifest.FORMAT_BANNER
+                        && menu.getPriority() == -1
+                        && "SMART_BANNER".equals(menu.getOption()), "wrong banner placement");
+                WarmupManifest.Placement shop = placements.get(2);
+                expect(shop.getFormat() == WarmupManifest.FORMAT_NATIVE
+                        && "10104090".equals(shop.getOption()), "wrong native placement");
+
+                expect(rejects("a, interstitial, unit, 1\n"), "accepted 4 fields");
+                expect(rejects("a, interstitial, unit, 1, 1, x, y\n"), "accepted 7 fields");
+                expect(rejects("a, video, unit, 1, 1\n"), "accepted an unknown format");
+                expect(rejects("a, interstitial, unit, high, 1\n"),
+                        "accepted a non-integer priority");
+                expect(rejects("a, interstitial, unit, 1, 0\n"), "accepted a pool size of 0");
+                expect(rejects("a, rewarded, unit, 1, 2\n"),
+                        "accepted a rewarded pool size of 2");
+                expect(rejects("a, native, unit, 1, 1\n"),
+                        "accepted a native placement without a template ID");
+                expect(rejects("a, interstitial, unit, 1, 1\na, banner, unit, 2, 1\n"),
+                        "accepted a duplicate placement name");
+            }
+        });
+
+        checks.add(new Check("priority order") {
+            @Override
+            void run() throws InterruptedException {
+                WarmupManifest manifest = WarmupManifest.parse(
+                        "a, interstitial, unit/a, 1, 2\n"
+                        + "b, banner, unit/b, 0, 1\n"
+                        + "c, native, unit/c, 1, 1, 123\n"
+                        + "d, interstitial, unit/d, 0, 2\n");
+                ScriptedFactory factory = new ScriptedFactory();
+                AdWarmup warmup = AdWarmup.start(manifest, factory, 1);
+                expect(awaitFinished(warmup), "warm-up didn't finish");
+                // Priority 0 before priority 1, and within a priority the first ad of every
+                // placement before the second ad of any.
+                List<String> expected = Arrays.asList("b", "d", "d", "a", "c", "a");
+                expect(expected.equals(factory.getCreated()),
+                        "created " + factory.getCreated() + ", expected " + expected);
+                factory.shutdown();
+            }
+        });
+
+        checks.add(new Check("concurrency cap") {
+            @Override
+            void run() throws InterruptedException {
+                WarmupManifest manifest = WarmupManifest.parse(
+                        "a, interstitial, unit/a, 0, 3\n"
+                        + "b, banner, unit/b, 0, 3\n");
+                ScriptedFactory factory = new ScriptedFactory()
+                        .script("a", OUTCOME_READY, 30)
+                        .script("b", OUTCOME_READY, 20);
+                AdWarmup warmup = AdWarmup.start(manifest, factory, 2);
+                expect(awaitFinished(warmup), "warm-up didn't finish");
+                expect(factory.getMaxLoadingCount() == 2,
+                        "up to " + factory.getMaxLoadingCount() + " ads loading, expected 2");
+                expect(warmup.getReadyCount("a") == 3 && warmup.getReadyCount("b") == 3,
+                        "not every ad is ready");
+                expect("a#0".equals(warmup.take("a")), "didn't take the first ready ad");
+                expect(warmup.getReadyCount("a") == 2, "take didn't remove the ad");
+                factory.shutdown();
+            }
+        });
+
+        checks.add(new Check("time to first ready") {
+            @Override
+            void run() throws InterruptedException {
+                WarmupManifest manifest = WarmupManifest.parse(
+                        "fast, interstitial, unit/fast, 0, 1\n"
+                        + "slow, interstitial, unit/slow, 0, 1\n"
+                        + "broken, banner, unit/broken, 0, 1\n");
+                ScriptedFactory factory = new ScriptedFactory()
+                        .script("fast", OUTCOME_READY, 50)
+                        .script("slow", OUTCOME_READY, 300)
+                        .script("broken", OUTCOME_FAILED, 10);
+                AdWarmup warmup = AdWarmup.start(manifest, factory, 3);
+                expect(awaitFinished(warmup), "warm-up didn't finish");
+                long fast = warmup.getTimeToFirstReadyMillis("fast");
+                long slow = warmup.getTimeToFirstReadyMillis("slow");
+                expect(fast >= 50 && fast <= 50 + TIMING_SLACK_MILLIS,
+                        "fast placement ready after " + fast + " ms, expected 50");
+                expect(slow >= 300 && slow <= 300 + TIMING_SLACK_MILLIS,
+                        "slow placement ready after " + slow + " ms, expected 300");
+                expect(warmup.getTimeToFirstReadyMillis("broken") == -1,
+                        "failed placement has a time to first ready");
+                expect(warmup.getReport().contains("broken banner ready=0/1 failed=1"),
+                        "failure missing from the report");
+                factory.shutdown();
+            }
+        });
+
+        checks.add(new Check("timeout") {
+            @Override
+            void run() throws InterruptedException {
+                WarmupManifest manifest = WarmupManifest.parse(
+                        "lost, interstitial, unit/lost, 0, 1\n"
+                        + "next, interstitial, unit/next, 1, 1\n");
+                ScriptedFactory factory = new ScriptedFactory()
+                        .script("lost", OUTCOME_SILENT, 0);
+                AdWarmup warmup = AdWarmup.start(manifest, factory, 1, 100);
+                expect(awaitFinished(warmup), "warm-up didn't finish");
+                expect(warmup.getReport().contains("lost interstitial ready=0/1 failed=1"),
+                        "the lost ad wasn't counted as failed");
+                long next = warmup.getTimeToFirstReadyMillis("next");
+                expect(next >= 100, "the next ad started before the lost ad timed out");
+                expect(warmup.getReadyCount("next") == 1, "the lost ad held its slot");
+                factory.shutdown();
+            }
+        });
+
+        return checks;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        // Failed and timed out ads log warnings on purpose. Only errors matter here.
+        PluginLog.setSink(new PluginLog.Sink() {
+            @Override
+            public void write(int level, String tag, String message) {
+                if (level >= PluginLog.ERROR) {
+                    System.err.println(tag + ": " + message);
+                }
+            }
+        });
+
+        boolean passed = true;
+        for (Check check : getChecks()) {
+            check.run();
+            passed &= check.mFailures.isEmpty();
+            System.out.println(String.format("%-40s %s", check.mName,
+                    check.mFailures.isEmpty() ? "ok" : "FAILED"));
+            for (String failure : check.mFailures) {
+                System.out.println("  " + failure);
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+}
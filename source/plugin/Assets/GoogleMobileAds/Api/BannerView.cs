@@ -51,6 +51,14 @@ namespace GoogleMobileAds.Api
             ConfigureBannerEvents();
         }
 
+        // Wraps a platform client that already holds a banner, such as a banner taken from a
+        // warm-up.
+        internal BannerView(IBannerClient client)
+        {
+            this.client = client;
+            ConfigureBannerEvents();
+        }
+
         // These are the ad callback events that can be hooked into.
         public event EventHandler<EventArgs> OnAdLoaded;
 
@@ -34,45 +34,14 @@ namespace GoogleMobileAds.Api
             this.client = (IInterstitialClient)method.Invoke(null, null);
             client.CreateInterstitialAd(adUnitId);
 
-            this.client.OnAdLoaded += (sender, args) =>
-            {
-                if (this.OnAdLoaded != null)
-                {
-                    this.OnAdLoaded(this, args);
-                }
-            };
-
-            this.client.OnAdFailedToLoad += (sender, args) =>
-            {
-                if (this.OnAdFailedToLoad != null)
-                {
-                    this.OnAdFailedToLoad(this, args);
-                }
-            };
-
-            this.client.OnAdOpening += (sender, args) =>
-            {
-                if (this.OnAdOpening != null)
-                {
-                    this.OnAdOpening(this, args);
-                }
-            };
-
-            this.client.OnAdClosed += (sender, args) =>
-            {
-                if (this.OnAdClosed != null)
-                {
-                    this.OnAdClosed(this, args);
-                }
-            };
+            ConfigureInterstitialEvents();
+        }
 
-            this.client.OnAdLeavingApplication += (sender, args) =>
-            {
-                if (this.OnAdLeavingApplication != null)
-                {
-                    this.OnAdLeavingApplication(this, args);
-                }
-            };
+        // Wraps a platform client that already holds an ad, such as an ad taken from a warm-up.
+        internal InterstitialAd(IInterstitialClient client)
+        {
+            this.client = client;
+            ConfigureInterstitialEvents();
         }
 
         // These are the ad callback events that can be hooked into.
@@ -115,5 +84,48 @@ namespace GoogleMobileAds.Api
         {
             return this.client.MediationAdapterClassName();
         }
+
+        private void ConfigureInterstitialEvents()
+        {
+            this.client.OnAdLoaded += (sender, args) =>
+            {
+                if (this.OnAdLoaded != null)
+                {
+                    this.OnAdLoaded(this, args);
+                }
+            };
+
+            this.client.OnAdFailedToLoad += (sender, args) =>
+            {
+                if (this.OnAdFailedToLoad != null)
+                {
+                    this.OnAdFailedToLoad(this, args);
+                }
+            };
+
+            this.client.OnAdOpening += (sender, args) =>
+            {
+                if (this.OnAdOpening != null)
+                {
+                    this.OnAdOpening(this, args);
+                }
+            };
+
+            this.client.OnAdClosed += (sender, args) =>
+            {
+                if (this.OnAdClosed != null)
+                {
+                    this.OnAdClosed(this, args);
+                }
+            };
+
+            this.client.OnAdLeavingApplication += (sender, args) =>
+            {
+                if (this.OnAdLeavingApplication != null)
+                {
+                    this.OnAdLeavingApplication(this, args);
+                }
+            };
+        }
     }
 }
@@ -0,0 +1,85 @@
+// Copyright (C) 2018 Google, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#if UNITY_ANDROID
+
+using System.Collections.Generic;
+
+namespace GoogleMobileAds.Android
+{
+    // Receives ad events that are not delivered through a per-ad listener proxy.
+    internal interface IAdEventReceiver
+    {
+        void OnAdEvent(int eventCode, int intArg, string stringArg);
+    }
+
+    // Routes ad events tagged with an ad handle, from either the event ring or the multiplexed
+    // listener, back to the client that owns the ad.
+    internal static class AdEventDispatcher
+    {
+        // Event codes, matching com.google.unity.ads.AdEvents.
+        public const int EventAdLoaded = 0;
+        public const int EventAdFailedToLoad = 1;
+        public const int EventAdOpened = 2;
+        public const int EventAdClosed = 3;
+        public const int EventAdLeftApplication = 4;
+        public const int EventAdStarted = 5;
+        public const int EventAdRewarded = 6;
+        public const int EventAdCompleted = 7;
+
+        private static Dictionary<int, IAdEventReceiver> receivers =
+                new Dictionary<int, IAdEventReceiver>();
+
+        // Whether clients need to register to receive their events.
+        public static bool IsActive
+        {
+            get
+            {
+                return AdEventRing.IsEnabled || MultiplexedAdListener.IsEnabled;
+            }
+        }
+
+        public static void Register(int handle, IAdEventReceiver receiver)
+        {
+            lock (receivers)
+            {
+                receivers[handle] = receiver;
+            }
+        }
+
+        public static void Unregister(int handle)
+        {
+            lock (receivers)
+            {
+                receivers.Remove(handle);
+            }
+        }
+
+        public static void Dispatch(int handle, int eventCode, int intArg, string stringArg)
+        {
+            IAdEventReceiver receiver;
+            lock (receivers)
+            {
+                if (!receivers.TryGetValue(handle, out receiver))
+                {
+                    return;
+                }
+            }
+
+            receiver.OnAdEvent(eventCode, intArg, stringArg);
+        }
+    }
+}
+
+#endif
@@ -0,0 +1,137 @@
+// Copyright (C) 2018 Google, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#if UNITY_ANDROID
+
+using System;
+using System.Collections.Generic;
+
+using UnityEngine;
+
+namespace GoogleMobileAds.Android
+{
+    // Opt-in alternative to per-ad listener proxies. Once enabled, the Android plugin writes ad
+    // events into a preallocated ring instead of calling into C# from a background thread, and
+    // this component drains the ring once per frame on the main thread. Enable it before creating
+    // any ads so that every client registers with it. Draining goes through raw JNI calls on a
+    // global reference to the plugin's drain array, so a frame with events allocates nothing.
+    public class AdEventRing : MonoBehaviour
+    {
+        // Number of ints per event in the drained array, matching AdEventRing.EVENT_STRIDE.
+        private const int EventStride = 4;
+
+        private static AdEventRing instance = null;
+
+        private static readonly jvalue[] NoArgs = new jvalue[0];
+
+        private static AndroidJavaObject ring = null;
+
+        private static IntPtr drainInPlaceMethod = IntPtr.Zero;
+
+        // Global reference to the array AdEventRing.drainInPlace() writes to.
+        private static IntPtr drainedArray = IntPtr.Zero;
+
+        // String arguments by stringRef. Refs of 0 or more always name the same string.
+        private static readonly Dictionary<int, string> internedStrings =
+                new Dictionary<int, string>();
+
+        public static bool IsEnabled
+        {
+            get
+            {
+                return ring != null;
+            }
+        }
+
+        // Routes ad events through a ring holding at least capacity events between two frames.
+        public static void Enable(int capacity)
+        {
+            if (IsEnabled)
+            {
+                return;
+            }
+
+            AndroidJavaClass adEvents = new AndroidJavaClass(Utils.AdEventsClassName);
+            ring = adEvents.CallStatic<AndroidJavaObject>("enableEventRing", capacity);
+            drainInPlaceMethod =
+                    AndroidJNIHelper.GetMethodID(ring.GetRawClass(), "drainInPlace", "()I");
+            IntPtr getDrainedArray =
+                    AndroidJNIHelper.GetMethodID(ring.GetRawClass(), "getDrainedArray", "()[I");
+            IntPtr array =
+                    AndroidJNI.CallObjectMethod(ring.GetRawObject(), getDrainedArray, NoArgs);
+            drainedArray = AndroidJNI.NewGlobalRef(array);
+            AndroidJNI.DeleteLocalRef(array);
+
+            GameObject obj = new GameObject("MobileAdsEventRing");
+            obj.hideFlags = HideFlags.HideAndDontSave;
+            DontDestroyOnLoad(obj);
+            instance = obj.AddComponent<AdEventRing>();
+        }
+
+        // Returns the number of events dropped because the ring filled up between two drains.
+        public static long GetDroppedCount()
+        {
+            return IsEnabled ? ring.Call<long>("getDroppedCount") : 0;
+        }
+
+        public void Awake()
+        {
+            DontDestroyOnLoad(gameObject);
+        }
+
+        public void Update()
+        {
+            int count = AndroidJNI.CallIntMethod(ring.GetRawObject(), drainInPlaceMethod, NoArgs);
+            for (int i = 0; i < count; i++)
+            {
+                int offset = 1 + i * EventStride;
+                int adId = AndroidJNI.GetIntArrayElement(drainedArray, offset);
+                int eventCode = AndroidJNI.GetIntArrayElement(drainedArray, offset + 1);
+                int intArg = AndroidJNI.GetIntArrayElement(drainedArray, offset + 2);
+                int stringRef = AndroidJNI.GetIntArrayElement(drainedArray, offset + 3);
+                AdEventDispatcher.Dispatch(adId, eventCode, intArg, GetString(stringRef));
+            }
+        }
+
+        private static string GetString(int stringRef)
+        {
+            if (stringRef == -1)
+            {
+                return null;
+            }
+
+            string value;
+            if (internedStrings.TryGetValue(stringRef, out value))
+            {
+                return value;
+            }
+
+            // Only the first event with each interned string, or a string past the interned
+            // limit, needs a JNI call.
+            value = ring.Call<string>("getDrainedString", stringRef);
+            if (stringRef >= 0)
+            {
+                internedStrings[stringRef] = value;
+            }
+            return value;
+        }
+
+        public void OnDisable()
+        {
+            instance = null;
+        }
+    }
+}
+
+#endif
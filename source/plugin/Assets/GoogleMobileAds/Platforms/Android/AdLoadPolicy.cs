@@ -0,0 +1,51 @@
+// Copyright (C) 2018 Google, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#if UNITY_ANDROID
+
+using UnityEngine;
+
+namespace GoogleMobileAds.Android
+{
+    // Scales down Android ad loading while the device is in battery saver, thermally throttled,
+    // or on a metered or slow network: fewer concurrent loads, smaller warm-up pools and longer
+    // banner refresh intervals. On by default.
+    public static class AdLoadPolicy
+    {
+        // Levels, matching the DeviceConditionPolicy.LEVEL_ constants.
+        public const int Full = 0;
+        public const int Reduced = 1;
+        public const int Minimal = 2;
+
+        public static void SetEnabled(bool enabled)
+        {
+            new AndroidJavaClass(Utils.DeviceConditionsClassName).CallStatic("setEnabled", enabled);
+        }
+
+        public static int GetLevel()
+        {
+            return new AndroidJavaClass(Utils.DeviceConditionsClassName)
+                    .CallStatic<int>("getLevel");
+        }
+
+        // Returns the constraints behind the current level, separated by commas.
+        public static string GetReasons()
+        {
+            return new AndroidJavaClass(Utils.DeviceConditionsClassName)
+                    .CallStatic<string>("getReasons");
+        }
+    }
+}
+
+#endif
@@ -0,0 +1,47 @@
+// Copyright (C) 2018 Google, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#if UNITY_ANDROID
+
+using UnityEngine;
+
+namespace GoogleMobileAds.Android
+{
+    // Controls how much the Android plugin writes to logcat. Only warnings and errors are logged
+    // by default; messages below the level are dropped before they are formatted.
+    public static class AdLogging
+    {
+        // Log levels, matching android.util.Log priorities.
+        public const int Debug = 3;
+        public const int Info = 4;
+        public const int Warn = 5;
+        public const int Error = 6;
+        public const int None = 7;
+
+        public static void SetLevel(int level)
+        {
+            new AndroidJavaClass(Utils.PluginLogClassName).CallStatic("setLevel", level);
+        }
+
+        // Allows at most maxMessages messages with the same pattern every windowMillis
+        // milliseconds. The next message past the window reports how many were suppressed.
+        public static void SetRateLimit(int maxMessages, long windowMillis)
+        {
+            new AndroidJavaClass(Utils.PluginLogClassName)
+                    .CallStatic("setRateLimit", maxMessages, windowMillis);
+        }
+    }
+}
+
+#endif
@@ -0,0 +1,51 @@
+// Copyright (C) 2018 Google, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#if UNITY_ANDROID
+
+using UnityEngine;
+
+namespace GoogleMobileAds.Android
+{
+    // Starts the Mobile Ads SDK and the WebView while the Android UI thread is idle, so the first
+    // banner or interstitial doesn't pay for it when it is created. Call it once after launch.
+    public static class AdPrewarm
+    {
+        // Starts pre-warming once the UI thread is idle, at least delayMillis from now.
+        public static void Start(long delayMillis)
+        {
+            AndroidJavaClass playerClass = new AndroidJavaClass(Utils.UnityActivityClassName);
+            AndroidJavaObject activity =
+                    playerClass.GetStatic<AndroidJavaObject>("currentActivity");
+            new AndroidJavaClass(Utils.AdPrewarmerClassName)
+                    .CallStatic("start", activity, delayMillis);
+        }
+
+        // Returns the milliseconds of cold start work moved off the first ad so far.
+        public static long GetPrewarmMillis()
+        {
+            return new AndroidJavaClass(Utils.AdPrewarmerClassName)
+                    .CallStatic<long>("getPrewarmMillis");
+        }
+
+        // Returns the milliseconds the first ad took to create, or -1 if none was created yet.
+        public static long GetFirstAdCreateMillis()
+        {
+            return new AndroidJavaClass(Utils.AdPrewarmerClassName)
+                    .CallStatic<long>("getFirstAdCreateMillis");
+        }
+    }
+}
+
+#endif
@@ -0,0 +1,120 @@
+// Copyright (C) 2018 Google, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+// Reading the board needs AndroidJNI.GetDirectBufferAddress (Unity 2019.1 or newer) and unsafe
+// code, so it is compiled only when GOOGLE_MOBILE_ADS_STATUS_BOARD is defined in the player
+// settings along with "Allow 'unsafe' Code".
+#if UNITY_ANDROID && GOOGLE_MOBILE_ADS_STATUS_BOARD
+
+using System;
+using System.Threading;
+
+using UnityEngine;
+
+namespace GoogleMobileAds.Android
+{
+    // Reads the ad status board that the Android plugin keeps in a direct ByteBuffer. Once
+    // enabled, interstitial and reward based video clients created afterwards answer IsLoaded()
+    // from native memory instead of making a JNI call. The layout matches
+    // com.google.unity.ads.AdStatusBoard.
+    public static unsafe class AdStatusBoard
+    {
+        // Ad states, matching com.google.unity.ads.AdState.
+        public const int StateIdle = 0;
+        public const int StateLoading = 1;
+        public const int StateReady = 2;
+        public const int StateShowing = 3;
+        public const int StateClosed = 4;
+        public const int StateFailed = 5;
+
+        private const int HeaderSize = 16;
+        private const int SlotSize = 24;
+        private const int OffsetSequence = 0;
+        private const int OffsetState = 8;
+        private const int OffsetReadyTime = 16;
+
+        // Keeps the Java buffer, and so the native memory behind it, alive.
+        private static AndroidJavaObject buffer = null;
+
+        private static byte* board = null;
+
+        public static bool IsEnabled
+        {
+            get
+            {
+                return board != null;
+            }
+        }
+
+        // Creates the board with room for slotCount ads registered at the same time.
+        public static void Enable(int slotCount)
+        {
+            if (IsEnabled)
+            {
+                return;
+            }
+
+            AndroidJavaClass boardClass = new AndroidJavaClass(Utils.AdStatusBoardClassName);
+            buffer = boardClass.CallStatic<AndroidJavaObject>("enable", slotCount);
+            board = (byte*)AndroidJNI.GetDirectBufferAddress(buffer.GetRawObject());
+        }
+
+        // Returns the state of the ad in slot as one of the State constants.
+        public static int ReadState(int slot)
+        {
+            int state;
+            long readyTime;
+            Read(slot, out state, out readyTime);
+            return state;
+        }
+
+        // Returns when the ad in slot last became ready, in milliseconds since the Unix epoch.
+        public static long ReadReadyTime(int slot)
+        {
+            int state;
+            long readyTime;
+            Read(slot, out state, out readyTime);
+            return readyTime;
+        }
+
+        // Returns the sequence number of slot, which changes on every state change of its ad.
+        public static int ReadSequence(int slot)
+        {
+            int* sequence = (int*)(board + HeaderSize + slot * SlotSize + OffsetSequence);
+            Thread.MemoryBarrier();
+            return *sequence;
+        }
+
+        private static void Read(int slot, out int state, out long readyTime)
+        {
+            byte* slotStart = board + HeaderSize + slot * SlotSize;
+            int* sequence = (int*)(slotStart + OffsetSequence);
+            while (true)
+            {
+                int before = *sequence;
+                Thread.MemoryBarrier();
+                state = *(int*)(slotStart + OffsetState);
+                readyTime = *(long*)(slotStart + OffsetReadyTime);
+                Thread.MemoryBarrier();
+                int after = *sequence;
+                if (before == after && (before & 1) == 0)
+                {
+                    return;
+                }
+            }
+        }
+    }
+}
+
+#endif
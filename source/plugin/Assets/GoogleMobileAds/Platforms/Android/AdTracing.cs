@@ -0,0 +1,59 @@
+// Copyright (C) 2018 Google, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#if UNITY_ANDROID
+
+using UnityEngine;
+
+namespace GoogleMobileAds.Android
+{
+    // Trace spans around the Android plugin's operations and ad callbacks, for lining ad work up
+    // with the game's frame traces. Tracing is off by default and costs nothing until enabled.
+    public static class AdTracing
+    {
+        private static AndroidJavaObject traceRing = null;
+
+        // Emits spans as android.os.Trace sections, which show up in systrace and Perfetto next
+        // to Unity's own markers. Returns false on devices below API level 18.
+        public static bool EnableSystemTrace()
+        {
+            traceRing = null;
+            AndroidJavaClass systemTracer = new AndroidJavaClass(Utils.SystemTracerClassName);
+            return systemTracer.CallStatic<bool>("install");
+        }
+
+        // Keeps the most recent spans, at least capacity begin and end events, in memory so they
+        // can be written out with DumpChromeTrace.
+        public static void EnableTraceRing(int capacity)
+        {
+            AndroidJavaClass ringClass = new AndroidJavaClass(Utils.TraceRingClassName);
+            traceRing = ringClass.CallStatic<AndroidJavaObject>("install", capacity);
+        }
+
+        // Writes the spans kept by EnableTraceRing to path as Chrome trace JSON, which
+        // chrome://tracing and Perfetto can open. Returns false if the ring is not enabled or the
+        // file could not be written.
+        public static bool DumpChromeTrace(string path)
+        {
+            return traceRing != null && traceRing.Call<bool>("dumpChromeJson", path);
+        }
+
+        public static void Disable()
+        {
+            new AndroidJavaClass(Utils.PluginTraceClassName).CallStatic("disable");
+        }
+    }
+}
+
+#endif
@@ -0,0 +1,95 @@
+// Copyright (C) 2018 Google, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#if UNITY_ANDROID
+
+using GoogleMobileAds.Api;
+using UnityEngine;
+
+namespace GoogleMobileAds.Android
+{
+    // Creates and preloads the ads of a placement manifest at startup, a few at a time in
+    // priority order. See WarmupManifest in the Android plugin for the manifest format. Warmed-up
+    // ads have no listener proxy, so enable AdEventRing or MultiplexedAdListener first. Taken
+    // interstitials and banners can be wrapped in the usual InterstitialAd and BannerView, whose
+    // clients register with AdEventDispatcher to receive their events.
+    public static class AdWarmup
+    {
+        private static AndroidJavaObject warmup = null;
+
+        public static bool IsStarted
+        {
+            get
+            {
+                return warmup != null;
+            }
+        }
+
+        public static void Start(string manifest, int maxConcurrentWarmups)
+        {
+            if (IsStarted)
+            {
+                return;
+            }
+
+            AndroidJavaClass playerClass = new AndroidJavaClass(Utils.UnityActivityClassName);
+            AndroidJavaObject activity =
+                    playerClass.GetStatic<AndroidJavaObject>("currentActivity");
+            AndroidJavaClass warmupAds = new AndroidJavaClass(Utils.WarmupAdsClassName);
+            warmup = warmupAds.CallStatic<AndroidJavaObject>(
+                    "start", activity, manifest, maxConcurrentWarmups);
+        }
+
+        // Takes a ready ad of the placement: the Interstitial, RewardBasedVideo or Banner object,
+        // or the CustomNativeAd of a native placement. Returns null if none is ready.
+        public static AndroidJavaObject TakeAd(string placement)
+        {
+            return IsStarted ? warmup.Call<AndroidJavaObject>("take", placement) : null;
+        }
+
+        // Takes a ready ad of an interstitial placement as an InterstitialAd, or returns null if
+        // none is ready. The ad has already loaded, so OnAdLoaded doesn't fire for it.
+        public static InterstitialAd TakeInterstitialAd(string placement)
+        {
+            AndroidJavaObject interstitial = TakeAd(placement);
+            return interstitial != null
+                    ? new InterstitialAd(new InterstitialClient(interstitial))
+                    : null;
+        }
+
+        // Takes a ready banner of a banner placement as a hidden BannerView, or returns null if
+        // none is ready. The banner has already loaded, so OnAdLoaded doesn't fire until it
+        // refreshes.
+        public static BannerView TakeBannerView(string placement)
+        {
+            AndroidJavaObject banner = TakeAd(placement);
+            return banner != null ? new BannerView(new BannerClient(banner)) : null;
+        }
+
+        // Returns the milliseconds from Start until the placement had its first ready ad, or -1.
+        public static long GetTimeToFirstReadyMillis(string placement)
+        {
+            return IsStarted ? warmup.Call<long>("getTimeToFirstReadyMillis", placement) : -1;
+        }
+
+        // Returns one line per placement with its ready and failed counts and time to first
+        // ready.
+        public static string GetReport()
+        {
+            return IsStarted ? warmup.Call<string>("getReport") : string.Empty;
+        }
+    }
+}
+
+#endif
@@ -22,17 +22,48 @@ using UnityEngine;
 
 namespace GoogleMobileAds.Android
 {
-    public class BannerClient : AndroidJavaProxy, IBannerClient
+    public class BannerClient : AndroidJavaProxy, IBannerClient, IAdEventReceiver
     {
         private AndroidJavaObject bannerView;
 
+        private int adId;
+
         public BannerClient() : base(Utils.UnityAdListenerClassName)
         {
             AndroidJavaClass playerClass = new AndroidJavaClass(Utils.UnityActivityClassName);
             AndroidJavaObject activity =
                     playerClass.GetStatic<AndroidJavaObject>("currentActivity");
-            this.bannerView = new AndroidJavaObject(
-                Utils.BannerViewClassName, activity, this);
+            if (MultiplexedAdListener.IsEnabled)
+            {
+                this.bannerView = new AndroidJavaObject(Utils.BannerViewClassName, activity);
+            }
+            else
+            {
+                this.bannerView = new AndroidJavaObject(Utils.BannerViewClassName, activity, this);
+            }
+            this.adId = this.bannerView.Call<int>("getAdId");
+            if (AdEventDispatcher.IsActive)
+            {
+                AdEventDispatcher.Register(this.adId, this);
+            }
+        }
+
+        // Wraps an Android Banner created without a listener proxy, such as one taken from
+        // AdWarmup. Its events reach this client through AdEventDispatcher.
+        internal BannerClient(AndroidJavaObject bannerView) : base(Utils.UnityAdListenerClassName)
+        {
+            this.bannerView = bannerView;
+            this.adId = this.bannerView.Call<int>("getAdId");
+            AdEventDispatcher.Register(this.adId, this);
+        }
+
+        // The ad ID of the Android banner, which identifies it in a BannerTransaction.
+        internal int AdId
+        {
+            get
+            {
+                return this.adId;
+            }
         }
 
         public event EventHandler<EventArgs> OnAdLoaded;
@@ -83,6 +114,10 @@ namespace GoogleMobileAds.Android
         public void DestroyBannerView()
         {
             this.bannerView.Call("destroy");
+            if (AdEventDispatcher.IsActive)
+            {
+                AdEventDispatcher.Unregister(this.adId);
+            }
         }
 
         // Returns the height of the BannerView in pixels.
@@ -115,6 +150,46 @@ namespace GoogleMobileAds.Android
             return this.bannerView.Call<string>("getMediationAdapterClassName");
         }
 
+        // Sets the maximum number of timed refreshes per minute across all Android banners, 0 for
+        // no limit. Refreshes over the limit are delayed. There is no limit by default.
+        public static void SetMaxRefreshesPerMinute(int refreshesPerMinute)
+        {
+            new AndroidJavaClass(Utils.BannerViewClassName)
+                    .CallStatic("setMaxRefreshesPerMinute", refreshesPerMinute);
+        }
+
+        // Returns the refresh interval in effect, in seconds. It is stretched after failed or
+        // slow loads and shrinks back toward the interval set after fast fills.
+        public float GetEffectiveRefreshInterval()
+        {
+            return this.bannerView.Call<float>("getEffectiveRefreshInterval");
+        }
+
+        // Returns why the refresh interval last changed or a refresh was last held back.
+        public string GetRefreshIntervalReason()
+        {
+            return this.bannerView.Call<string>("getRefreshIntervalReason");
+        }
+
+        // Sets the minimum time between two viewability samples taken when the banner is drawn.
+        public void SetViewabilitySampleInterval(int intervalMillis)
+        {
+            this.bannerView.Call("setViewabilitySampleInterval", intervalMillis);
+        }
+
+        // Returns whether at least half of the banner was on screen at the last sample. Timed
+        // refreshes are held back while it isn't.
+        public bool IsViewable()
+        {
+            return this.bannerView.Call<bool>("isViewable");
+        }
+
+        // Returns the average time the banner was viewable per completed impression, in seconds.
+        public float GetViewableSecondsPerImpression()
+        {
+            return this.bannerView.Call<float>("getViewableSecondsPerImpression");
+        }
+
 #region Callbacks from UnityBannerAdListener.
 
         public void onAdLoaded()
@@ -161,6 +236,32 @@ namespace GoogleMobileAds.Android
             }
         }
 
+#endregion
+
+#region IAdEventReceiver implementation
+
+        void IAdEventReceiver.OnAdEvent(int eventCode, int intArg, string stringArg)
+        {
+            switch (eventCode)
+            {
+                case AdEventDispatcher.EventAdLoaded:
+                    this.onAdLoaded();
+                    break;
+                case AdEventDispatcher.EventAdFailedToLoad:
+                    this.onAdFailedToLoad(stringArg);
+                    break;
+                case AdEventDispatcher.EventAdOpened:
+                    this.onAdOpened();
+                    break;
+                case AdEventDispatcher.EventAdClosed:
+                    this.onAdClosed();
+                    break;
+                case AdEventDispatcher.EventAdLeftApplication:
+                    this.onAdLeftApplication();
+                    break;
+            }
+        }
+
 #endregion
     }
 }
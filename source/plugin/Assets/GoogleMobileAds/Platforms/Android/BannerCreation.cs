@@ -0,0 +1,42 @@
+// Copyright (C) 2018 Google, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#if UNITY_ANDROID
+
+using UnityEngine;
+
+namespace GoogleMobileAds.Android
+{
+    // Controls when Android banners build their ad view. Building it starts a WebView, which is
+    // one of the longest main thread stalls of a scene load, so banners that may never be shown
+    // can defer it. Applies to banners created after the call.
+    public static class BannerCreation
+    {
+        // The ad view is built by CreateBannerView. This is the default.
+        public const int Eager = 0;
+
+        // The ad view is built by the first LoadAd, Show or refresh.
+        public const int OnFirstUse = 1;
+
+        // Like OnFirstUse, but the ad view is also built once the UI thread is idle.
+        public const int OnIdle = 2;
+
+        public static void SetMode(int mode)
+        {
+            new AndroidJavaClass(Utils.BannerViewClassName).CallStatic("setCreationMode", mode);
+        }
+    }
+}
+
+#endif
@@ -0,0 +1,33 @@
+// Copyright (C) 2018 Google, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#if UNITY_ANDROID
+
+using UnityEngine;
+
+namespace GoogleMobileAds.Android
+{
+    // Displays Android banners in one overlay container on top of the Unity player instead of
+    // each in its own popup window. Hosted banners are laid out together and are kept from
+    // overlapping each other. Applies to banners whose ad view is built after the call.
+    public static class BannerHosting
+    {
+        public static void SetHosted(bool hosted)
+        {
+            new AndroidJavaClass(Utils.BannerViewClassName).CallStatic("setHosted", hosted);
+        }
+    }
+}
+
+#endif
@@ -0,0 +1,60 @@
+// Copyright (C) 2018 Google, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#if UNITY_ANDROID
+
+using UnityEngine;
+
+namespace GoogleMobileAds.Android
+{
+    // Selects how Android banners are displayed, and records frame times to compare the modes on
+    // a device. The mode applies to banners whose ad view is built after the call.
+    public static class BannerRendering
+    {
+        // Each banner is displayed in its own popup window. This is the default.
+        public const int PopupWindow = 0;
+
+        // Banners share one overlay container and are kept from overlapping. See BannerHosting.
+        public const int Hosted = 1;
+
+        // The ad view is added directly to the activity's content view, above the Unity player,
+        // so no extra window is created.
+        public const int ContentView = 2;
+
+        public static void SetMode(int mode)
+        {
+            new AndroidJavaClass(Utils.BannerViewClassName).CallStatic("setRenderMode", mode);
+        }
+
+        // Clears the recorded frame times and starts recording.
+        public static void StartFrameMetrics()
+        {
+            new AndroidJavaClass(Utils.BannerViewClassName).CallStatic("startFrameMetrics");
+        }
+
+        public static void StopFrameMetrics()
+        {
+            new AndroidJavaClass(Utils.BannerViewClassName).CallStatic("stopFrameMetrics");
+        }
+
+        // Returns a one line summary of the recorded frame times, labeled with the current mode.
+        public static string GetFrameMetricsReport()
+        {
+            return new AndroidJavaClass(Utils.BannerViewClassName)
+                    .CallStatic<string>("getFrameMetricsReport");
+        }
+    }
+}
+
+#endif
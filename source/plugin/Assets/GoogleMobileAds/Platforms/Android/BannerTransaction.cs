@@ -0,0 +1,85 @@
+// Copyright (C) 2018 Google, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#if UNITY_ANDROID
+
+using System.Collections.Generic;
+
+using UnityEngine;
+
+namespace GoogleMobileAds.Android
+{
+    // Queues operations on several Android banners and commits them with a single call into the
+    // plugin, where they run in one UI thread task with one window update per banner. Useful at
+    // scene changes, when many banners are shown, hidden or moved at once.
+    public class BannerTransaction
+    {
+        // Operation codes, matching the BannerTransaction.OPERATION_ constants.
+        private const int OperationShow = 0;
+        private const int OperationHide = 1;
+        private const int OperationSetPosition = 2;
+        private const int OperationSetCustomPosition = 3;
+        private const int OperationMoveAdPosition = 4;
+
+        private readonly List<int> operations = new List<int>();
+
+        public BannerTransaction Show(BannerClient banner)
+        {
+            return this.Add(banner, OperationShow, 0, 0);
+        }
+
+        public BannerTransaction Hide(BannerClient banner)
+        {
+            return this.Add(banner, OperationHide, 0, 0);
+        }
+
+        public BannerTransaction SetPosition(BannerClient banner, int positionCode)
+        {
+            return this.Add(banner, OperationSetPosition, positionCode, 0);
+        }
+
+        public BannerTransaction SetPosition(BannerClient banner, int x, int y)
+        {
+            return this.Add(banner, OperationSetCustomPosition, x, y);
+        }
+
+        public BannerTransaction MoveAdPosition(BannerClient banner, int positionCode)
+        {
+            return this.Add(banner, OperationMoveAdPosition, positionCode, 0);
+        }
+
+        // Runs the queued operations in order and clears the transaction for reuse.
+        public void Commit()
+        {
+            if (this.operations.Count == 0)
+            {
+                return;
+            }
+            new AndroidJavaClass(Utils.BannerTransactionClassName)
+                    .CallStatic("commit", this.operations.ToArray());
+            this.operations.Clear();
+        }
+
+        private BannerTransaction Add(BannerClient banner, int operation, int arg1, int arg2)
+        {
+            this.operations.Add(banner.AdId);
+            this.operations.Add(operation);
+            this.operations.Add(arg1);
+            this.operations.Add(arg2);
+            return this;
+        }
+    }
+}
+
+#endif
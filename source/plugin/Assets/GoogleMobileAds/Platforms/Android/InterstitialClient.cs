@@ -22,17 +22,57 @@ using UnityEngine;
 
 namespace GoogleMobileAds.Android
 {
-    public class InterstitialClient : AndroidJavaProxy, IInterstitialClient
+    public class InterstitialClient : AndroidJavaProxy, IInterstitialClient, IAdEventReceiver
     {
         private AndroidJavaObject interstitial;
 
+        private int adId;
+
+#if GOOGLE_MOBILE_ADS_STATUS_BOARD
+        private int statusSlot = -1;
+#endif
+
         public InterstitialClient() : base(Utils.UnityAdListenerClassName)
         {
             AndroidJavaClass playerClass = new AndroidJavaClass(Utils.UnityActivityClassName);
             AndroidJavaObject activity =
                     playerClass.GetStatic<AndroidJavaObject>("currentActivity");
-            this.interstitial = new AndroidJavaObject(
-                Utils.InterstitialClassName, activity, this);
+            if (MultiplexedAdListener.IsEnabled)
+            {
+                this.interstitial = new AndroidJavaObject(Utils.InterstitialClassName, activity);
+            }
+            else
+            {
+                this.interstitial = new AndroidJavaObject(
+                    Utils.InterstitialClassName, activity, this);
+            }
+            if (AdEventDispatcher.IsActive)
+            {
+                this.adId = this.interstitial.Call<int>("getAdId");
+                AdEventDispatcher.Register(this.adId, this);
+            }
+#if GOOGLE_MOBILE_ADS_STATUS_BOARD
+            if (AdStatusBoard.IsEnabled)
+            {
+                this.statusSlot = this.interstitial.Call<int>("registerWithStatusBoard");
+            }
+#endif
+        }
+
+        // Wraps an Android Interstitial created without a listener proxy, such as one taken from
+        // AdWarmup. Its events reach this client through AdEventDispatcher.
+        internal InterstitialClient(AndroidJavaObject interstitial)
+                : base(Utils.UnityAdListenerClassName)
+        {
+            this.interstitial = interstitial;
+            this.adId = this.interstitial.Call<int>("getAdId");
+            AdEventDispatcher.Register(this.adId, this);
+#if GOOGLE_MOBILE_ADS_STATUS_BOARD
+            if (AdStatusBoard.IsEnabled)
+            {
+                this.statusSlot = this.interstitial.Call<int>("registerWithStatusBoard");
+            }
+#endif
         }
 
         public event EventHandler<EventArgs> OnAdLoaded;
@@ -62,6 +102,12 @@ namespace GoogleMobileAds.Android
         // Checks if interstitial has loaded.
         public bool IsLoaded()
         {
+#if GOOGLE_MOBILE_ADS_STATUS_BOARD
+            if (this.statusSlot >= 0)
+            {
+                return AdStatusBoard.ReadState(this.statusSlot) == AdStatusBoard.StateReady;
+            }
+#endif
             return this.interstitial.Call<bool>("isLoaded");
         }
 
@@ -75,6 +121,13 @@ namespace GoogleMobileAds.Android
         public void DestroyInterstitial()
         {
             this.interstitial.Call("destroy");
+#if GOOGLE_MOBILE_ADS_STATUS_BOARD
+            this.statusSlot = -1;
+#endif
+            if (AdEventDispatcher.IsActive)
+            {
+                AdEventDispatcher.Unregister(this.adId);
+            }
         }
 
         // Returns the mediation adapter class name.
@@ -132,6 +185,32 @@ namespace GoogleMobileAds.Android
         }
 
         #endregion
+
+        #region IAdEventReceiver implementation
+
+        void IAdEventReceiver.OnAdEvent(int eventCode, int intArg, string stringArg)
+        {
+            switch (eventCode)
+            {
+                case AdEventDispatcher.EventAdLoaded:
+                    this.onAdLoaded();
+                    break;
+                case AdEventDispatcher.EventAdFailedToLoad:
+                    this.onAdFailedToLoad(stringArg);
+                    break;
+                case AdEventDispatcher.EventAdOpened:
+                    this.onAdOpened();
+                    break;
+                case AdEventDispatcher.EventAdClosed:
+                    this.onAdClosed();
+                    break;
+                case AdEventDispatcher.EventAdLeftApplication:
+                    this.onAdLeftApplication();
+                    break;
+            }
+        }
+
+        #endregion
     }
 }
 
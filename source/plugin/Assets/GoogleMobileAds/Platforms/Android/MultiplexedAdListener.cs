@@ -0,0 +1,63 @@
+// Copyright (C) 2018 Google, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#if UNITY_ANDROID
+
+using UnityEngine;
+
+namespace GoogleMobileAds.Android
+{
+    // A single listener proxy that receives the events of every banner, interstitial and reward
+    // based video ad, tagged with the ad's handle. Once enabled, ads created afterwards don't
+    // need a listener proxy of their own, so any number of ads costs one JNI global reference.
+    // Ads created before it was enabled keep receiving their events through their own proxy.
+    public class MultiplexedAdListener : AndroidJavaProxy
+    {
+        private static MultiplexedAdListener instance = null;
+
+        private MultiplexedAdListener() : base(Utils.UnityAdEventListenerClassName) {}
+
+        public static bool IsEnabled
+        {
+            get
+            {
+                return instance != null;
+            }
+        }
+
+        // Routes the events of ads created from now on through a single listener.
+        public static void Enable()
+        {
+            if (IsEnabled)
+            {
+                return;
+            }
+
+            instance = new MultiplexedAdListener();
+            AndroidJavaClass adEvents = new AndroidJavaClass(Utils.AdEventsClassName);
+            adEvents.CallStatic("setMultiplexedListener", instance);
+        }
+
+        #region Callbacks from UnityAdEventListener.
+
+        public void onAdEvent(int handle, int eventCode, int intArg, string stringArg)
+        {
+            AdEventDispatcher.Dispatch(handle, eventCode, intArg, stringArg);
+        }
+
+        #endregion
+    }
+}
+
+#endif
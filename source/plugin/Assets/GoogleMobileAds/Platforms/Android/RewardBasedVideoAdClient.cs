@@ -22,10 +22,17 @@ using GoogleMobileAds.Common;
 
 namespace GoogleMobileAds.Android
 {
-    public class RewardBasedVideoAdClient : AndroidJavaProxy, IRewardBasedVideoAdClient
+    public class RewardBasedVideoAdClient : AndroidJavaProxy, IRewardBasedVideoAdClient,
+            IAdEventReceiver
     {
         private AndroidJavaObject androidRewardBasedVideo;
 
+        private int adId;
+
+#if GOOGLE_MOBILE_ADS_STATUS_BOARD
+        private int statusSlot = -1;
+#endif
+
         public event EventHandler<EventArgs> OnAdLoaded = delegate { };
         public event EventHandler<AdFailedToLoadEventArgs> OnAdFailedToLoad = delegate { };
         public event EventHandler<EventArgs> OnAdOpening = delegate { };
@@ -41,8 +48,27 @@ namespace GoogleMobileAds.Android
             AndroidJavaClass playerClass = new AndroidJavaClass(Utils.UnityActivityClassName);
             AndroidJavaObject activity =
                 playerClass.GetStatic<AndroidJavaObject>("currentActivity");
-            androidRewardBasedVideo = new AndroidJavaObject(Utils.RewardBasedVideoClassName,
-                                                            activity, this);
+            if (MultiplexedAdListener.IsEnabled)
+            {
+                androidRewardBasedVideo = new AndroidJavaObject(
+                    Utils.RewardBasedVideoClassName, activity);
+            }
+            else
+            {
+                androidRewardBasedVideo = new AndroidJavaObject(
+                    Utils.RewardBasedVideoClassName, activity, this);
+            }
+            if (AdEventDispatcher.IsActive)
+            {
+                this.adId = this.androidRewardBasedVideo.Call<int>("getAdId");
+                AdEventDispatcher.Register(this.adId, this);
+            }
+#if GOOGLE_MOBILE_ADS_STATUS_BOARD
+            if (AdStatusBoard.IsEnabled)
+            {
+                this.statusSlot = androidRewardBasedVideo.Call<int>("registerWithStatusBoard");
+            }
+#endif
         }
 
         #region IRewardBasedVideoClient implementation
@@ -59,6 +85,12 @@ namespace GoogleMobileAds.Android
 
         public bool IsLoaded()
         {
+#if GOOGLE_MOBILE_ADS_STATUS_BOARD
+            if (this.statusSlot >= 0)
+            {
+                return AdStatusBoard.ReadState(this.statusSlot) == AdStatusBoard.StateReady;
+            }
+#endif
             return androidRewardBasedVideo.Call<bool>("isLoaded");
         }
 
@@ -75,6 +107,13 @@ namespace GoogleMobileAds.Android
         public void DestroyRewardBasedVideoAd()
         {
             androidRewardBasedVideo.Call("destroy");
+#if GOOGLE_MOBILE_ADS_STATUS_BOARD
+            this.statusSlot = -1;
+#endif
+            if (AdEventDispatcher.IsActive)
+            {
+                AdEventDispatcher.Unregister(this.adId);
+            }
         }
 
         // Returns the mediation adapter class name.
@@ -161,6 +200,41 @@ namespace GoogleMobileAds.Android
         }
 
         #endregion
+
+        #region IAdEventReceiver implementation
+
+        void IAdEventReceiver.OnAdEvent(int eventCode, int intArg, string stringArg)
+        {
+            switch (eventCode)
+            {
+                case AdEventDispatcher.EventAdLoaded:
+                    this.onAdLoaded();
+                    break;
+                case AdEventDispatcher.EventAdFailedToLoad:
+                    this.onAdFailedToLoad(stringArg);
+                    break;
+                case AdEventDispatcher.EventAdOpened:
+                    this.onAdOpened();
+                    break;
+                case AdEventDispatcher.EventAdStarted:
+                    this.onAdStarted();
+                    break;
+                case AdEventDispatcher.EventAdClosed:
+                    this.onAdClosed();
+                    break;
+                case AdEventDispatcher.EventAdRewarded:
+                    this.onAdRewarded(stringArg, intArg);
+                    break;
+                case AdEventDispatcher.EventAdLeftApplication:
+                    this.onAdLeftApplication();
+                    break;
+                case AdEventDispatcher.EventAdCompleted:
+                    this.onAdCompleted();
+                    break;
+            }
+        }
+
+        #endregion
     }
 }
 
@@ -53,6 +53,9 @@ namespace GoogleMobileAds.Android
 
         public const string BannerViewClassName = "com.google.unity.ads.Banner";
 
+        public const string BannerTransactionClassName =
+                "com.google.unity.ads.BannerTransaction";
+
         public const string InterstitialClassName = "com.google.unity.ads.Interstitial";
 
         public const string RewardBasedVideoClassName = "com.google.unity.ads.RewardBasedVideo";
@@ -64,11 +67,32 @@ namespace GoogleMobileAds.Android
         public const string UnityRewardBasedVideoAdListenerClassName =
             "com.google.unity.ads.UnityRewardBasedVideoAdListener";
 
+        public const string UnityAdEventListenerClassName =
+            "com.google.unity.ads.UnityAdEventListener";
+
         public const string UnityAdLoaderListenerClassName =
             "com.google.unity.ads.UnityAdLoaderListener";
 
         public const string PluginUtilsClassName = "com.google.unity.ads.PluginUtils";
 
+        public const string AdEventsClassName = "com.google.unity.ads.AdEvents";
+
+        public const string AdStatusBoardClassName = "com.google.unity.ads.AdStatusBoard";
+
+        public const string AdPrewarmerClassName = "com.google.unity.ads.AdPrewarmer";
+
+        public const string DeviceConditionsClassName = "com.google.unity.ads.DeviceConditions";
+
+        public const string PluginTraceClassName = "com.google.unity.ads.PluginTrace";
+
+        public const string SystemTracerClassName = "com.google.unity.ads.SystemTracer";
+
+        public const string PluginLogClassName = "com.google.unity.ads.PluginLog";
+
+        public const string TraceRingClassName = "com.google.unity.ads.TraceRing";
+
+        public const string WarmupAdsClassName = "com.google.unity.ads.WarmupAds";
+
         #endregion
 
         #region Unity class names